@@ -8,7 +8,14 @@ import com.example.lms.api.error.ErrorCode;
 import com.example.lms.api.security.AuthContext;
 import com.example.lms.api.security.AuthUtil;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -16,16 +23,23 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/ai")
 public class AiController {
+  private static final long STREAM_TIMEOUT_MS = 150_000;
+  private static final long RESPONSE_TIMEOUT_MARGIN_MS = 5_000;
+
   private final AiService service;
   private final AiRepository repository;
+  private final AiStreamRelay relay;
 
-  public AiController(AiService service, AiRepository repository) {
+  public AiController(AiService service, AiRepository repository, AiStreamRelay relay) {
     this.service = service;
     this.repository = repository;
+    this.relay = relay;
   }
 
   @GetMapping("/requests")
@@ -44,24 +58,107 @@ public class AiController {
   }
 
   @PostMapping("/summary")
-  public AiResponse summary(
+  public DeferredResult<AiResponse> summary(
       @RequestBody AiRequest request,
       @RequestHeader("X-User-Id") Optional<String> userIdHeader,
       @RequestHeader("X-Role") Optional<String> roleHeader) {
     AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
     validate(request);
-    AiService.AiResult result = service.generateSummary(ctx.userId(), request.text());
-    return new AiResponse(result.output(), result.status(), result.latencyMs());
+    return respond(service.generateSummary(ctx.userId(), request.text()));
   }
 
   @PostMapping("/quiz")
-  public AiResponse quiz(
+  public DeferredResult<AiResponse> quiz(
+      @RequestBody AiRequest request,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    validate(request);
+    return respond(service.generateQuiz(ctx.userId(), request.text()));
+  }
+
+  @PostMapping(path = "/summary/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter summaryStream(
       @RequestBody AiRequest request,
       @RequestHeader("X-User-Id") Optional<String> userIdHeader,
       @RequestHeader("X-Role") Optional<String> roleHeader) {
     AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
     validate(request);
-    AiService.AiResult result = service.generateQuiz(ctx.userId(), request.text());
+    return stream(onDelta -> service.streamSummary(ctx.userId(), request.text(), onDelta));
+  }
+
+  @PostMapping(path = "/quiz/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter quizStream(
+      @RequestBody AiRequest request,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    validate(request);
+    return stream(onDelta -> service.streamQuiz(ctx.userId(), request.text(), onDelta));
+  }
+
+  // The service bounds the call itself; the async timeout only needs to sit above that bound, so it
+  // is set per response rather than through the global MVC async timeout.
+  private DeferredResult<AiResponse> respond(CompletableFuture<AiService.AiResult> call) {
+    DeferredResult<AiResponse> response =
+        new DeferredResult<>(service.requestTimeoutMs() + RESPONSE_TIMEOUT_MARGIN_MS);
+    response.onTimeout(
+        () -> response.setErrorResult(new ApiException(ErrorCode.EXTERNAL_API_ERROR, "OpenAI request timed out")));
+    call.whenComplete(
+        (result, ex) -> {
+          if (ex == null) {
+            response.setResult(toResponse(result));
+          } else {
+            response.setErrorResult(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+          }
+        });
+    return response;
+  }
+
+  // Events: "delta" {text} while output arrives, then one "done" {status, latencyMs} or
+  // "error" {code, message}. Writes go through the relay, never on the thread delivering the
+  // upstream stream. A disconnect, timeout or failed write cancels the call, and with it the
+  // upstream stream.
+  private SseEmitter stream(Function<Consumer<String>, CompletableFuture<AiService.AiResult>> call) {
+    SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+    AtomicReference<CompletableFuture<AiService.AiResult>> running = new AtomicReference<>();
+    AiStreamRelay.Channel channel =
+        relay.open(
+            emitter,
+            () -> {
+              CompletableFuture<AiService.AiResult> current = running.get();
+              if (current != null) {
+                current.cancel(false);
+              }
+            });
+    CompletableFuture<AiService.AiResult> future = call.apply(delta -> channel.send("delta", Map.of("text", delta)));
+    running.set(future);
+    if (channel.isClosed()) {
+      future.cancel(false);
+    }
+    future.whenComplete(
+        (result, ex) -> {
+          if (channel.isClosed()) {
+            return;
+          }
+          try {
+            if (ex == null) {
+              channel.send("done", Map.of("status", result.status(), "latencyMs", result.latencyMs()));
+            } else {
+              Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+              ErrorCode code =
+                  cause instanceof ApiException apiException ? apiException.getCode() : ErrorCode.INTERNAL_ERROR;
+              channel.send("error", Map.of("code", code.name(), "message", String.valueOf(cause.getMessage())));
+            }
+            channel.complete();
+          } catch (IllegalStateException clientGone) {
+            // Nothing left to tell the client.
+          }
+        });
+    return emitter;
+  }
+
+  private static AiResponse toResponse(AiService.AiResult result) {
     return new AiResponse(result.output(), result.status(), result.latencyMs());
   }
 
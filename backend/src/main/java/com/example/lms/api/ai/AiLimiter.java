@@ -0,0 +1,276 @@
+package com.example.lms.api.ai;
+
+import com.example.lms.api.concurrent.DaemonThreads;
+import com.example.lms.api.error.ApiException;
+import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Bulkhead in front of OpenAI. Each user has a token bucket checked per request (lock-free, one CAS
+// per take); upstream calls additionally need one of max-concurrent permits. Calls over the cap
+// wait FIFO in a bounded queue without holding a thread, and are rejected with 429 when the queue
+// is full or the wait exceeds queue-timeout-ms. Cancelling a queued call gives up its place.
+@Component
+public class AiLimiter implements MetricsSource {
+  private final int maxConcurrent;
+  private final int queueCapacity;
+  private final long queueTimeoutMs;
+  private final double userBurst;
+  private final double userTokensPerNano;
+  private final ScheduledThreadPoolExecutor timer;
+  private final ConcurrentHashMap<Long, TokenBucket> buckets = new ConcurrentHashMap<>();
+  // Guards active and queue; every critical section is a few field updates.
+  private final Object lock = new Object();
+  private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+  private int active;
+
+  private final AtomicLong granted = new AtomicLong();
+  private final AtomicLong queued = new AtomicLong();
+  private final AtomicLong waitNanos = new AtomicLong();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+  private final AtomicLong rateLimited = new AtomicLong();
+  private final AtomicLong queueFull = new AtomicLong();
+  private final AtomicLong queueTimeouts = new AtomicLong();
+  private final AtomicLong queueCancels = new AtomicLong();
+
+  public AiLimiter(
+      @Value("${lms.ai.limits.max-concurrent:16}") int maxConcurrent,
+      @Value("${lms.ai.limits.queue-capacity:200}") int queueCapacity,
+      @Value("${lms.ai.limits.queue-timeout-ms:10000}") long queueTimeoutMs,
+      @Value("${lms.ai.limits.user-burst:10}") int userBurst,
+      @Value("${lms.ai.limits.user-per-minute:20}") int userPerMinute) {
+    this.maxConcurrent = Math.max(1, maxConcurrent);
+    this.queueCapacity = Math.max(0, queueCapacity);
+    this.queueTimeoutMs = Math.max(1, queueTimeoutMs);
+    this.userBurst = Math.max(1, userBurst);
+    this.userTokensPerNano = Math.max(1, userPerMinute) / (double) TimeUnit.MINUTES.toNanos(1);
+    this.timer = DaemonThreads.scheduler("ai-limiter");
+    // Queue timeouts are cancelled when the waiter is served; drop them from the timer right away.
+    this.timer.setRemoveOnCancelPolicy(true);
+  }
+
+  @PostConstruct
+  public void start() {
+    timer.scheduleWithFixedDelay(this::dropIdleBuckets, 1, 1, TimeUnit.MINUTES);
+  }
+
+  public void checkRate(long userId) {
+    TokenBucket bucket =
+        buckets.computeIfAbsent(userId, key -> new TokenBucket(userBurst, System.nanoTime()));
+    if (!bucket.tryTake(System.nanoTime())) {
+      rateLimited.incrementAndGet();
+      throw new ApiException(ErrorCode.TOO_MANY_REQUESTS, "Too many AI requests; try again shortly");
+    }
+  }
+
+  // Runs call once a permit is free and returns the permit when its future completes. Cancelling
+  // the returned future before call has started leaves the queue, or hands back a permit that was
+  // granted in the meantime; once call is running it keeps the permit until it completes.
+  public <T> CompletableFuture<T> withPermit(Supplier<CompletableFuture<T>> call) {
+    CompletableFuture<Void> permit = acquire();
+    AtomicBoolean claimed = new AtomicBoolean();
+    CompletableFuture<T> result =
+        permit.thenCompose(
+            ignored -> {
+              if (!claimed.compareAndSet(false, true)) {
+                return CompletableFuture.failedFuture(new CancellationException());
+              }
+              CompletableFuture<T> running;
+              try {
+                running = call.get();
+              } catch (RuntimeException ex) {
+                release();
+                throw ex;
+              }
+              return running.whenComplete((value, ex) -> release());
+            });
+    result.whenComplete(
+        (value, ex) -> {
+          if (result.isCancelled()
+              && !permit.cancel(false)
+              && !permit.isCompletedExceptionally()
+              && claimed.compareAndSet(false, true)) {
+            release();
+          }
+        });
+    return result;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    timer.shutdownNow();
+  }
+
+  @Override
+  public String metricsName() {
+    return "aiLimiter";
+  }
+
+  @Override
+  public Map<String, Object> metricsSnapshot() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    synchronized (lock) {
+      stats.put("active", active);
+      stats.put("queueDepth", queue.size());
+    }
+    stats.put("maxConcurrent", maxConcurrent);
+    stats.put("granted", granted.get());
+    stats.put("queued", queued.get());
+    long waited = queued.get();
+    stats.put("avgWaitMs", waited == 0 ? 0 : waitNanos.get() / waited / 1_000_000);
+    stats.put("maxWaitMs", maxWaitNanos.get() / 1_000_000);
+    stats.put("rateLimited", rateLimited.get());
+    stats.put("queueFull", queueFull.get());
+    stats.put("queueTimeouts", queueTimeouts.get());
+    stats.put("queueCancels", queueCancels.get());
+    stats.put("users", buckets.size());
+    return stats;
+  }
+
+  private CompletableFuture<Void> acquire() {
+    Waiter waiter;
+    synchronized (lock) {
+      if (active < maxConcurrent && queue.isEmpty()) {
+        active++;
+        granted.incrementAndGet();
+        return CompletableFuture.completedFuture(null);
+      }
+      if (queue.size() >= queueCapacity) {
+        queueFull.incrementAndGet();
+        return CompletableFuture.failedFuture(
+            new ApiException(ErrorCode.TOO_MANY_REQUESTS, "AI service is busy; try again shortly"));
+      }
+      waiter = new Waiter(System.nanoTime());
+      queue.addLast(waiter);
+    }
+    queued.incrementAndGet();
+    waiter.timeout = timer.schedule(() -> expire(waiter), queueTimeoutMs, TimeUnit.MILLISECONDS);
+    waiter.permit.whenComplete(
+        (ignored, ex) -> {
+          if (ex instanceof CancellationException) {
+            leave(waiter);
+          }
+        });
+    return waiter.permit;
+  }
+
+  // A permit passes straight to the oldest live waiter, so active only drops when nobody is queued.
+  // A waiter cancelled just before it was polled refuses the permit and the next one gets it.
+  private void release() {
+    while (true) {
+      Waiter next;
+      synchronized (lock) {
+        next = queue.pollFirst();
+        if (next == null) {
+          active--;
+          return;
+        }
+      }
+      if (next.permit.complete(null)) {
+        next.cancelTimeout();
+        recordWait(next);
+        granted.incrementAndGet();
+        return;
+      }
+    }
+  }
+
+  private void expire(Waiter waiter) {
+    synchronized (lock) {
+      if (!queue.remove(waiter)) {
+        return;
+      }
+    }
+    queueTimeouts.incrementAndGet();
+    recordWait(waiter);
+    waiter.permit.completeExceptionally(
+        new ApiException(ErrorCode.TOO_MANY_REQUESTS, "AI service is busy; try again shortly"));
+  }
+
+  private void leave(Waiter waiter) {
+    waiter.cancelTimeout();
+    synchronized (lock) {
+      if (!queue.remove(waiter)) {
+        return;
+      }
+    }
+    queueCancels.incrementAndGet();
+  }
+
+  private void recordWait(Waiter waiter) {
+    long waited = System.nanoTime() - waiter.enqueuedAt;
+    waitNanos.addAndGet(waited);
+    maxWaitNanos.accumulateAndGet(waited, Math::max);
+  }
+
+  // A bucket that has refilled completely carries no state worth keeping. Racing a concurrent take
+  // at worst hands that user one extra token.
+  private void dropIdleBuckets() {
+    long now = System.nanoTime();
+    buckets.values().removeIf(bucket -> bucket.isFull(now));
+  }
+
+  private static final class Waiter {
+    private final CompletableFuture<Void> permit = new CompletableFuture<>();
+    private final long enqueuedAt;
+    private volatile ScheduledFuture<?> timeout;
+
+    Waiter(long enqueuedAt) {
+      this.enqueuedAt = enqueuedAt;
+    }
+
+    void cancelTimeout() {
+      ScheduledFuture<?> scheduled = timeout;
+      if (scheduled != null) {
+        scheduled.cancel(false);
+      }
+    }
+  }
+
+  private final class TokenBucket {
+    private final AtomicReference<BucketState> state;
+
+    TokenBucket(double tokens, long now) {
+      this.state = new AtomicReference<>(new BucketState(tokens, now));
+    }
+
+    boolean tryTake(long now) {
+      while (true) {
+        BucketState current = state.get();
+        double tokens = refilled(current, now);
+        if (tokens < 1) {
+          return false;
+        }
+        if (state.compareAndSet(current, new BucketState(tokens - 1, now))) {
+          return true;
+        }
+      }
+    }
+
+    boolean isFull(long now) {
+      return refilled(state.get(), now) >= userBurst;
+    }
+
+    private double refilled(BucketState current, long now) {
+      return Math.min(userBurst, current.tokens() + (now - current.updatedAt()) * userTokensPerNano);
+    }
+  }
+
+  private record BucketState(double tokens, long updatedAt) {}
+}
@@ -1,9 +1,12 @@
 package com.example.lms.api.ai;
 
 import com.example.lms.api.ai.AiDtos.AiRequestLogResponse;
+import com.example.lms.api.ai.AiResponseCache.AiCacheKey;
 import java.sql.ResultSet;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
@@ -34,6 +37,46 @@ public class AiRepository {
         status);
   }
 
+  public Optional<String> findCachedOutput(AiCacheKey key, Timestamp createdAfter) {
+    return jdbcTemplate
+        .queryForList(
+            """
+            SELECT OUTPUT_TEXT
+            FROM AI_RESPONSE_CACHE
+            WHERE INPUT_HASH = ? AND REQUEST_TYPE = ? AND MODEL_NAME = ? AND CREATED_AT >= ?
+            """,
+            String.class,
+            key.inputHash(),
+            key.requestType(),
+            key.modelName(),
+            createdAfter)
+        .stream()
+        .findFirst();
+  }
+
+  public void upsertCachedOutput(AiCacheKey key, String outputText) {
+    jdbcTemplate.update(
+        """
+        MERGE INTO AI_RESPONSE_CACHE c
+        USING (SELECT ? AS INPUT_HASH, ? AS REQUEST_TYPE, ? AS MODEL_NAME FROM DUAL) s
+        ON (c.INPUT_HASH = s.INPUT_HASH AND c.REQUEST_TYPE = s.REQUEST_TYPE AND c.MODEL_NAME = s.MODEL_NAME)
+        WHEN MATCHED THEN
+          UPDATE SET c.OUTPUT_TEXT = ?, c.CREATED_AT = SYSTIMESTAMP
+        WHEN NOT MATCHED THEN
+          INSERT (INPUT_HASH, REQUEST_TYPE, MODEL_NAME, OUTPUT_TEXT, CREATED_AT)
+          VALUES (s.INPUT_HASH, s.REQUEST_TYPE, s.MODEL_NAME, ?, SYSTIMESTAMP)
+        """,
+        key.inputHash(),
+        key.requestType(),
+        key.modelName(),
+        outputText,
+        outputText);
+  }
+
+  public int deleteCachedOutputsBefore(Timestamp cutoff) {
+    return jdbcTemplate.update("DELETE FROM AI_RESPONSE_CACHE WHERE CREATED_AT < ?", cutoff);
+  }
+
   public List<AiRequestLogResponse> findRequests(Long userId) {
     String sql =
         """
@@ -0,0 +1,155 @@
+package com.example.lms.api.ai;
+
+import com.example.lms.api.cache.BoundedTtlCache;
+import com.example.lms.api.concurrent.DaemonThreads;
+import com.example.lms.api.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+// Generated outputs keyed by (request type, model, SHA-256 of the normalized input). An in-process
+// LRU sits in front of AI_RESPONSE_CACHE, which is shared by all instances and survives restarts.
+// Table errors only cost the cache; they never fail the AI call.
+@Component
+public class AiResponseCache implements MetricsSource {
+  private static final Logger log = LoggerFactory.getLogger(AiResponseCache.class);
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private final AiRepository repository;
+  private final boolean enabled;
+  private final Duration persistentTtl;
+  private final BoundedTtlCache<AiCacheKey, String> memory;
+  private final ScheduledExecutorService purger;
+
+  private final AtomicLong persistentHits = new AtomicLong();
+  private final AtomicLong persistentMisses = new AtomicLong();
+  private final AtomicLong stores = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong purged = new AtomicLong();
+
+  public AiResponseCache(
+      AiRepository repository,
+      @Value("${lms.ai.cache.enabled:true}") boolean enabled,
+      @Value("${lms.ai.cache.max-size:1000}") int maxSize,
+      @Value("${lms.ai.cache.ttl-minutes:1440}") long ttlMinutes,
+      @Value("${lms.ai.cache.persistent-ttl-days:30}") long persistentTtlDays) {
+    this.repository = repository;
+    this.enabled = enabled;
+    this.persistentTtl = Duration.ofDays(persistentTtlDays);
+    this.memory = new BoundedTtlCache<>(maxSize, Duration.ofMinutes(ttlMinutes));
+    this.purger = DaemonThreads.scheduler("ai-cache-purge");
+  }
+
+  @PostConstruct
+  public void start() {
+    if (enabled) {
+      purger.scheduleWithFixedDelay(this::purgeQuietly, 1, 60, TimeUnit.MINUTES);
+    }
+  }
+
+  // Case is kept (it can matter to the model); whitespace runs and Unicode forms are folded so a
+  // re-pasted lesson maps to the same key.
+  public static AiCacheKey key(String requestType, String modelName, String inputText) {
+    String normalized =
+        WHITESPACE.matcher(Normalizer.normalize(inputText, Normalizer.Form.NFC)).replaceAll(" ").strip();
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+      return new AiCacheKey(requestType, modelName, HexFormat.of().formatHex(digest));
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+  }
+
+  public Optional<String> find(AiCacheKey key) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+    String cached = memory.get(key);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    try {
+      Optional<String> stored =
+          repository.findCachedOutput(key, Timestamp.from(Instant.now().minus(persistentTtl)));
+      if (stored.isPresent()) {
+        persistentHits.incrementAndGet();
+        memory.put(key, stored.get());
+      } else {
+        persistentMisses.incrementAndGet();
+      }
+      return stored;
+    } catch (DataAccessException ex) {
+      failures.incrementAndGet();
+      log.warn("AI response cache lookup failed", ex);
+      return Optional.empty();
+    }
+  }
+
+  public void put(AiCacheKey key, String output) {
+    if (!enabled) {
+      return;
+    }
+    memory.put(key, output);
+    try {
+      repository.upsertCachedOutput(key, output);
+      stores.incrementAndGet();
+    } catch (DataAccessException ex) {
+      failures.incrementAndGet();
+      log.warn("AI response cache store failed", ex);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    purger.shutdownNow();
+  }
+
+  @Override
+  public String metricsName() {
+    return "aiResponseCache";
+  }
+
+  @Override
+  public Map<String, Object> metricsSnapshot() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("enabled", enabled);
+    stats.put("memory", memory.stats());
+    stats.put("persistentHits", persistentHits.get());
+    stats.put("persistentMisses", persistentMisses.get());
+    stats.put("stores", stores.get());
+    stats.put("failures", failures.get());
+    stats.put("purged", purged.get());
+    return stats;
+  }
+
+  private void purgeQuietly() {
+    try {
+      purged.addAndGet(
+          repository.deleteCachedOutputsBefore(Timestamp.from(Instant.now().minus(persistentTtl))));
+    } catch (RuntimeException ex) {
+      log.warn("AI response cache purge failed", ex);
+    }
+  }
+
+  public record AiCacheKey(String requestType, String modelName, String inputHash) {}
+}
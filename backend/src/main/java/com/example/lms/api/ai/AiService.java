@@ -1,9 +1,12 @@
 package com.example.lms.api.ai;
 
+import com.example.lms.api.concurrent.DaemonThreads;
 import com.example.lms.api.error.ApiException;
 import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.metrics.MetricsSource;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -13,32 +16,115 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+// Calls are fully asynchronous: the servlet thread returns as soon as the future is built, OpenAI is
+// called with sendAsync, and JDBC work (cache lookups/stores, AI_REQUESTS logging) runs on a small
+// bounded pool. A waiting call holds no thread.
 @Service
-public class AiService {
+public class AiService implements MetricsSource {
+  private static final Logger log = LoggerFactory.getLogger(AiService.class);
   private static final String MODEL_NAME = "gpt-4o-mini";
-  private static final URI OPENAI_URI = URI.create("https://api.openai.com/v1/responses");
+  private static final Duration STREAM_TIMEOUT = Duration.ofSeconds(120);
 
+  private final URI endpoint;
+  private final String configuredApiKey;
   private final AiRepository repository;
+  private final AiResponseCache cache;
+  private final AiLimiter limiter;
   private final ObjectMapper mapper;
+  private final long requestTimeoutMs;
+  private final ExecutorService httpExecutor;
+  private final ThreadPoolExecutor io;
   private final HttpClient httpClient;
+  private final ConcurrentHashMap<AiResponseCache.AiCacheKey, Flight> flights = new ConcurrentHashMap<>();
 
-  public AiService(AiRepository repository, ObjectMapper mapper) {
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong calls = new AtomicLong();
+  private final AtomicLong cachedCalls = new AtomicLong();
+  private final AtomicLong coalescedCalls = new AtomicLong();
+  private final AtomicLong failedCalls = new AtomicLong();
+  private final AtomicLong droppedWrites = new AtomicLong();
+
+  public AiService(
+      AiRepository repository,
+      AiResponseCache cache,
+      AiLimiter limiter,
+      ObjectMapper mapper,
+      @Value("${lms.ai.endpoint:https://api.openai.com/v1/responses}") String endpoint,
+      @Value("${lms.ai.api-key:}") String apiKey,
+      @Value("${lms.ai.http-threads:2}") int httpThreads,
+      @Value("${lms.ai.io-threads:4}") int ioThreads,
+      @Value("${lms.ai.io-queue-capacity:1000}") int ioQueueCapacity,
+      @Value("${lms.ai.request-timeout-ms:60000}") long requestTimeoutMs) {
+    this.endpoint = URI.create(endpoint);
+    this.configuredApiKey = apiKey;
     this.repository = repository;
+    this.cache = cache;
+    this.limiter = limiter;
     this.mapper = mapper;
-    this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    this.requestTimeoutMs = Math.max(1, requestTimeoutMs);
+    this.httpExecutor = DaemonThreads.fixedPool("ai-http", httpThreads);
+    this.io = DaemonThreads.fixedPool("ai-io", ioThreads, ioQueueCapacity);
+    this.httpClient =
+        HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(httpExecutor)
+            .build();
+  }
+
+  public CompletableFuture<AiResult> generateSummary(long userId, String inputText) {
+    return bounded(generate(userId, "summary", inputText, summaryPrompt(inputText), null));
+  }
+
+  public CompletableFuture<AiResult> generateQuiz(long userId, String inputText) {
+    return bounded(generate(userId, "quiz", inputText, quizPrompt(inputText), null));
+  }
+
+  public long requestTimeoutMs() {
+    return requestTimeoutMs;
+  }
+
+  // Streaming variants: onDelta receives text as OpenAI produces it (a cache hit arrives as one
+  // delta); the future completes with the assembled output once the stream ends. Cancelling the
+  // returned future means the client is gone: the upstream stream is cancelled unless coalesced
+  // followers still wait for it.
+  public CompletableFuture<AiResult> streamSummary(
+      long userId, String inputText, Consumer<String> onDelta) {
+    return generate(userId, "summary", inputText, summaryPrompt(inputText), onDelta);
+  }
+
+  public CompletableFuture<AiResult> streamQuiz(long userId, String inputText, Consumer<String> onDelta) {
+    return generate(userId, "quiz", inputText, quizPrompt(inputText), onDelta);
   }
 
-  public AiResult generateSummary(long userId, String inputText) {
-    String prompt = "Summarize the following text in 5 bullet points:\n\n" + inputText;
-    return callOpenAi(userId, "summary", prompt);
+  private static String summaryPrompt(String inputText) {
+    return "Summarize the following text in 5 bullet points:\n\n" + inputText;
   }
 
-  public AiResult generateQuiz(long userId, String inputText) {
-    String prompt =
-        "You are a quiz generator. Use ONLY the provided text.\n"
+  private static String quizPrompt(String inputText) {
+    return "You are a quiz generator. Use ONLY the provided text.\n"
             + "Return JSON only (no markdown, no extra text) with this schema:\n"
             + "{\n"
             + "  \"questions\": [\n"
@@ -62,10 +148,239 @@ public class AiService {
             + "- Provide a brief explanation for every question.\n\n"
             + "Text:\n"
             + inputText;
-    return callOpenAi(userId, "quiz", prompt);
   }
 
-  private AiResult callOpenAi(long userId, String requestType, String prompt) {
+  // A cache hit skips OpenAI but is still logged, as CACHED, so AI_REQUESTS keeps every request.
+  // Identical requests (same cache key) arriving while one is in flight share its result instead of
+  // calling OpenAI again; each follower is logged as COALESCED with its own wait time. A streaming
+  // follower receives the output as one delta when the shared call finishes.
+  private CompletableFuture<AiResult> generate(
+      long userId, String requestType, String inputText, String prompt, Consumer<String> onDelta) {
+    limiter.checkRate(userId);
+    long start = System.nanoTime();
+    AiResponseCache.AiCacheKey key = AiResponseCache.key(requestType, MODEL_NAME, inputText);
+    calls.incrementAndGet();
+    inFlight.incrementAndGet();
+    Flight mine = new Flight();
+    Flight existing = flights.putIfAbsent(key, mine);
+    CompletableFuture<AiResult> call =
+        existing != null
+            ? follow(existing, userId, requestType, prompt, onDelta, start)
+            : lead(mine, key, userId, requestType, prompt, onDelta, start);
+    CompletableFuture<AiResult> tracked =
+        call.whenComplete(
+            (result, ex) -> {
+              inFlight.decrementAndGet();
+              if (ex != null) {
+                failedCalls.incrementAndGet();
+              }
+            });
+    if (existing == null) {
+      tracked.whenComplete(
+          (result, ex) -> {
+            if (ex instanceof CancellationException) {
+              mine.markLeaderGone();
+            }
+          });
+    }
+    return tracked;
+  }
+
+  private CompletableFuture<AiResult> lead(
+      Flight flight,
+      AiResponseCache.AiCacheKey key,
+      long userId,
+      String requestType,
+      String prompt,
+      Consumer<String> onDelta,
+      long start) {
+    CompletableFuture<AiResult> call =
+        supplyIo(() -> cache.find(key))
+            .thenCompose(
+                cached -> {
+                  if (cached.isPresent()) {
+                    long latencyMs = (System.nanoTime() - start) / 1_000_000;
+                    cachedCalls.incrementAndGet();
+                    if (onDelta != null) {
+                      onDelta.accept(cached.get());
+                    }
+                    logRequest(userId, requestType, prompt, cached.get(), latencyMs, "CACHED");
+                    return CompletableFuture.completedFuture(new AiResult(cached.get(), "CACHED", latencyMs));
+                  }
+                  CompletableFuture<AiResult> upstream =
+                      limiter.withPermit(
+                          () ->
+                              onDelta == null
+                                  ? callOpenAi(userId, requestType, prompt)
+                                  : streamOpenAi(
+                                      userId, requestType, prompt, flight, forwardWhileNeeded(flight, onDelta)));
+                  flight.limited().set(upstream);
+                  if (flight.leaderGone().get()) {
+                    flight.markLeaderGone();
+                  }
+                  return upstream.thenApply(
+                      result -> {
+                        runIo(() -> cache.put(key, result.output()));
+                        return result;
+                      });
+                });
+    call.whenComplete(
+        (result, ex) -> {
+          flights.remove(key, flight);
+          if (ex != null) {
+            flight.result().completeExceptionally(
+                ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+          } else {
+            flight.result().complete(result);
+          }
+        });
+    return call;
+  }
+
+  private CompletableFuture<AiResult> follow(
+      Flight flight, long userId, String requestType, String prompt, Consumer<String> onDelta, long start) {
+    flight.followers().incrementAndGet();
+    coalescedCalls.incrementAndGet();
+    return flight
+        .result()
+        .thenApply(
+            shared -> {
+              long latencyMs = (System.nanoTime() - start) / 1_000_000;
+              if (onDelta != null) {
+                onDelta.accept(shared.output());
+              }
+              logRequest(userId, requestType, prompt, shared.output(), latencyMs, "COALESCED");
+              return new AiResult(shared.output(), "COALESCED", latencyMs);
+            });
+  }
+
+  // Bounds the whole call: limiter queue wait, cache lookup, response headers and body. The copy
+  // times out on its own, so a shared call keeps running for followers that are still waiting; a
+  // leader nobody else waits for gives up its limiter queue slot.
+  private CompletableFuture<AiResult> bounded(CompletableFuture<AiResult> call) {
+    return call.copy()
+        .orTimeout(requestTimeoutMs, TimeUnit.MILLISECONDS)
+        .exceptionally(
+            ex -> {
+              Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+              if (cause instanceof TimeoutException) {
+                call.cancel(false);
+                throw new ApiException(
+                    ErrorCode.EXTERNAL_API_ERROR, "OpenAI request timed out after " + requestTimeoutMs + " ms");
+              }
+              throw ex instanceof CompletionException completion ? completion : new CompletionException(cause);
+            });
+  }
+
+  // If the leading client disconnects, the stream is only cancelled when nobody else is waiting
+  // for it; otherwise it runs to completion for the followers.
+  private static Consumer<String> forwardWhileNeeded(Flight flight, Consumer<String> onDelta) {
+    return delta -> {
+      if (flight.leaderGone().get()) {
+        if (flight.followers().get() == 0) {
+          throw new IllegalStateException("Client disconnected");
+        }
+        return;
+      }
+      try {
+        onDelta.accept(delta);
+      } catch (RuntimeException ex) {
+        flight.leaderGone().set(true);
+        if (flight.followers().get() == 0) {
+          throw ex;
+        }
+      }
+    };
+  }
+
+  // Runs on an ai-io thread after the cache lookup, so reading the key files never blocks a
+  // servlet thread.
+  private CompletableFuture<AiResult> callOpenAi(long userId, String requestType, String prompt) {
+    HttpRequest request = buildRequest(prompt, false);
+    long start = System.nanoTime();
+    return httpClient
+        .sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        .handle(
+            (response, ex) -> {
+              long latencyMs = (System.nanoTime() - start) / 1_000_000;
+              int statusCode = 500;
+              String responseBody;
+              String status;
+              if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                responseBody = cause.getMessage();
+                status = "ERROR";
+              } else {
+                statusCode = response.statusCode();
+                responseBody = response.body();
+                status = statusCode >= 200 && statusCode < 300 ? "OK" : "ERROR";
+              }
+
+              logRequest(userId, requestType, prompt, responseBody, latencyMs, status);
+
+              if (!"OK".equals(status)) {
+                throw new ApiException(ErrorCode.EXTERNAL_API_ERROR, "OpenAI request failed: " + statusCode);
+              }
+              return new AiResult(extractOutputText(responseBody), status, latencyMs);
+            });
+  }
+
+  // The request timeout only covers the response headers, so the whole stream gets its own bound.
+  private CompletableFuture<AiResult> streamOpenAi(
+      long userId, String requestType, String prompt, Flight flight, Consumer<String> onDelta) {
+    HttpRequest request = buildRequest(prompt, true);
+    OpenAiStreamSubscriber subscriber = new OpenAiStreamSubscriber(mapper, onDelta);
+    flight.upstream().set(subscriber);
+    if (flight.leaderGone().get()) {
+      flight.markLeaderGone();
+    }
+    long start = System.nanoTime();
+    httpClient
+        .sendAsync(
+            request,
+            info -> {
+              subscriber.statusCode(info.statusCode());
+              return HttpResponse.BodyHandlers.fromLineSubscriber(subscriber).apply(info);
+            })
+        .whenComplete(
+            (response, ex) -> {
+              if (ex != null) {
+                subscriber.fail(ex);
+              }
+            });
+    return subscriber
+        .result()
+        .orTimeout(STREAM_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+        .handle(
+            (output, ex) -> {
+              long latencyMs = (System.nanoTime() - start) / 1_000_000;
+              if (ex != null) {
+                subscriber.cancel();
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                String partial = subscriber.output();
+                logRequest(
+                    userId,
+                    requestType,
+                    prompt,
+                    partial.isEmpty() ? String.valueOf(cause.getMessage()) : partial,
+                    latencyMs,
+                    "ERROR");
+                throw new ApiException(ErrorCode.EXTERNAL_API_ERROR, "OpenAI stream failed: " + cause.getMessage());
+              }
+              if (!subscriber.isOk()) {
+                logRequest(userId, requestType, prompt, subscriber.errorBody(), latencyMs, "ERROR");
+                throw new ApiException(
+                    ErrorCode.EXTERNAL_API_ERROR,
+                    subscriber.failure() != null
+                        ? "OpenAI stream failed: " + subscriber.failure()
+                        : "OpenAI request failed: " + subscriber.statusCode());
+              }
+              logRequest(userId, requestType, prompt, output, latencyMs, "OK");
+              return new AiResult(output, "OK", latencyMs);
+            });
+  }
+
+  private HttpRequest buildRequest(String prompt, boolean stream) {
     String apiKey = resolveApiKey();
     if (apiKey == null || apiKey.isBlank()) {
       throw new ApiException(ErrorCode.EXTERNAL_API_ERROR, "OPENAI_API_KEY is not set");
@@ -76,44 +391,86 @@ public class AiService {
             + MODEL_NAME
             + "\",\"input\":"
             + mapper.valueToTree(prompt).toString()
+            + (stream ? ",\"stream\":true" : "")
             + "}";
 
-    HttpRequest request =
-        HttpRequest.newBuilder()
-            .uri(OPENAI_URI)
-            .timeout(Duration.ofSeconds(30))
-            .header("Authorization", "Bearer " + apiKey)
-            .header("Content-Type", "application/json")
-            .POST(HttpRequest.BodyPublishers.ofString(payload, StandardCharsets.UTF_8))
-            .build();
+    return HttpRequest.newBuilder()
+        .uri(endpoint)
+        .timeout(Duration.ofSeconds(30))
+        .header("Authorization", "Bearer " + apiKey)
+        .header("Content-Type", "application/json")
+        .header("Accept", stream ? "text/event-stream" : "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(payload, StandardCharsets.UTF_8))
+        .build();
+  }
 
-    long start = System.nanoTime();
-    String responseBody = "";
-    String status = "ERROR";
-    int statusCode = 500;
+  @PreDestroy
+  public void shutdown() {
+    // Let queued AI_REQUESTS inserts finish; the HTTP pool only runs completion callbacks.
+    io.shutdown();
     try {
-      HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-      statusCode = response.statusCode();
-      responseBody = response.body();
-      status = statusCode >= 200 && statusCode < 300 ? "OK" : "ERROR";
-    } catch (IOException | InterruptedException ex) {
+      io.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
       Thread.currentThread().interrupt();
-      responseBody = ex.getMessage();
-      status = "ERROR";
     }
-    long latencyMs = (System.nanoTime() - start) / 1_000_000;
+    httpExecutor.shutdownNow();
+  }
 
-    repository.insert(userId, MODEL_NAME, requestType + ":" + prompt, responseBody, latencyMs, status);
+  @Override
+  public String metricsName() {
+    return "aiService";
+  }
 
-    if (!"OK".equals(status)) {
-      throw new ApiException(ErrorCode.EXTERNAL_API_ERROR, "OpenAI request failed: " + statusCode);
+  @Override
+  public Map<String, Object> metricsSnapshot() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("inFlight", inFlight.get());
+    stats.put("calls", calls.get());
+    stats.put("cached", cachedCalls.get());
+    stats.put("coalesced", coalescedCalls.get());
+    stats.put("sharedCallsInFlight", flights.size());
+    stats.put("failed", failedCalls.get());
+    stats.put("ioQueued", io.getQueue().size());
+    stats.put("droppedWrites", droppedWrites.get());
+    return stats;
+  }
+
+  private <T> CompletableFuture<T> supplyIo(Supplier<T> supplier) {
+    try {
+      return CompletableFuture.supplyAsync(supplier, io);
+    } catch (RejectedExecutionException ex) {
+      return CompletableFuture.failedFuture(
+          new ApiException(ErrorCode.TOO_MANY_REQUESTS, "AI service is busy; try again shortly"));
     }
+  }
 
-    String outputText = extractOutputText(responseBody);
-    return new AiResult(outputText, status, latencyMs);
+  // Fire-and-forget writes; when the io queue is full they are dropped rather than delaying the
+  // response.
+  private void runIo(Runnable task) {
+    try {
+      io.execute(task);
+    } catch (RejectedExecutionException ex) {
+      droppedWrites.incrementAndGet();
+      log.warn("AI io queue is full; dropped a log/cache write");
+    }
+  }
+
+  private void logRequest(
+      long userId, String requestType, String prompt, String responseText, long latencyMs, String status) {
+    runIo(
+        () -> {
+          try {
+            repository.insert(userId, MODEL_NAME, requestType + ":" + prompt, responseText, latencyMs, status);
+          } catch (RuntimeException ex) {
+            log.warn("Could not log AI request", ex);
+          }
+        });
   }
 
   private String resolveApiKey() {
+    if (configuredApiKey != null && !configuredApiKey.isBlank()) {
+      return configuredApiKey;
+    }
     String apiKey = System.getenv("OPENAI_API_KEY");
     if (apiKey != null && !apiKey.isBlank()) {
       return apiKey;
@@ -191,4 +548,36 @@ public class AiService {
   }
 
   public record AiResult(String output, String status, long latencyMs) {}
+
+  private record Flight(
+      CompletableFuture<AiResult> result,
+      AtomicInteger followers,
+      AtomicBoolean leaderGone,
+      AtomicReference<OpenAiStreamSubscriber> upstream,
+      AtomicReference<CompletableFuture<AiResult>> limited) {
+    Flight() {
+      this(
+          new CompletableFuture<>(),
+          new AtomicInteger(),
+          new AtomicBoolean(),
+          new AtomicReference<>(),
+          new AtomicReference<>());
+    }
+
+    // Cancelling the limited call only matters while it is still queued for a permit.
+    void markLeaderGone() {
+      leaderGone.set(true);
+      if (followers.get() != 0) {
+        return;
+      }
+      CompletableFuture<AiResult> call = limited.get();
+      if (call != null) {
+        call.cancel(false);
+      }
+      OpenAiStreamSubscriber subscriber = upstream.get();
+      if (subscriber != null) {
+        subscriber.fail(new CancellationException("Client disconnected"));
+      }
+    }
+  }
 }
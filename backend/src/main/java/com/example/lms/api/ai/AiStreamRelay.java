@@ -0,0 +1,168 @@
+package com.example.lms.api.ai;
+
+import com.example.lms.api.concurrent.DaemonThreads;
+import com.example.lms.api.metrics.MetricsSource;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// SseEmitter.send is a blocking servlet write, so it must not run on the HttpClient threads that
+// deliver OpenAI's stream: one slow browser would stall every other stream. Each emitter gets an
+// ordered queue that is drained on a shared pool. A client that falls more than max-queued-events
+// behind, times out or errors is treated as gone; further sends throw, and onGone runs once.
+@Component
+public class AiStreamRelay implements MetricsSource {
+  private final ExecutorService writers;
+  private final int maxQueuedEvents;
+
+  private final AtomicLong opened = new AtomicLong();
+  private final AtomicLong sent = new AtomicLong();
+  private final AtomicLong disconnected = new AtomicLong();
+  private final AtomicLong overflowed = new AtomicLong();
+
+  public AiStreamRelay(
+      @Value("${lms.ai.stream.writer-threads:4}") int writerThreads,
+      @Value("${lms.ai.stream.max-queued-events:1000}") int maxQueuedEvents) {
+    this.maxQueuedEvents = Math.max(1, maxQueuedEvents);
+    this.writers = DaemonThreads.fixedPool("ai-sse", writerThreads);
+  }
+
+  public Channel open(SseEmitter emitter, Runnable onGone) {
+    Channel channel = new Channel(emitter, onGone);
+    emitter.onTimeout(channel::gone);
+    emitter.onError(ex -> channel.gone());
+    emitter.onCompletion(channel::gone);
+    opened.incrementAndGet();
+    return channel;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    writers.shutdownNow();
+  }
+
+  @Override
+  public String metricsName() {
+    return "aiStreamRelay";
+  }
+
+  @Override
+  public Map<String, Object> metricsSnapshot() {
+    Map<String, Object> snapshot = new LinkedHashMap<>();
+    snapshot.put("opened", opened.get());
+    snapshot.put("sent", sent.get());
+    snapshot.put("disconnected", disconnected.get());
+    snapshot.put("overflowed", overflowed.get());
+    return snapshot;
+  }
+
+  private interface Write {
+    void run() throws IOException;
+  }
+
+  public final class Channel {
+    private final SseEmitter emitter;
+    private final Runnable onGone;
+    private final Queue<Write> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private Channel(SseEmitter emitter, Runnable onGone) {
+      this.emitter = emitter;
+      this.onGone = onGone;
+    }
+
+    public boolean isClosed() {
+      return closed.get();
+    }
+
+    // Throws IllegalStateException once the client is gone, so the producer can stop.
+    public void send(String name, Object data) {
+      if (closed.get()) {
+        throw new IllegalStateException("Client disconnected");
+      }
+      if (queued.incrementAndGet() > maxQueuedEvents) {
+        overflowed.incrementAndGet();
+        gone();
+        throw new IllegalStateException("Client is not reading the stream");
+      }
+      enqueue(
+          () -> {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            sent.incrementAndGet();
+          });
+    }
+
+    public void complete() {
+      queued.incrementAndGet();
+      enqueue(
+          () -> {
+            finished.set(true);
+            emitter.complete();
+          });
+    }
+
+    private void enqueue(Write write) {
+      pending.add(write);
+      if (draining.compareAndSet(false, true)) {
+        try {
+          writers.execute(this::drain);
+        } catch (RejectedExecutionException ex) {
+          draining.set(false);
+          gone();
+        }
+      }
+    }
+
+    private void drain() {
+      try {
+        Write write;
+        while ((write = pending.poll()) != null) {
+          queued.decrementAndGet();
+          if (closed.get()) {
+            continue;
+          }
+          try {
+            write.run();
+          } catch (IOException | RuntimeException ex) {
+            gone();
+            emitter.completeWithError(ex);
+          }
+        }
+      } finally {
+        draining.set(false);
+        if (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+          try {
+            writers.execute(this::drain);
+          } catch (RejectedExecutionException ex) {
+            draining.set(false);
+          }
+        }
+      }
+    }
+
+    private void gone() {
+      if (closed.compareAndSet(false, true)) {
+        pending.clear();
+        if (!finished.get()) {
+          disconnected.incrementAndGet();
+        }
+        onGone.run();
+      }
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package com.example.lms.api.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+// Reads a Responses API event stream line by line and forwards output_text deltas as they arrive.
+// Only the data lines matter: each one is a JSON event carrying its own "type". A non-2xx response
+// is not an event stream, so its lines are kept verbatim for the AI_REQUESTS log. The stream only
+// counts as OK once response.completed arrives; an incomplete response or an early end of stream
+// leaves partial output, which must not be logged as OK or cached.
+final class OpenAiStreamSubscriber implements Flow.Subscriber<String> {
+  private final ObjectMapper mapper;
+  private final Consumer<String> onDelta;
+  private final CompletableFuture<String> result = new CompletableFuture<>();
+  private final StringBuilder output = new StringBuilder();
+  private final StringBuilder errorBody = new StringBuilder();
+  private volatile int statusCode;
+  private volatile String failure;
+  private volatile boolean completed;
+  private volatile Flow.Subscription subscription;
+
+  OpenAiStreamSubscriber(ObjectMapper mapper, Consumer<String> onDelta) {
+    this.mapper = mapper;
+    this.onDelta = onDelta;
+  }
+
+  CompletableFuture<String> result() {
+    return result;
+  }
+
+  void statusCode(int statusCode) {
+    this.statusCode = statusCode;
+  }
+
+  int statusCode() {
+    return statusCode;
+  }
+
+  boolean isOk() {
+    return statusCode >= 200 && statusCode < 300 && failure == null;
+  }
+
+  synchronized String output() {
+    return output.toString();
+  }
+
+  String failure() {
+    return failure;
+  }
+
+  synchronized String errorBody() {
+    if (failure != null) {
+      return failure;
+    }
+    return errorBody.toString();
+  }
+
+  void fail(Throwable ex) {
+    cancel();
+    result.completeExceptionally(ex);
+  }
+
+  void cancel() {
+    Flow.Subscription current = subscription;
+    if (current != null) {
+      current.cancel();
+    }
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    this.subscription = subscription;
+    subscription.request(Long.MAX_VALUE);
+  }
+
+  @Override
+  public void onNext(String line) {
+    if (result.isDone()) {
+      return;
+    }
+    if (statusCode < 200 || statusCode >= 300) {
+      synchronized (this) {
+        errorBody.append(line).append('\n');
+      }
+      return;
+    }
+    if (!line.startsWith("data:")) {
+      return;
+    }
+    String data = line.substring(5).strip();
+    if (data.isEmpty() || "[DONE]".equals(data)) {
+      return;
+    }
+    try {
+      JsonNode event = mapper.readTree(data);
+      switch (event.path("type").asText()) {
+        case "response.output_text.delta" -> {
+          String delta = event.path("delta").asText();
+          if (!delta.isEmpty()) {
+            synchronized (this) {
+              output.append(delta);
+            }
+            onDelta.accept(delta);
+          }
+        }
+        case "response.completed" -> completed = true;
+        case "response.incomplete" -> {
+          String reason = event.path("response").path("incomplete_details").path("reason").asText("unknown");
+          failure = "Response incomplete: " + reason;
+        }
+        case "response.failed", "error" -> {
+          JsonNode error = event.has("error") ? event.path("error") : event.path("response").path("error");
+          failure = error.path("message").asText(data);
+        }
+        default -> {
+          // created, in_progress, output_item.*, content_part.*: nothing to forward.
+        }
+      }
+    } catch (Exception ex) {
+      // Covers both malformed events and a delta the client could not receive.
+      fail(ex);
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    result.completeExceptionally(throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    if (statusCode >= 200 && statusCode < 300 && failure == null && !completed) {
+      failure = "Stream ended before response.completed";
+    }
+    result.complete(output());
+  }
+}
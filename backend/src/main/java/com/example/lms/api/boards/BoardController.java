@@ -5,7 +5,12 @@ import com.example.lms.api.boards.BoardDtos.BoardResponse;
 import com.example.lms.api.boards.BoardDtos.BoardUpdateRequest;
 import com.example.lms.api.error.ApiException;
 import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.events.ContentChangedEvent;
+import java.time.Instant;
 import java.util.List;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,30 +19,58 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/boards")
 public class BoardController {
   private final BoardRepository repository;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public BoardController(BoardRepository repository) {
+  public BoardController(BoardRepository repository, ApplicationEventPublisher eventPublisher) {
     this.repository = repository;
+    this.eventPublisher = eventPublisher;
   }
 
+  // Boards are written on any instance, so the list version comes from one aggregate query instead
+  // of an in-memory counter. Deletes change the count, edits bump UPDATED_AT.
   @GetMapping
-  public List<BoardResponse> list() {
-    return repository.findAll().stream().map(this::toResponse).toList();
+  public ResponseEntity<List<BoardResponse>> list(WebRequest webRequest) {
+    BoardVersion version = repository.findVersion();
+    long lastModified = epochMillis(version.maxUpdatedAt());
+    String etag =
+        "\"b-n" + version.rowCount() + "-i" + version.maxId() + "-m" + lastModified + "\"";
+    if (webRequest.checkNotModified(etag, lastModified)) {
+      return null;
+    }
+    return ResponseEntity.ok()
+        .eTag(etag)
+        .lastModified(lastModified)
+        .cacheControl(CacheControl.noCache().cachePublic())
+        .body(repository.findAll().stream().map(this::toResponse).toList());
   }
 
   @GetMapping("/{id}")
-  public BoardResponse detail(@PathVariable("id") long id) {
-    return toResponse(repository.findById(id));
+  public ResponseEntity<BoardResponse> detail(@PathVariable("id") long id, WebRequest webRequest) {
+    long lastModified = epochMillis(repository.findUpdatedAt(id));
+    if (webRequest.checkNotModified(detailEtag(id, lastModified), lastModified)) {
+      return null;
+    }
+    // The row may have changed since the version lookup; validators describe the body we send.
+    BoardEntity board = repository.findById(id);
+    lastModified = epochMillis(board.updatedAt());
+    return ResponseEntity.ok()
+        .eTag(detailEtag(id, lastModified))
+        .lastModified(lastModified)
+        .cacheControl(CacheControl.noCache().cachePublic())
+        .body(toResponse(board));
   }
 
   @PostMapping
   public BoardResponse create(@RequestBody BoardCreateRequest request) {
     validateTitle(request.title());
     long id = repository.insert(request.title(), request.content());
+    eventPublisher.publishEvent(ContentChangedEvent.board(id));
     return toResponse(repository.findById(id));
   }
 
@@ -45,12 +78,14 @@ public class BoardController {
   public BoardResponse update(@PathVariable("id") long id, @RequestBody BoardUpdateRequest request) {
     validateTitle(request.title());
     repository.update(id, request.title(), request.content());
+    eventPublisher.publishEvent(ContentChangedEvent.board(id));
     return toResponse(repository.findById(id));
   }
 
   @DeleteMapping("/{id}")
   public void delete(@PathVariable("id") long id) {
     repository.delete(id);
+    eventPublisher.publishEvent(ContentChangedEvent.board(id));
   }
 
   private BoardResponse toResponse(BoardEntity entity) {
@@ -62,6 +97,14 @@ public class BoardController {
         entity.updatedAt() == null ? null : entity.updatedAt().toString());
   }
 
+  private String detailEtag(long id, long lastModified) {
+    return "\"b" + id + "-m" + lastModified + "\"";
+  }
+
+  private long epochMillis(Instant instant) {
+    return instant == null ? 0 : instant.toEpochMilli();
+  }
+
   private void validateTitle(String title) {
     if (title == null || title.isBlank()) {
       throw new ApiException(ErrorCode.VALIDATION_ERROR, "Title is required");
@@ -0,0 +1,5 @@
+package com.example.lms.api.boards;
+
+import java.time.Instant;
+
+record BoardEntity(long id, String title, String content, Instant createdAt, Instant updatedAt) {}
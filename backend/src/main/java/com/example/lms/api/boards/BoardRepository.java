@@ -32,6 +32,18 @@ public class BoardRepository {
         mapper());
   }
 
+  public BoardVersion findVersion() {
+    return jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) AS ROW_COUNT, MAX(ID) AS MAX_ID, MAX(UPDATED_AT) AS MAX_UPDATED_AT FROM BOARDS",
+        (rs, rowNum) ->
+            new BoardVersion(
+                rs.getLong("ROW_COUNT"),
+                rs.getLong("MAX_ID"),
+                rs.getTimestamp("MAX_UPDATED_AT") == null
+                    ? null
+                    : rs.getTimestamp("MAX_UPDATED_AT").toInstant()));
+  }
+
   public BoardEntity findById(long id) {
     List<BoardEntity> rows =
         jdbcTemplate.query(
@@ -44,6 +56,20 @@ public class BoardRepository {
     return rows.get(0);
   }
 
+  // Conditional GETs check this first so a 304 never reads the CONTENT column.
+  public Instant findUpdatedAt(long id) {
+    List<Instant> rows =
+        jdbcTemplate.query(
+            "SELECT UPDATED_AT FROM BOARDS WHERE ID = ?",
+            (rs, rowNum) ->
+                rs.getTimestamp("UPDATED_AT") == null ? null : rs.getTimestamp("UPDATED_AT").toInstant(),
+            id);
+    if (rows.isEmpty()) {
+      throw new ApiException(ErrorCode.NOT_FOUND, "Board not found");
+    }
+    return rows.get(0);
+  }
+
   public long insert(String title, String content) {
     Map<String, Object> params = new HashMap<>();
     params.put("TITLE", title);
@@ -83,5 +109,3 @@ public class BoardRepository {
             rs.getTimestamp("UPDATED_AT") == null ? null : rs.getTimestamp("UPDATED_AT").toInstant());
   }
 }
-
-record BoardEntity(long id, String title, String content, Instant createdAt, Instant updatedAt) {}
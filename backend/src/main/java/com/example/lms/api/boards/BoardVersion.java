@@ -0,0 +1,5 @@
+package com.example.lms.api.boards;
+
+import java.time.Instant;
+
+record BoardVersion(long rowCount, long maxId, Instant maxUpdatedAt) {}
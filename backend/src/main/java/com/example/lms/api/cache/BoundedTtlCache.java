@@ -0,0 +1,154 @@
+package com.example.lms.api.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Size-bounded LRU map whose entries also expire after a fixed TTL.
+public class BoundedTtlCache<K, V> {
+  private final int maxSize;
+  private final long ttlNanos;
+  private final LinkedHashMap<K, Entry<V>> entries;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong expirations = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+  private final AtomicLong discardedLoads = new AtomicLong();
+  // Bumped by every invalidation, under the entries lock.
+  private long generation;
+
+  public BoundedTtlCache(int maxSize, Duration ttl) {
+    this.maxSize = Math.max(1, maxSize);
+    this.ttlNanos = ttl.toNanos();
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            if (size() > BoundedTtlCache.this.maxSize) {
+              evictions.incrementAndGet();
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  public V get(K key) {
+    synchronized (entries) {
+      Entry<V> entry = entries.get(key);
+      if (entry == null) {
+        misses.incrementAndGet();
+        return null;
+      }
+      if (entry.isExpired(System.nanoTime())) {
+        entries.remove(key);
+        expirations.incrementAndGet();
+        misses.incrementAndGet();
+        return null;
+      }
+      hits.incrementAndGet();
+      return entry.value();
+    }
+  }
+
+  // The loader runs outside the lock. If any invalidation happens meanwhile, the loaded value may
+  // predate it, so it is returned to this caller but not cached.
+  public V getOrLoad(K key, Function<K, V> loader) {
+    long startGeneration;
+    synchronized (entries) {
+      startGeneration = generation;
+    }
+    V cached = get(key);
+    if (cached != null) {
+      return cached;
+    }
+    V loaded = loader.apply(key);
+    if (loaded != null) {
+      synchronized (entries) {
+        if (generation == startGeneration) {
+          entries.put(key, new Entry<>(loaded, System.nanoTime() + ttlNanos));
+        } else {
+          discardedLoads.incrementAndGet();
+        }
+      }
+    }
+    return loaded;
+  }
+
+  public void put(K key, V value) {
+    synchronized (entries) {
+      entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+    }
+  }
+
+  public void invalidate(K key) {
+    synchronized (entries) {
+      generation++;
+      if (entries.remove(key) != null) {
+        invalidations.incrementAndGet();
+      }
+    }
+  }
+
+  public void invalidateIf(Predicate<K> predicate) {
+    synchronized (entries) {
+      generation++;
+      Iterator<K> keys = entries.keySet().iterator();
+      while (keys.hasNext()) {
+        if (predicate.test(keys.next())) {
+          keys.remove();
+          invalidations.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  public void invalidateValuesIf(Predicate<V> predicate) {
+    synchronized (entries) {
+      generation++;
+      Iterator<Entry<V>> values = entries.values().iterator();
+      while (values.hasNext()) {
+        if (predicate.test(values.next().value())) {
+          values.remove();
+          invalidations.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      generation++;
+      invalidations.addAndGet(entries.size());
+      entries.clear();
+    }
+  }
+
+  public Map<String, Object> stats() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    synchronized (entries) {
+      stats.put("size", entries.size());
+    }
+    stats.put("maxSize", maxSize);
+    stats.put("ttlSeconds", Duration.ofNanos(ttlNanos).toSeconds());
+    stats.put("hits", hits.get());
+    stats.put("misses", misses.get());
+    stats.put("evictions", evictions.get());
+    stats.put("expirations", expirations.get());
+    stats.put("invalidations", invalidations.get());
+    stats.put("discardedLoads", discardedLoads.get());
+    return stats;
+  }
+
+  private record Entry<V>(V value, long expiresAtNanos) {
+    boolean isExpired(long now) {
+      return now - expiresAtNanos >= 0;
+    }
+  }
+}
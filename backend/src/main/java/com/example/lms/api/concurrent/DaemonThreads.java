@@ -0,0 +1,51 @@
+package com.example.lms.api.concurrent;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Executors for background work. Threads are daemons so a stuck task never blocks JVM exit, and
+// are only started when the first task is submitted: components create their executors in the
+// constructor and schedule periodic work from @PostConstruct.
+public final class DaemonThreads {
+  private DaemonThreads() {}
+
+  public static ThreadFactory named(String name) {
+    return runnable -> daemon(runnable, name);
+  }
+
+  // Threads named prefix-1, prefix-2, ...
+  public static ThreadFactory numbered(String prefix) {
+    AtomicInteger ids = new AtomicInteger();
+    return runnable -> daemon(runnable, prefix + "-" + ids.incrementAndGet());
+  }
+
+  public static ScheduledThreadPoolExecutor scheduler(String name) {
+    return new ScheduledThreadPoolExecutor(1, named(name));
+  }
+
+  public static ThreadPoolExecutor fixedPool(String prefix, int threads) {
+    return fixedPool(prefix, threads, new LinkedBlockingQueue<>());
+  }
+
+  // Bounded queue: submissions past queueCapacity are rejected.
+  public static ThreadPoolExecutor fixedPool(String prefix, int threads, int queueCapacity) {
+    return fixedPool(prefix, threads, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)));
+  }
+
+  private static ThreadPoolExecutor fixedPool(String prefix, int threads, BlockingQueue<Runnable> queue) {
+    int size = Math.max(1, threads);
+    return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, queue, numbered(prefix));
+  }
+
+  private static Thread daemon(Runnable runnable, String name) {
+    Thread thread = new Thread(runnable, name);
+    thread.setDaemon(true);
+    return thread;
+  }
+}
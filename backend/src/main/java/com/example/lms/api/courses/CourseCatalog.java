@@ -0,0 +1,177 @@
+package com.example.lms.api.courses;
+
+import com.example.lms.api.concurrent.DaemonThreads;
+import com.example.lms.api.courses.CourseDtos.CourseResponse;
+import com.example.lms.api.error.ApiException;
+import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Read-through copy of COURSES. Readers get an immutable snapshot from a volatile field; admin
+// writes through CourseController build a new snapshot. The periodic reload picks up writes made
+// on other instances.
+@Component
+public class CourseCatalog implements MetricsSource {
+  private static final Logger log = LoggerFactory.getLogger(CourseCatalog.class);
+
+  private final CourseRepository repository;
+  private final Object writeLock = new Object();
+  // Versions restart with the process, so ETags carry the instance start as well.
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+  private final long reloadIntervalMs;
+  private final ScheduledExecutorService reloader;
+  private volatile Snapshot snapshot;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong reloads = new AtomicLong();
+  private final AtomicLong failedReloads = new AtomicLong();
+
+  public CourseCatalog(
+      CourseRepository repository,
+      @Value("${lms.catalog.reload-interval-ms:300000}") long reloadIntervalMs) {
+    this.repository = repository;
+    this.reloadIntervalMs = reloadIntervalMs;
+    this.reloader = DaemonThreads.scheduler("course-catalog-reload");
+  }
+
+  @PostConstruct
+  public void start() {
+    reloader.scheduleWithFixedDelay(
+        this::reloadQuietly, reloadIntervalMs, reloadIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warm() {
+    reloadQuietly();
+  }
+
+  public String etag() {
+    return "\"c" + epoch + "-" + current().version() + "\"";
+  }
+
+  public String etag(long courseId) {
+    Snapshot current = current();
+    long version = current.versions().getOrDefault(courseId, current.version());
+    return "\"c" + epoch + "-" + courseId + "-" + version + "\"";
+  }
+
+  public CourseResponse findResponse(long id) {
+    return CourseController.toResponse(findById(id));
+  }
+
+  List<CourseEntity> findAll() {
+    hits.incrementAndGet();
+    return current().courses();
+  }
+
+  CourseEntity findById(long id) {
+    CourseEntity course = current().byId().get(id);
+    if (course == null) {
+      throw new ApiException(ErrorCode.NOT_FOUND, "Course not found");
+    }
+    hits.incrementAndGet();
+    return course;
+  }
+
+  void put(CourseEntity course) {
+    synchronized (writeLock) {
+      Snapshot current = current();
+      Map<Long, CourseEntity> byId = new HashMap<>(current.byId());
+      Map<Long, Long> versions = new HashMap<>(current.versions());
+      byId.put(course.id(), course);
+      versions.put(course.id(), current.version() + 1);
+      publish(byId, versions);
+    }
+  }
+
+  void remove(long id) {
+    synchronized (writeLock) {
+      Snapshot current = current();
+      Map<Long, CourseEntity> byId = new HashMap<>(current.byId());
+      Map<Long, Long> versions = new HashMap<>(current.versions());
+      byId.remove(id);
+      versions.remove(id);
+      publish(byId, versions);
+    }
+  }
+
+  public void reload() {
+    synchronized (writeLock) {
+      Map<Long, CourseEntity> byId = new HashMap<>();
+      for (CourseEntity course : repository.findAll()) {
+        byId.put(course.id(), course);
+      }
+      // Per-course versions fall back to the snapshot version, which a reload always bumps.
+      publish(byId, Map.of());
+      reloads.incrementAndGet();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    reloader.shutdownNow();
+  }
+
+  @Override
+  public String metricsName() {
+    return "courseCatalog";
+  }
+
+  @Override
+  public Map<String, Object> metricsSnapshot() {
+    Snapshot current = snapshot;
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("loaded", current != null);
+    stats.put("version", current == null ? 0 : current.version());
+    stats.put("courses", current == null ? 0 : current.courses().size());
+    stats.put("hits", hits.get());
+    stats.put("reloads", reloads.get());
+    stats.put("failedReloads", failedReloads.get());
+    return stats;
+  }
+
+  private Snapshot current() {
+    Snapshot current = snapshot;
+    if (current == null) {
+      reload();
+      current = snapshot;
+    }
+    return current;
+  }
+
+  // Caller holds writeLock.
+  private void publish(Map<Long, CourseEntity> byId, Map<Long, Long> versions) {
+    List<CourseEntity> courses = new ArrayList<>(byId.values());
+    courses.sort(Comparator.comparingLong(CourseEntity::id));
+    long version = snapshot == null ? 1 : snapshot.version() + 1;
+    snapshot = new Snapshot(version, List.copyOf(courses), Map.copyOf(byId), Map.copyOf(versions));
+  }
+
+  private void reloadQuietly() {
+    try {
+      reload();
+    } catch (RuntimeException ex) {
+      failedReloads.incrementAndGet();
+      log.warn("Course catalog reload failed", ex);
+    }
+  }
+
+  private record Snapshot(
+      long version, List<CourseEntity> courses, Map<Long, CourseEntity> byId, Map<Long, Long> versions) {}
+}
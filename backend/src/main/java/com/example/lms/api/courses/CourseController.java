@@ -5,10 +5,17 @@ import com.example.lms.api.courses.CourseDtos.CourseResponse;
 import com.example.lms.api.courses.CourseDtos.CourseUpdateRequest;
 import com.example.lms.api.error.ApiException;
 import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.events.ContentChangedEvent;
+import com.example.lms.api.paging.PageCursor;
+import com.example.lms.api.paging.PageResponse;
+import com.example.lms.api.paging.Paging;
 import com.example.lms.api.security.AuthContext;
 import com.example.lms.api.security.AuthUtil;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -17,30 +24,87 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/courses")
 public class CourseController {
   private final CourseRepository repository;
+  private final CourseCatalog catalog;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public CourseController(CourseRepository repository) {
+  public CourseController(
+      CourseRepository repository, CourseCatalog catalog, ApplicationEventPublisher eventPublisher) {
     this.repository = repository;
+    this.catalog = catalog;
+    this.eventPublisher = eventPublisher;
   }
 
+  // ETags are read before the catalog, so a concurrent write can only make the body newer than
+  // its tag and the next revalidation fetches it again.
   @GetMapping
-  public List<CourseResponse> list(
+  public ResponseEntity<List<CourseResponse>> list(
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader,
+      WebRequest webRequest) {
+    String etag = catalog.etag();
+    if (webRequest.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok()
+        .eTag(etag)
+        .cacheControl(CacheControl.noCache().cachePublic())
+        .body(catalog.findAll().stream().map(CourseController::toResponse).toList());
+  }
+
+  // Filtered/paged listing straight from COURSES, for admin screens that cannot take the full list.
+  @GetMapping("/page")
+  public PageResponse<CourseResponse> page(
+      @RequestParam(name = "title", required = false) String title,
+      @RequestParam(name = "match", defaultValue = "contains") String match,
+      @RequestParam(name = "sort", defaultValue = "id") String sort,
+      @RequestParam(name = "direction", defaultValue = "asc") String direction,
+      @RequestParam(name = "after", required = false) String after,
+      @RequestParam(name = "limit", defaultValue = "" + Paging.DEFAULT_LIMIT) int limit,
+      @RequestParam(name = "includeTotal", defaultValue = "false") boolean includeTotal,
       @RequestHeader("X-User-Id") Optional<String> userIdHeader,
       @RequestHeader("X-Role") Optional<String> roleHeader) {
-    return repository.findAll().stream().map(this::toResponse).toList();
+    Paging.requireLimit(limit);
+    if (!"id".equals(sort) && !"createdAt".equals(sort)) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "sort must be id or createdAt");
+    }
+    if (!"asc".equals(direction) && !"desc".equals(direction)) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "direction must be asc or desc");
+    }
+    boolean byCreatedAt = "createdAt".equals(sort);
+    CoursePageQuery query =
+        new CoursePageQuery(Paging.titlePattern(title, match), byCreatedAt, "desc".equals(direction));
+    List<CourseEntity> rows = repository.findPage(query, PageCursor.decode(after), limit + 1);
+    return Paging.page(
+        rows,
+        limit,
+        row -> new PageCursor(byCreatedAt ? row.createdAt().toString() : "", row.id()),
+        CourseController::toResponse,
+        includeTotal ? repository.count(query) : null);
   }
 
   @GetMapping("/{id}")
-  public CourseResponse detail(
+  public ResponseEntity<CourseResponse> detail(
       @PathVariable("id") long id,
       @RequestHeader("X-User-Id") Optional<String> userIdHeader,
-      @RequestHeader("X-Role") Optional<String> roleHeader) {
-    return toResponse(repository.findById(id));
+      @RequestHeader("X-Role") Optional<String> roleHeader,
+      WebRequest webRequest) {
+    String etag = catalog.etag(id);
+    CourseEntity course = catalog.findById(id);
+    if (webRequest.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok()
+        .eTag(etag)
+        .cacheControl(CacheControl.noCache().cachePublic())
+        .body(toResponse(course));
   }
 
   @PostMapping
@@ -52,7 +116,10 @@ public class CourseController {
     AuthUtil.requireAdmin(ctx);
     validateTitle(request.title());
     long id = repository.insert(request.title(), request.description());
-    return toResponse(repository.findById(id));
+    CourseEntity created = repository.findById(id);
+    catalog.put(created);
+    eventPublisher.publishEvent(ContentChangedEvent.course(id));
+    return toResponse(created);
   }
 
   @PutMapping("/{id}")
@@ -65,7 +132,10 @@ public class CourseController {
     AuthUtil.requireAdmin(ctx);
     validateTitle(request.title());
     repository.update(id, request.title(), request.description());
-    return toResponse(repository.findById(id));
+    CourseEntity updated = repository.findById(id);
+    catalog.put(updated);
+    eventPublisher.publishEvent(ContentChangedEvent.course(id));
+    return toResponse(updated);
   }
 
   @DeleteMapping("/{id}")
@@ -76,9 +146,11 @@ public class CourseController {
     AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
     AuthUtil.requireAdmin(ctx);
     repository.delete(id);
+    catalog.remove(id);
+    eventPublisher.publishEvent(ContentChangedEvent.course(id));
   }
 
-  private CourseResponse toResponse(CourseEntity entity) {
+  static CourseResponse toResponse(CourseEntity entity) {
     return new CourseResponse(
         entity.id(),
         entity.title(),
@@ -0,0 +1,5 @@
+package com.example.lms.api.courses;
+
+import java.time.Instant;
+
+record CourseEntity(long id, String title, String description, Instant createdAt) {}
@@ -0,0 +1,3 @@
+package com.example.lms.api.courses;
+
+record CoursePageQuery(String titlePattern, boolean byCreatedAt, boolean descending) {}
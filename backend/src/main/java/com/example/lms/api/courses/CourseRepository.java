@@ -2,8 +2,10 @@ package com.example.lms.api.courses;
 
 import com.example.lms.api.error.ApiException;
 import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.paging.PageCursor;
 import java.sql.ResultSet;
-import java.time.Instant;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +32,41 @@ public class CourseRepository {
     return jdbcTemplate.query("SELECT ID, TITLE, DESCRIPTION, CREATED_AT FROM COURSES ORDER BY ID", mapper());
   }
 
+  // Keyset page; CREATED_AT order is served by IDX_COURSES_CREATED_AT, with ID as the tie-breaker.
+  public List<CourseEntity> findPage(CoursePageQuery query, PageCursor after, int limit) {
+    List<Object> params = new ArrayList<>();
+    String sql = "SELECT ID, TITLE, DESCRIPTION, CREATED_AT FROM COURSES WHERE 1 = 1";
+    sql += filterSql(query, params);
+    String cmp = query.descending() ? "<" : ">";
+    String dir = query.descending() ? " DESC" : "";
+    if (query.byCreatedAt()) {
+      if (after != null) {
+        Timestamp createdAt = Timestamp.from(after.sortInstant());
+        sql += " AND (CREATED_AT " + cmp + " ? OR (CREATED_AT = ? AND ID " + cmp + " ?))";
+        params.add(createdAt);
+        params.add(createdAt);
+        params.add(after.id());
+      }
+      sql += " ORDER BY CREATED_AT" + dir + ", ID" + dir;
+    } else {
+      if (after != null) {
+        sql += " AND ID " + cmp + " ?";
+        params.add(after.id());
+      }
+      sql += " ORDER BY ID" + dir;
+    }
+    sql += " FETCH FIRST ? ROWS ONLY";
+    params.add(limit);
+    return jdbcTemplate.query(sql, mapper(), params.toArray());
+  }
+
+  public long count(CoursePageQuery query) {
+    List<Object> params = new ArrayList<>();
+    String sql = "SELECT COUNT(*) FROM COURSES WHERE 1 = 1" + filterSql(query, params);
+    Long count = jdbcTemplate.queryForObject(sql, Long.class, params.toArray());
+    return count == null ? 0 : count;
+  }
+
   public CourseEntity findById(long id) {
     List<CourseEntity> rows =
         jdbcTemplate.query(
@@ -69,6 +106,14 @@ public class CourseRepository {
     }
   }
 
+  private String filterSql(CoursePageQuery query, List<Object> params) {
+    if (query.titlePattern() == null) {
+      return "";
+    }
+    params.add(query.titlePattern());
+    return " AND UPPER(TITLE) LIKE ? ESCAPE '\\'";
+  }
+
   private RowMapper<CourseEntity> mapper() {
     return (ResultSet rs, int rowNum) ->
         new CourseEntity(
@@ -78,5 +123,3 @@ public class CourseRepository {
             rs.getTimestamp("CREATED_AT").toInstant());
   }
 }
-
-record CourseEntity(long id, String title, String description, Instant createdAt) {}
@@ -0,0 +1,5 @@
+package com.example.lms.api.enrollments;
+
+import java.util.List;
+
+record BulkApproval(int approved, List<Long> courseIds) {}
@@ -0,0 +1,7 @@
+package com.example.lms.api.enrollments;
+
+public record EnrollmentAuth(long enrollmentId, long userId, long courseId, String status) {
+  public boolean isPending() {
+    return status != null && "PENDING".equalsIgnoreCase(status.trim());
+  }
+}
@@ -0,0 +1,51 @@
+package com.example.lms.api.enrollments;
+
+import com.example.lms.api.cache.BoundedTtlCache;
+import com.example.lms.api.metrics.MetricsSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Ownership never changes and status only changes through EnrollmentRepository, which keeps this
+// cache in sync. The TTL bounds staleness when another instance approves an enrollment.
+@Component
+public class EnrollmentAuthCache implements MetricsSource {
+  private final BoundedTtlCache<Long, EnrollmentAuth> cache;
+
+  public EnrollmentAuthCache(
+      @Value("${lms.enrollment.auth-cache.max-size:50000}") int maxSize,
+      @Value("${lms.enrollment.auth-cache.ttl-seconds:60}") long ttlSeconds) {
+    this.cache = new BoundedTtlCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+  }
+
+  public EnrollmentAuth get(long enrollmentId, Function<Long, EnrollmentAuth> loader) {
+    return cache.getOrLoad(enrollmentId, loader);
+  }
+
+  public void put(EnrollmentAuth auth) {
+    cache.put(auth.enrollmentId(), auth);
+  }
+
+  public void invalidate(long enrollmentId) {
+    cache.invalidate(enrollmentId);
+  }
+
+  // Bulk approvals update rows by filter without knowing their ids; drop every cached PENDING entry
+  // the filter could have matched.
+  public void invalidatePending(Long courseId) {
+    cache.invalidateValuesIf(
+        auth -> auth.isPending() && (courseId == null || auth.courseId() == courseId));
+  }
+
+  @Override
+  public String metricsName() {
+    return "enrollmentAuthCache";
+  }
+
+  @Override
+  public Map<String, Object> metricsSnapshot() {
+    return cache.stats();
+  }
+}
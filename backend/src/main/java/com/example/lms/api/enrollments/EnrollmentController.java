@@ -1,14 +1,27 @@
 package com.example.lms.api.enrollments;
 
+import com.example.lms.api.enrollments.EnrollmentDtos.BulkApproveRequest;
+import com.example.lms.api.enrollments.EnrollmentDtos.BulkApproveResponse;
 import com.example.lms.api.enrollments.EnrollmentDtos.EnrollRequest;
 import com.example.lms.api.enrollments.EnrollmentDtos.EnrollmentResponse;
+import com.example.lms.api.enrollments.EnrollmentDtos.PendingCourseCountResponse;
 import com.example.lms.api.enrollments.EnrollmentDtos.PendingEnrollmentResponse;
 import com.example.lms.api.error.ApiException;
 import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.events.ReportDataChangedEvent;
+import com.example.lms.api.paging.PageCursor;
+import com.example.lms.api.paging.PageResponse;
+import com.example.lms.api.paging.Paging;
 import com.example.lms.api.security.AuthContext;
 import com.example.lms.api.security.AuthUtil;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -22,9 +35,12 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/enroll")
 public class EnrollmentController {
   private final EnrollmentRepository repository;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public EnrollmentController(EnrollmentRepository repository) {
+  public EnrollmentController(
+      EnrollmentRepository repository, ApplicationEventPublisher eventPublisher) {
     this.repository = repository;
+    this.eventPublisher = eventPublisher;
   }
 
   @PostMapping
@@ -38,6 +54,7 @@ public class EnrollmentController {
       throw new ApiException(ErrorCode.VALIDATION_ERROR, "CourseId is required");
     }
     long id = repository.enroll(ctx.userId(), request.courseId());
+    publishChanged(request.courseId());
     return toResponse(repository.findById(id));
   }
 
@@ -57,13 +74,90 @@ public class EnrollmentController {
         .orElseThrow(() -> new ApiException(ErrorCode.NOT_FOUND, "Enrollment not found"));
   }
 
+  // Newest first, keyset-paged; the pending backlog can run into thousands after a course launch.
   @GetMapping("/pending")
-  public List<PendingEnrollmentResponse> listPending(
+  public PageResponse<PendingEnrollmentResponse> listPending(
+      @RequestParam(name = "courseId", required = false) Long courseId,
+      @RequestParam(name = "after", required = false) String after,
+      @RequestParam(name = "limit", defaultValue = "" + Paging.DEFAULT_LIMIT) int limit,
       @RequestHeader("X-User-Id") Optional<String> userIdHeader,
       @RequestHeader("X-Role") Optional<String> roleHeader) {
     AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
     AuthUtil.requireAdmin(ctx);
-    return repository.findPending().stream().map(this::toPendingResponse).toList();
+    Paging.requireLimit(limit);
+    List<PendingEnrollmentRow> rows =
+        repository.findPendingPage(courseId, PageCursor.decode(after), limit + 1);
+    return Paging.page(
+        rows,
+        limit,
+        row -> new PageCursor(row.enrolledAt().toString(), row.id()),
+        this::toPendingResponse,
+        null);
+  }
+
+  @GetMapping("/pending/counts")
+  public List<PendingCourseCountResponse> pendingCounts(
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    AuthUtil.requireAdmin(ctx);
+    return repository.countPendingByCourse().stream()
+        .map(row -> new PendingCourseCountResponse(row.courseId(), row.courseTitle(), row.pendingCount()))
+        .toList();
+  }
+
+  // Approves either an explicit list of ids or every PENDING row matching courseId/enrolledBefore,
+  // each as a single UPDATE.
+  @PostMapping("/approve:bulk")
+  public BulkApproveResponse approveBulk(
+      @RequestBody BulkApproveRequest request,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    AuthUtil.requireAdmin(ctx);
+    boolean byFilter = request.courseId() != null || request.enrolledBefore() != null;
+    if (request.ids() != null) {
+      if (byFilter) {
+        throw new ApiException(
+            ErrorCode.VALIDATION_ERROR, "Use either ids or courseId/enrolledBefore, not both");
+      }
+      if (request.ids().isEmpty() || request.ids().size() > 1000) {
+        throw new ApiException(ErrorCode.VALIDATION_ERROR, "ids must contain 1 to 1000 entries");
+      }
+      if (request.ids().stream().anyMatch(id -> id == null || id <= 0)) {
+        throw new ApiException(ErrorCode.VALIDATION_ERROR, "ids must be positive");
+      }
+      BulkApproval approval = repository.approvePendingByIds(List.copyOf(new HashSet<>(request.ids())));
+      if (approval.approved() > 0) {
+        eventPublisher.publishEvent(
+            ReportDataChangedEvent.forCourses(
+                ReportDataChangedEvent.Source.ENROLLMENT, Set.copyOf(approval.courseIds())));
+      }
+      return new BulkApproveResponse(approval.approved());
+    }
+    if (!byFilter) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "ids, courseId or enrolledBefore is required");
+    }
+    if (request.courseId() != null && request.courseId() <= 0) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "CourseId is required");
+    }
+    Timestamp enrolledBefore = null;
+    if (request.enrolledBefore() != null) {
+      try {
+        enrolledBefore = Timestamp.valueOf(LocalDate.parse(request.enrolledBefore()).atStartOfDay());
+      } catch (DateTimeParseException ex) {
+        throw new ApiException(ErrorCode.VALIDATION_ERROR, "Invalid date for enrolledBefore (yyyy-MM-dd)");
+      }
+    }
+    int approved = repository.approvePendingByFilter(request.courseId(), enrolledBefore);
+    if (approved > 0) {
+      eventPublisher.publishEvent(
+          request.courseId() != null
+              ? ReportDataChangedEvent.forCourses(
+                  ReportDataChangedEvent.Source.ENROLLMENT, Set.of(request.courseId()))
+              : ReportDataChangedEvent.forAllCourses(ReportDataChangedEvent.Source.ENROLLMENT));
+    }
+    return new BulkApproveResponse(approved);
   }
 
   @PostMapping("/{id}/approve")
@@ -74,7 +168,14 @@ public class EnrollmentController {
     AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
     AuthUtil.requireAdmin(ctx);
     repository.updateStatus(id, "APPROVED");
-    return toResponse(repository.findById(id));
+    EnrollmentEntity entity = repository.findById(id);
+    publishChanged(entity.courseId());
+    return toResponse(entity);
+  }
+
+  private void publishChanged(long courseId) {
+    eventPublisher.publishEvent(
+        ReportDataChangedEvent.forCourses(ReportDataChangedEvent.Source.ENROLLMENT, Set.of(courseId)));
   }
 
   private EnrollmentResponse toResponse(EnrollmentEntity entity) {
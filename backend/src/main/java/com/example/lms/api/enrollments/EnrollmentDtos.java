@@ -1,5 +1,7 @@
 package com.example.lms.api.enrollments;
 
+import java.util.List;
+
 public class EnrollmentDtos {
   public record EnrollRequest(long courseId) {}
   public record EnrollmentResponse(long id, long userId, long courseId, String status, String enrolledAt) {}
@@ -12,4 +14,7 @@ public class EnrollmentDtos {
       String courseTitle,
       String status,
       String enrolledAt) {}
+  public record PendingCourseCountResponse(long courseId, String courseTitle, long pendingCount) {}
+  public record BulkApproveRequest(List<Long> ids, Long courseId, String enrolledBefore) {}
+  public record BulkApproveResponse(int approved) {}
 }
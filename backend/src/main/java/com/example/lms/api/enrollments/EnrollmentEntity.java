@@ -0,0 +1,3 @@
+package com.example.lms.api.enrollments;
+
+record EnrollmentEntity(long id, long userId, long courseId, String status, java.time.Instant enrolledAt) {}
@@ -2,11 +2,16 @@ package com.example.lms.api.enrollments;
 
 import com.example.lms.api.error.ApiException;
 import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.paging.PageCursor;
 import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
@@ -16,9 +21,11 @@ import org.springframework.stereotype.Repository;
 public class EnrollmentRepository {
   private final JdbcTemplate jdbcTemplate;
   private final SimpleJdbcInsert insert;
+  private final EnrollmentAuthCache authCache;
 
-  public EnrollmentRepository(JdbcTemplate jdbcTemplate) {
+  public EnrollmentRepository(JdbcTemplate jdbcTemplate, EnrollmentAuthCache authCache) {
     this.jdbcTemplate = jdbcTemplate;
+    this.authCache = authCache;
     this.insert =
         new SimpleJdbcInsert(jdbcTemplate)
             .withTableName("ENROLLMENTS")
@@ -39,15 +46,11 @@ public class EnrollmentRepository {
   }
 
   public String findStatusById(long id) {
-    String status =
-        jdbcTemplate.queryForObject(
-            "SELECT STATUS FROM ENROLLMENTS WHERE ID = ?",
-            String.class,
-            id);
-    if (status == null) {
+    EnrollmentAuth auth = authCache.get(id, this::loadAuth);
+    if (auth == null || auth.status() == null) {
       throw new ApiException(ErrorCode.NOT_FOUND, "Enrollment not found");
     }
-    return status;
+    return auth.status();
   }
 
   public Optional<EnrollmentEntity> findByUserAndCourse(long userId, long courseId) {
@@ -81,12 +84,21 @@ public class EnrollmentRepository {
     params.put("USER_ID", userId);
     params.put("COURSE_ID", courseId);
     params.put("STATUS", "PENDING");
-    Number id = insert.executeAndReturnKey(params);
-    return id.longValue();
+    long id;
+    try {
+      id = insert.executeAndReturnKey(params).longValue();
+    } catch (DuplicateKeyException ex) {
+      // A concurrent enroll won UQ_ENROLLMENTS_USER_COURSE; hand back its row.
+      return findByUserAndCourse(userId, courseId).orElseThrow(() -> ex).id();
+    }
+    authCache.put(new EnrollmentAuth(id, userId, courseId, "PENDING"));
+    return id;
   }
 
-  public List<PendingEnrollmentRow> findPending() {
-    return jdbcTemplate.query(
+  // Newest first, keyset on (ENROLLED_AT, ID); served by IDX_ENROLLMENTS_STATUS_ENROLLED.
+  public List<PendingEnrollmentRow> findPendingPage(Long courseId, PageCursor after, int limit) {
+    List<Object> params = new ArrayList<>();
+    String sql =
         """
         SELECT
           e.ID AS ENROLLMENT_ID,
@@ -101,9 +113,74 @@ public class EnrollmentRepository {
         JOIN USERS u ON u.ID = e.USER_ID
         JOIN COURSES c ON c.ID = e.COURSE_ID
         WHERE e.STATUS = 'PENDING'
-        ORDER BY e.ENROLLED_AT DESC
+        """;
+    if (courseId != null) {
+      sql += " AND e.COURSE_ID = ?";
+      params.add(courseId);
+    }
+    if (after != null) {
+      Timestamp enrolledAt = Timestamp.from(after.sortInstant());
+      sql += " AND (e.ENROLLED_AT < ? OR (e.ENROLLED_AT = ? AND e.ID < ?))";
+      params.add(enrolledAt);
+      params.add(enrolledAt);
+      params.add(after.id());
+    }
+    sql += " ORDER BY e.ENROLLED_AT DESC, e.ID DESC FETCH FIRST ? ROWS ONLY";
+    params.add(limit);
+    return jdbcTemplate.query(sql, pendingMapper(), params.toArray());
+  }
+
+  public List<PendingCourseCount> countPendingByCourse() {
+    return jdbcTemplate.query(
+        """
+        SELECT p.COURSE_ID, c.TITLE AS COURSE_TITLE, p.PENDING_COUNT
+        FROM (
+          SELECT COURSE_ID, COUNT(*) AS PENDING_COUNT
+          FROM ENROLLMENTS
+          WHERE STATUS = 'PENDING'
+          GROUP BY COURSE_ID
+        ) p
+        JOIN COURSES c ON c.ID = p.COURSE_ID
+        ORDER BY p.PENDING_COUNT DESC, p.COURSE_ID
         """,
-        pendingMapper());
+        (ResultSet rs, int rowNum) ->
+            new PendingCourseCount(
+                rs.getLong("COURSE_ID"), rs.getString("COURSE_TITLE"), rs.getLong("PENDING_COUNT")));
+  }
+
+  // One UPDATE for the listed ids (at most 1000, Oracle's IN-list limit). Returns the courses of the
+  // approved rows.
+  public BulkApproval approvePendingByIds(List<Long> enrollmentIds) {
+    String placeholders = String.join(", ", Collections.nCopies(enrollmentIds.size(), "?"));
+    int updated =
+        jdbcTemplate.update(
+            "UPDATE ENROLLMENTS SET STATUS = 'APPROVED' WHERE STATUS = 'PENDING' AND ID IN ("
+                + placeholders
+                + ")",
+            enrollmentIds.toArray());
+    enrollmentIds.forEach(authCache::invalidate);
+    List<Long> courseIds =
+        jdbcTemplate.queryForList(
+            "SELECT DISTINCT COURSE_ID FROM ENROLLMENTS WHERE ID IN (" + placeholders + ")",
+            Long.class,
+            enrollmentIds.toArray());
+    return new BulkApproval(updated, courseIds);
+  }
+
+  public int approvePendingByFilter(Long courseId, Timestamp enrolledBefore) {
+    List<Object> params = new ArrayList<>();
+    String sql = "UPDATE ENROLLMENTS SET STATUS = 'APPROVED' WHERE STATUS = 'PENDING'";
+    if (courseId != null) {
+      sql += " AND COURSE_ID = ?";
+      params.add(courseId);
+    }
+    if (enrolledBefore != null) {
+      sql += " AND ENROLLED_AT < ?";
+      params.add(enrolledBefore);
+    }
+    int updated = jdbcTemplate.update(sql, params.toArray());
+    authCache.invalidatePending(courseId);
+    return updated;
   }
 
   public void updateStatus(long enrollmentId, String status) {
@@ -112,21 +189,37 @@ public class EnrollmentRepository {
             "UPDATE ENROLLMENTS SET STATUS = ? WHERE ID = ?",
             status,
             enrollmentId);
+    authCache.invalidate(enrollmentId);
     if (updated == 0) {
       throw new ApiException(ErrorCode.NOT_FOUND, "Enrollment not found");
     }
   }
 
-  public void requireOwnedByUser(long enrollmentId, long userId) {
-    Integer count =
-        jdbcTemplate.queryForObject(
-            "SELECT COUNT(*) FROM ENROLLMENTS WHERE ID = ? AND USER_ID = ?",
-            Integer.class,
-            enrollmentId,
-            userId);
-    if (count == null || count == 0) {
+  public EnrollmentAuth requireOwnedByUser(long enrollmentId, long userId) {
+    EnrollmentAuth auth = authCache.get(enrollmentId, this::loadAuth);
+    if (auth == null || auth.userId() != userId) {
       throw new ApiException(ErrorCode.FORBIDDEN, "Enrollment does not belong to user");
     }
+    return auth;
+  }
+
+  public Optional<Long> findCourseId(long enrollmentId) {
+    EnrollmentAuth auth = authCache.get(enrollmentId, this::loadAuth);
+    return auth == null ? Optional.empty() : Optional.of(auth.courseId());
+  }
+
+  private EnrollmentAuth loadAuth(long enrollmentId) {
+    List<EnrollmentAuth> rows =
+        jdbcTemplate.query(
+            "SELECT ID, USER_ID, COURSE_ID, STATUS FROM ENROLLMENTS WHERE ID = ?",
+            (ResultSet rs, int rowNum) ->
+                new EnrollmentAuth(
+                    rs.getLong("ID"),
+                    rs.getLong("USER_ID"),
+                    rs.getLong("COURSE_ID"),
+                    rs.getString("STATUS")),
+            enrollmentId);
+    return rows.isEmpty() ? null : rows.get(0);
   }
 
   private boolean courseExists(long courseId) {
@@ -161,15 +254,3 @@ public class EnrollmentRepository {
             rs.getTimestamp("ENROLLED_AT").toInstant());
   }
 }
-
-record EnrollmentEntity(long id, long userId, long courseId, String status, java.time.Instant enrolledAt) {}
-
-record PendingEnrollmentRow(
-    long id,
-    long userId,
-    String userEmail,
-    String userName,
-    long courseId,
-    String courseTitle,
-    String status,
-    java.time.Instant enrolledAt) {}
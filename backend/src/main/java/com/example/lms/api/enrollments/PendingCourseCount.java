@@ -0,0 +1,3 @@
+package com.example.lms.api.enrollments;
+
+record PendingCourseCount(long courseId, String courseTitle, long pendingCount) {}
@@ -0,0 +1,11 @@
+package com.example.lms.api.enrollments;
+
+record PendingEnrollmentRow(
+    long id,
+    long userId,
+    String userEmail,
+    String userName,
+    long courseId,
+    String courseTitle,
+    String status,
+    java.time.Instant enrolledAt) {}
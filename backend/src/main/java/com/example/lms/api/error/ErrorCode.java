@@ -6,6 +6,7 @@ public enum ErrorCode {
   NOT_FOUND,
   VALIDATION_ERROR,
   CONFLICT,
+  TOO_MANY_REQUESTS,
   DB_ERROR,
   EXTERNAL_API_ERROR,
   INTERNAL_ERROR
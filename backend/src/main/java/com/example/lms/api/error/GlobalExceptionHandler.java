@@ -40,6 +40,7 @@ public class GlobalExceptionHandler {
       case NOT_FOUND -> HttpStatus.NOT_FOUND;
       case VALIDATION_ERROR -> HttpStatus.BAD_REQUEST;
       case CONFLICT -> HttpStatus.CONFLICT;
+      case TOO_MANY_REQUESTS -> HttpStatus.TOO_MANY_REQUESTS;
       case DB_ERROR, EXTERNAL_API_ERROR -> HttpStatus.INTERNAL_SERVER_ERROR;
       case INTERNAL_ERROR -> HttpStatus.INTERNAL_SERVER_ERROR;
     };
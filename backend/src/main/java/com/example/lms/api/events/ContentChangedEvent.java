@@ -0,0 +1,23 @@
+package com.example.lms.api.events;
+
+// A course, the lesson list of a course, or a board post was written. id is the course id for
+// COURSE and LESSONS, the board id for BOARD.
+public record ContentChangedEvent(Kind kind, long id) {
+  public enum Kind {
+    COURSE,
+    LESSONS,
+    BOARD
+  }
+
+  public static ContentChangedEvent course(long courseId) {
+    return new ContentChangedEvent(Kind.COURSE, courseId);
+  }
+
+  public static ContentChangedEvent lessons(long courseId) {
+    return new ContentChangedEvent(Kind.LESSONS, courseId);
+  }
+
+  public static ContentChangedEvent board(long boardId) {
+    return new ContentChangedEvent(Kind.BOARD, boardId);
+  }
+}
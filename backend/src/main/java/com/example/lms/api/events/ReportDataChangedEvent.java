@@ -0,0 +1,24 @@
+package com.example.lms.api.events;
+
+import java.util.Set;
+
+public record ReportDataChangedEvent(
+    Source source, boolean allCourses, Set<Long> courseIds, Set<Long> enrollmentIds) {
+  public enum Source {
+    ENROLLMENT,
+    PROGRESS,
+    ROLLUP
+  }
+
+  public static ReportDataChangedEvent forCourses(Source source, Set<Long> courseIds) {
+    return new ReportDataChangedEvent(source, false, Set.copyOf(courseIds), Set.of());
+  }
+
+  public static ReportDataChangedEvent forEnrollments(Source source, Set<Long> enrollmentIds) {
+    return new ReportDataChangedEvent(source, false, Set.of(), Set.copyOf(enrollmentIds));
+  }
+
+  public static ReportDataChangedEvent forAllCourses(Source source) {
+    return new ReportDataChangedEvent(source, true, Set.of(), Set.of());
+  }
+}
@@ -0,0 +1,57 @@
+package com.example.lms.api.learn;
+
+import com.example.lms.api.courses.CourseCatalog;
+import com.example.lms.api.courses.CourseDtos.CourseResponse;
+import com.example.lms.api.learn.LearnDtos.LearnerCourseDetailResponse;
+import com.example.lms.api.lessons.LessonCatalog;
+import com.example.lms.api.lessons.LessonDtos.LessonResponse;
+import com.example.lms.api.progress.ProgressDtos.LearnerCourseProgress;
+import com.example.lms.api.progress.ProgressQueries;
+import com.example.lms.api.security.AuthContext;
+import com.example.lms.api.security.AuthUtil;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Everything the learner course page needs in one response. Course and lessons come from the
+// in-memory catalogs; enrollment and progress are one query, skipped for anonymous callers.
+@RestController
+@RequestMapping("/api/learn")
+public class LearnController {
+  private final CourseCatalog courseCatalog;
+  private final LessonCatalog lessonCatalog;
+  private final ProgressQueries progressQueries;
+
+  public LearnController(
+      CourseCatalog courseCatalog, LessonCatalog lessonCatalog, ProgressQueries progressQueries) {
+    this.courseCatalog = courseCatalog;
+    this.lessonCatalog = lessonCatalog;
+    this.progressQueries = progressQueries;
+  }
+
+  @GetMapping("/courses/{id}")
+  public LearnerCourseDetailResponse courseDetail(
+      @PathVariable("id") long id,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    CourseResponse course = courseCatalog.findResponse(id);
+    List<LessonResponse> lessons = lessonCatalog.findResponses(id);
+    if (userIdHeader.isEmpty()) {
+      return new LearnerCourseDetailResponse(course, lessons, null, List.of());
+    }
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    if (!"LEARNER".equalsIgnoreCase(ctx.role())) {
+      return new LearnerCourseDetailResponse(course, lessons, null, List.of());
+    }
+    Optional<LearnerCourseProgress> state = progressQueries.findLearnerCourse(ctx.userId(), id);
+    return new LearnerCourseDetailResponse(
+        course,
+        lessons,
+        state.map(LearnerCourseProgress::enrollment).orElse(null),
+        state.map(LearnerCourseProgress::progress).orElse(List.of()));
+  }
+}
@@ -0,0 +1,15 @@
+package com.example.lms.api.learn;
+
+import com.example.lms.api.courses.CourseDtos.CourseResponse;
+import com.example.lms.api.enrollments.EnrollmentDtos.EnrollmentResponse;
+import com.example.lms.api.lessons.LessonDtos.LessonResponse;
+import com.example.lms.api.progress.ProgressDtos.ProgressResponse;
+import java.util.List;
+
+public class LearnDtos {
+  public record LearnerCourseDetailResponse(
+      CourseResponse course,
+      List<LessonResponse> lessons,
+      EnrollmentResponse enrollment,
+      List<ProgressResponse> progress) {}
+}
@@ -0,0 +1,111 @@
+package com.example.lms.api.lessons;
+
+import com.example.lms.api.error.ApiException;
+import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.lessons.LessonDtos.LessonBulkItem;
+import com.example.lms.api.lessons.LessonDtos.LessonBulkRequest;
+import com.example.lms.api.lessons.LessonDtos.LessonReorderRequest;
+import com.example.lms.api.lessons.LessonDtos.LessonResponse;
+import com.example.lms.api.security.AuthContext;
+import com.example.lms.api.security.AuthUtil;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/courses/{courseId}")
+public class CourseLessonController {
+  private static final int MAX_BULK_SIZE = 1000;
+
+  private final LessonBulkService bulkService;
+
+  public CourseLessonController(LessonBulkService bulkService) {
+    this.bulkService = bulkService;
+  }
+
+  // Items with an id update that lesson, items without one create a lesson. Returns the course's
+  // lessons in order.
+  @PostMapping("/lessons:bulk")
+  public List<LessonResponse> bulkUpsert(
+      @PathVariable("courseId") long courseId,
+      @RequestBody LessonBulkRequest request,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    AuthUtil.requireAdmin(ctx);
+    if (request == null || request.lessons() == null || request.lessons().isEmpty()) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "At least one lesson is required");
+    }
+    if (request.lessons().size() > MAX_BULK_SIZE) {
+      throw new ApiException(
+          ErrorCode.VALIDATION_ERROR, "At most " + MAX_BULK_SIZE + " lessons per request");
+    }
+    HashSet<Long> ids = new HashSet<>();
+    HashSet<Integer> orderNos = new HashSet<>();
+    for (LessonBulkItem item : request.lessons()) {
+      validate(item);
+      if (item.id() != null && !ids.add(item.id())) {
+        throw new ApiException(ErrorCode.VALIDATION_ERROR, "Lesson " + item.id() + " listed twice");
+      }
+      if (!orderNos.add(item.orderNo())) {
+        throw new ApiException(ErrorCode.VALIDATION_ERROR, "orderNo " + item.orderNo() + " listed twice");
+      }
+    }
+    List<LessonWrite> writes =
+        request.lessons().stream()
+            .map(
+                item ->
+                    new LessonWrite(
+                        item.id(),
+                        item.title(),
+                        item.content(),
+                        item.orderNo(),
+                        item.videoUrl(),
+                        item.startSec(),
+                        item.endSec()))
+            .toList();
+    return bulkService.upsert(courseId, writes).stream().map(LessonController::toResponse).toList();
+  }
+
+  // lessonIds is the full new order; ORDER_NO becomes the 1-based position.
+  @PostMapping("/lessons:reorder")
+  public List<LessonResponse> reorder(
+      @PathVariable("courseId") long courseId,
+      @RequestBody LessonReorderRequest request,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    AuthUtil.requireAdmin(ctx);
+    if (request == null || request.lessonIds() == null || request.lessonIds().isEmpty()) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "lessonIds is required");
+    }
+    if (new HashSet<>(request.lessonIds()).size() != request.lessonIds().size()) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "lessonIds must not repeat");
+    }
+    return bulkService.reorder(courseId, request.lessonIds()).stream()
+        .map(LessonController::toResponse)
+        .toList();
+  }
+
+  private void validate(LessonBulkItem item) {
+    if (item.title() == null || item.title().isBlank()) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "Title is required");
+    }
+    // orderNo is a primitive, so an omitted value arrives as 0.
+    if (item.orderNo() <= 0) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "orderNo must be >= 1");
+    }
+    if ((item.startSec() != null && item.startSec() < 0) || (item.endSec() != null && item.endSec() < 0)) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "Video range must be >= 0");
+    }
+    if (item.startSec() != null && item.endSec() != null && item.startSec() > item.endSec()) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "startSec must not be after endSec");
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.example.lms.api.lessons;
+
+import com.example.lms.api.error.ApiException;
+import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.events.ContentChangedEvent;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Whole-course lesson writes: one transaction, one JDBC batch per statement shape. The catalog is
+// refreshed once after commit.
+@Component
+public class LessonBulkService {
+  private final LessonRepository repository;
+  private final LessonCatalog catalog;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+
+  public LessonBulkService(
+      LessonRepository repository,
+      LessonCatalog catalog,
+      PlatformTransactionManager transactionManager,
+      ApplicationEventPublisher eventPublisher) {
+    this.repository = repository;
+    this.catalog = catalog;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.eventPublisher = eventPublisher;
+  }
+
+  public List<LessonEntity> upsert(long courseId, List<LessonWrite> writes) {
+    List<LessonWrite> inserts = new ArrayList<>();
+    List<LessonWrite> updates = new ArrayList<>();
+    for (LessonWrite write : writes) {
+      (write.id() == null ? inserts : updates).add(write);
+    }
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          repository.requireCourse(courseId);
+          repository.updateBatch(courseId, updates);
+          repository.insertBatch(courseId, inserts);
+        });
+    catalog.refreshCourse(courseId);
+    eventPublisher.publishEvent(ContentChangedEvent.lessons(courseId));
+    return catalog.findByCourseId(courseId);
+  }
+
+  public List<LessonEntity> reorder(long courseId, List<Long> lessonIds) {
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          repository.requireCourse(courseId);
+          if (!new HashSet<>(repository.findIdsByCourseId(courseId)).equals(new HashSet<>(lessonIds))) {
+            throw new ApiException(
+                ErrorCode.VALIDATION_ERROR, "lessonIds must list every lesson of the course exactly once");
+          }
+          repository.reorder(courseId, lessonIds);
+        });
+    catalog.refreshCourse(courseId);
+    eventPublisher.publishEvent(ContentChangedEvent.lessons(courseId));
+    return catalog.findByCourseId(courseId);
+  }
+}
@@ -0,0 +1,167 @@
+package com.example.lms.api.lessons;
+
+import com.example.lms.api.concurrent.DaemonThreads;
+import com.example.lms.api.lessons.LessonDtos.LessonResponse;
+import com.example.lms.api.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Read-through copy of LESSONS grouped by course, ordered like LessonRepository.findByCourseId.
+// Same copy-on-write scheme as CourseCatalog: an admin write reloads the lessons of one course
+// into a new immutable snapshot.
+@Component
+public class LessonCatalog implements MetricsSource {
+  private static final Logger log = LoggerFactory.getLogger(LessonCatalog.class);
+
+  private final LessonRepository repository;
+  private final Object writeLock = new Object();
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+  private final long reloadIntervalMs;
+  private final ScheduledExecutorService reloader;
+  private volatile Snapshot snapshot;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong reloads = new AtomicLong();
+  private final AtomicLong failedReloads = new AtomicLong();
+
+  public LessonCatalog(
+      LessonRepository repository,
+      @Value("${lms.catalog.reload-interval-ms:300000}") long reloadIntervalMs) {
+    this.repository = repository;
+    this.reloadIntervalMs = reloadIntervalMs;
+    this.reloader = DaemonThreads.scheduler("lesson-catalog-reload");
+  }
+
+  @PostConstruct
+  public void start() {
+    reloader.scheduleWithFixedDelay(
+        this::reloadQuietly, reloadIntervalMs, reloadIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warm() {
+    reloadQuietly();
+  }
+
+  public String etag(long courseId) {
+    Snapshot current = current();
+    long version = current.versions().getOrDefault(courseId, current.version());
+    return "\"l" + epoch + "-" + courseId + "-" + version + "\"";
+  }
+
+  public List<LessonResponse> findResponses(long courseId) {
+    return findByCourseId(courseId).stream().map(LessonController::toResponse).toList();
+  }
+
+  List<LessonEntity> findByCourseId(long courseId) {
+    hits.incrementAndGet();
+    return current().byCourse().getOrDefault(courseId, List.of());
+  }
+
+  void refreshCourse(long courseId) {
+    synchronized (writeLock) {
+      Snapshot current = current();
+      Map<Long, List<LessonEntity>> byCourse = new HashMap<>(current.byCourse());
+      Map<Long, Long> versions = new HashMap<>(current.versions());
+      versions.put(courseId, current.version() + 1);
+      List<LessonEntity> lessons = new ArrayList<>(repository.findByCourseId(courseId));
+      lessons.sort(LessonCatalog::byOrder);
+      if (lessons.isEmpty()) {
+        byCourse.remove(courseId);
+      } else {
+        byCourse.put(courseId, List.copyOf(lessons));
+      }
+      publish(byCourse, versions);
+    }
+  }
+
+  public void reload() {
+    synchronized (writeLock) {
+      Map<Long, List<LessonEntity>> grouped = new HashMap<>();
+      for (LessonEntity lesson : repository.findAll()) {
+        grouped.computeIfAbsent(lesson.courseId(), key -> new ArrayList<>()).add(lesson);
+      }
+      Map<Long, List<LessonEntity>> byCourse = new HashMap<>();
+      for (Map.Entry<Long, List<LessonEntity>> entry : grouped.entrySet()) {
+        List<LessonEntity> lessons = entry.getValue();
+        lessons.sort(LessonCatalog::byOrder);
+        byCourse.put(entry.getKey(), List.copyOf(lessons));
+      }
+      publish(byCourse, Map.of());
+      reloads.incrementAndGet();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    reloader.shutdownNow();
+  }
+
+  @Override
+  public String metricsName() {
+    return "lessonCatalog";
+  }
+
+  @Override
+  public Map<String, Object> metricsSnapshot() {
+    Snapshot current = snapshot;
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("loaded", current != null);
+    stats.put("version", current == null ? 0 : current.version());
+    stats.put("courses", current == null ? 0 : current.byCourse().size());
+    stats.put(
+        "lessons",
+        current == null ? 0 : current.byCourse().values().stream().mapToInt(List::size).sum());
+    stats.put("hits", hits.get());
+    stats.put("reloads", reloads.get());
+    stats.put("failedReloads", failedReloads.get());
+    return stats;
+  }
+
+  private Snapshot current() {
+    Snapshot current = snapshot;
+    if (current == null) {
+      reload();
+      current = snapshot;
+    }
+    return current;
+  }
+
+  // Caller holds writeLock.
+  private void publish(Map<Long, List<LessonEntity>> byCourse, Map<Long, Long> versions) {
+    long version = snapshot == null ? 1 : snapshot.version() + 1;
+    snapshot = new Snapshot(version, Map.copyOf(byCourse), Map.copyOf(versions));
+  }
+
+  // ORDER_NO, then ID so lessons sharing an order number keep a stable position.
+  private static int byOrder(LessonEntity left, LessonEntity right) {
+    int order = Integer.compare(left.orderNo(), right.orderNo());
+    return order != 0 ? order : Long.compare(left.id(), right.id());
+  }
+
+  private void reloadQuietly() {
+    try {
+      reload();
+    } catch (RuntimeException ex) {
+      failedReloads.incrementAndGet();
+      log.warn("Lesson catalog reload failed", ex);
+    }
+  }
+
+  private record Snapshot(
+      long version, Map<Long, List<LessonEntity>> byCourse, Map<Long, Long> versions) {}
+}
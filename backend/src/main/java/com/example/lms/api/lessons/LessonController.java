@@ -2,14 +2,21 @@ package com.example.lms.api.lessons;
 
 import com.example.lms.api.error.ApiException;
 import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.events.ContentChangedEvent;
 import com.example.lms.api.lessons.LessonDtos.LessonCreateRequest;
 import com.example.lms.api.lessons.LessonDtos.LessonResponse;
 import com.example.lms.api.lessons.LessonDtos.LessonUpdateRequest;
 import com.example.lms.api.lessons.LessonDtos.WatchedLessonResponse;
+import com.example.lms.api.paging.PageCursor;
+import com.example.lms.api.paging.PageResponse;
+import com.example.lms.api.paging.Paging;
 import com.example.lms.api.security.AuthContext;
 import com.example.lms.api.security.AuthUtil;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -20,14 +27,20 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/lessons")
 public class LessonController {
   private final LessonRepository repository;
+  private final LessonCatalog catalog;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public LessonController(LessonRepository repository) {
+  public LessonController(
+      LessonRepository repository, LessonCatalog catalog, ApplicationEventPublisher eventPublisher) {
     this.repository = repository;
+    this.catalog = catalog;
+    this.eventPublisher = eventPublisher;
   }
 
   @GetMapping
@@ -38,13 +51,52 @@ public class LessonController {
     AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
     AuthUtil.requireAdmin(ctx);
     List<LessonEntity> rows = courseId == null ? repository.findAll() : repository.findByCourseId(courseId);
-    return rows.stream().map(this::toResponse).toList();
+    return rows.stream().map(LessonController::toResponse).toList();
+  }
+
+  @GetMapping("/page")
+  public PageResponse<LessonResponse> page(
+      @RequestParam(name = "courseId", required = false) Long courseId,
+      @RequestParam(name = "title", required = false) String title,
+      @RequestParam(name = "match", defaultValue = "contains") String match,
+      @RequestParam(name = "sort", defaultValue = "id") String sort,
+      @RequestParam(name = "after", required = false) String after,
+      @RequestParam(name = "limit", defaultValue = "" + Paging.DEFAULT_LIMIT) int limit,
+      @RequestParam(name = "includeTotal", defaultValue = "false") boolean includeTotal,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    AuthUtil.requireAdmin(ctx);
+    Paging.requireLimit(limit);
+    if (!"id".equals(sort) && !"order".equals(sort)) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "sort must be id or order");
+    }
+    boolean byOrder = "order".equals(sort);
+    if (byOrder && courseId == null) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "sort=order requires courseId");
+    }
+    LessonPageQuery query = new LessonPageQuery(courseId, Paging.titlePattern(title, match), byOrder);
+    List<LessonEntity> rows = repository.findPage(query, PageCursor.decode(after), limit + 1);
+    return Paging.page(
+        rows,
+        limit,
+        row -> new PageCursor(byOrder ? Integer.toString(row.orderNo()) : "", row.id()),
+        LessonController::toResponse,
+        includeTotal ? repository.count(query) : null);
   }
 
   @GetMapping("/public")
-  public List<LessonResponse> listForLearner(@RequestParam(name = "courseId") Long courseId) {
-    List<LessonEntity> rows = repository.findByCourseId(courseId);
-    return rows.stream().map(this::toResponse).toList();
+  public ResponseEntity<List<LessonResponse>> listForLearner(
+      @RequestParam(name = "courseId") Long courseId, WebRequest webRequest) {
+    String etag = catalog.etag(courseId);
+    if (webRequest.checkNotModified(etag)) {
+      return null;
+    }
+    List<LessonEntity> rows = catalog.findByCourseId(courseId);
+    return ResponseEntity.ok()
+        .eTag(etag)
+        .cacheControl(CacheControl.noCache().cachePublic())
+        .body(rows.stream().map(LessonController::toResponse).toList());
   }
 
   @GetMapping("/watched")
@@ -87,6 +139,8 @@ public class LessonController {
             request.title(),
             request.content(),
             request.orderNo());
+    catalog.refreshCourse(request.courseId());
+    eventPublisher.publishEvent(ContentChangedEvent.lessons(request.courseId()));
     return toResponse(repository.findById(id));
   }
 
@@ -100,7 +154,10 @@ public class LessonController {
     AuthUtil.requireAdmin(ctx);
     validateUpdate(request);
     repository.update(id, request.title(), request.content(), request.orderNo());
-    return toResponse(repository.findById(id));
+    LessonEntity updated = repository.findById(id);
+    catalog.refreshCourse(updated.courseId());
+    eventPublisher.publishEvent(ContentChangedEvent.lessons(updated.courseId()));
+    return toResponse(updated);
   }
 
   @DeleteMapping("/{id}")
@@ -110,10 +167,13 @@ public class LessonController {
       @RequestHeader("X-Role") Optional<String> roleHeader) {
     AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
     AuthUtil.requireAdmin(ctx);
+    LessonEntity lesson = repository.findById(id);
     repository.delete(id);
+    catalog.refreshCourse(lesson.courseId());
+    eventPublisher.publishEvent(ContentChangedEvent.lessons(lesson.courseId()));
   }
 
-  private LessonResponse toResponse(LessonEntity entity) {
+  static LessonResponse toResponse(LessonEntity entity) {
     return new LessonResponse(
         entity.id(),
         entity.courseId(),
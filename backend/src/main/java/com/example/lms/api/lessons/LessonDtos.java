@@ -1,5 +1,7 @@
 package com.example.lms.api.lessons;
 
+import java.util.List;
+
 public class LessonDtos {
   public record LessonResponse(
       long id,
@@ -19,4 +21,14 @@ public class LessonDtos {
       double progressPercent) {}
   public record LessonCreateRequest(long courseId, String title, String content, int orderNo) {}
   public record LessonUpdateRequest(String title, String content, int orderNo) {}
+  public record LessonBulkItem(
+      Long id,
+      String title,
+      String content,
+      int orderNo,
+      String videoUrl,
+      Integer startSec,
+      Integer endSec) {}
+  public record LessonBulkRequest(List<LessonBulkItem> lessons) {}
+  public record LessonReorderRequest(List<Long> lessonIds) {}
 }
@@ -0,0 +1,11 @@
+package com.example.lms.api.lessons;
+
+record LessonEntity(
+    long id,
+    long courseId,
+    String title,
+    String content,
+    int orderNo,
+    String videoUrl,
+    Integer startSec,
+    Integer endSec) {}
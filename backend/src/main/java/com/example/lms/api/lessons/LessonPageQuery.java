@@ -0,0 +1,3 @@
+package com.example.lms.api.lessons;
+
+record LessonPageQuery(Long courseId, String titlePattern, boolean byOrder) {}
@@ -2,10 +2,14 @@ package com.example.lms.api.lessons;
 
 import com.example.lms.api.error.ApiException;
 import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.paging.PageCursor;
 import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
@@ -38,6 +42,40 @@ public class LessonRepository {
         courseId);
   }
 
+  // Keyset page; course order (ORDER_NO, ID within one course) is served by IDX_LESSONS_ORDER.
+  public List<LessonEntity> findPage(LessonPageQuery query, PageCursor after, int limit) {
+    List<Object> params = new ArrayList<>();
+    String sql =
+        "SELECT ID, COURSE_ID, TITLE, CONTENT, ORDER_NO, VIDEO_URL, START_SEC, END_SEC FROM LESSONS WHERE 1 = 1";
+    sql += filterSql(query, params);
+    if (query.byOrder()) {
+      if (after != null) {
+        int orderNo = after.sortInt();
+        sql += " AND (ORDER_NO > ? OR (ORDER_NO = ? AND ID > ?))";
+        params.add(orderNo);
+        params.add(orderNo);
+        params.add(after.id());
+      }
+      sql += " ORDER BY ORDER_NO, ID";
+    } else {
+      if (after != null) {
+        sql += " AND ID > ?";
+        params.add(after.id());
+      }
+      sql += " ORDER BY ID";
+    }
+    sql += " FETCH FIRST ? ROWS ONLY";
+    params.add(limit);
+    return jdbcTemplate.query(sql, mapper(), params.toArray());
+  }
+
+  public long count(LessonPageQuery query) {
+    List<Object> params = new ArrayList<>();
+    String sql = "SELECT COUNT(*) FROM LESSONS WHERE 1 = 1" + filterSql(query, params);
+    Long count = jdbcTemplate.queryForObject(sql, Long.class, params.toArray());
+    return count == null ? 0 : count;
+  }
+
   public LessonEntity findById(long id) {
     List<LessonEntity> rows =
         jdbcTemplate.query(
@@ -99,6 +137,83 @@ public class LessonRepository {
     }
   }
 
+  public void requireCourse(long courseId) {
+    if (!courseExists(courseId)) {
+      throw new ApiException(ErrorCode.NOT_FOUND, "Course not found");
+    }
+  }
+
+  public List<Long> findIdsByCourseId(long courseId) {
+    return jdbcTemplate.queryForList("SELECT ID FROM LESSONS WHERE COURSE_ID = ?", Long.class, courseId);
+  }
+
+  public void insertBatch(long courseId, List<LessonWrite> writes) {
+    if (writes.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(
+        """
+        INSERT INTO LESSONS (COURSE_ID, TITLE, CONTENT, ORDER_NO, VIDEO_URL, START_SEC, END_SEC)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        """,
+        writes,
+        writes.size(),
+        (ps, write) -> {
+          ps.setLong(1, courseId);
+          ps.setString(2, write.title());
+          ps.setString(3, write.content());
+          ps.setInt(4, write.orderNo());
+          ps.setString(5, write.videoUrl());
+          setNullableInt(ps, 6, write.startSec());
+          setNullableInt(ps, 7, write.endSec());
+        });
+  }
+
+  // Only rows of the given course are touched; an ID from another course fails the whole batch.
+  public void updateBatch(long courseId, List<LessonWrite> writes) {
+    if (writes.isEmpty()) {
+      return;
+    }
+    int[][] counts =
+        jdbcTemplate.batchUpdate(
+            """
+            UPDATE LESSONS
+            SET TITLE = ?, CONTENT = ?, ORDER_NO = ?, VIDEO_URL = ?, START_SEC = ?, END_SEC = ?
+            WHERE ID = ? AND COURSE_ID = ?
+            """,
+            writes,
+            writes.size(),
+            (ps, write) -> {
+              ps.setString(1, write.title());
+              ps.setString(2, write.content());
+              ps.setInt(3, write.orderNo());
+              ps.setString(4, write.videoUrl());
+              setNullableInt(ps, 5, write.startSec());
+              setNullableInt(ps, 6, write.endSec());
+              ps.setLong(7, write.id());
+              ps.setLong(8, courseId);
+            });
+    requireAllUpdated(counts, writes.stream().map(LessonWrite::id).toList());
+  }
+
+  public void reorder(long courseId, List<Long> lessonIds) {
+    if (lessonIds.isEmpty()) {
+      return;
+    }
+    List<Integer> positions = IntStream.range(0, lessonIds.size()).boxed().toList();
+    int[][] counts =
+        jdbcTemplate.batchUpdate(
+            "UPDATE LESSONS SET ORDER_NO = ? WHERE ID = ? AND COURSE_ID = ?",
+            positions,
+            positions.size(),
+            (ps, position) -> {
+              ps.setInt(1, position + 1);
+              ps.setLong(2, lessonIds.get(position));
+              ps.setLong(3, courseId);
+            });
+    requireAllUpdated(counts, lessonIds);
+  }
+
   public void delete(long id) {
     int deleted = jdbcTemplate.update("DELETE FROM LESSONS WHERE ID = ?", id);
     if (deleted == 0) {
@@ -130,6 +245,19 @@ public class LessonRepository {
             rs.getDouble("PROGRESS_PERCENT"));
   }
 
+  private String filterSql(LessonPageQuery query, List<Object> params) {
+    String sql = "";
+    if (query.courseId() != null) {
+      sql += " AND COURSE_ID = ?";
+      params.add(query.courseId());
+    }
+    if (query.titlePattern() != null) {
+      sql += " AND UPPER(TITLE) LIKE ? ESCAPE '\\'";
+      params.add(query.titlePattern());
+    }
+    return sql;
+  }
+
   private boolean courseExists(long courseId) {
     Integer count =
         jdbcTemplate.queryForObject(
@@ -139,26 +267,29 @@ public class LessonRepository {
     return count != null && count > 0;
   }
 
+  private void requireAllUpdated(int[][] counts, List<Long> ids) {
+    int index = 0;
+    for (int[] batch : counts) {
+      for (int count : batch) {
+        if (count == 0) {
+          throw new ApiException(ErrorCode.NOT_FOUND, "Lesson " + ids.get(index) + " not found in course");
+        }
+        index++;
+      }
+    }
+  }
+
+  private void setNullableInt(java.sql.PreparedStatement ps, int index, Integer value)
+      throws java.sql.SQLException {
+    if (value == null) {
+      ps.setNull(index, Types.INTEGER);
+    } else {
+      ps.setInt(index, value);
+    }
+  }
+
   private Integer getNullableInt(ResultSet rs, String column) throws java.sql.SQLException {
     int value = rs.getInt(column);
     return rs.wasNull() ? null : value;
   }
 }
-
-record LessonEntity(
-    long id,
-    long courseId,
-    String title,
-    String content,
-    int orderNo,
-    String videoUrl,
-    Integer startSec,
-    Integer endSec) {}
-
-record WatchedLessonRow(
-    long lessonId,
-    long courseId,
-    String courseTitle,
-    String lessonTitle,
-    String lessonContent,
-    double progressPercent) {}
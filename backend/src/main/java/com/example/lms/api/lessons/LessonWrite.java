@@ -0,0 +1,10 @@
+package com.example.lms.api.lessons;
+
+record LessonWrite(
+    Long id,
+    String title,
+    String content,
+    int orderNo,
+    String videoUrl,
+    Integer startSec,
+    Integer endSec) {}
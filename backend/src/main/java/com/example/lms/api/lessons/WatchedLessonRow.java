@@ -0,0 +1,9 @@
+package com.example.lms.api.lessons;
+
+record WatchedLessonRow(
+    long lessonId,
+    long courseId,
+    String courseTitle,
+    String lessonTitle,
+    String lessonContent,
+    double progressPercent) {}
@@ -0,0 +1,35 @@
+package com.example.lms.api.metrics;
+
+import com.example.lms.api.security.AuthContext;
+import com.example.lms.api.security.AuthUtil;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+  private final List<MetricsSource> sources;
+
+  public MetricsController(List<MetricsSource> sources) {
+    this.sources = sources;
+  }
+
+  @GetMapping
+  public Map<String, Map<String, Object>> list(
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    AuthUtil.requireAdmin(ctx);
+    Map<String, Map<String, Object>> result = new TreeMap<>();
+    for (MetricsSource source : sources) {
+      result.put(source.metricsName(), source.metricsSnapshot());
+    }
+    return result;
+  }
+}
@@ -0,0 +1,9 @@
+package com.example.lms.api.metrics;
+
+import java.util.Map;
+
+public interface MetricsSource {
+  String metricsName();
+
+  Map<String, Object> metricsSnapshot();
+}
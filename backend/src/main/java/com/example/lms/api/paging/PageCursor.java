@@ -0,0 +1,44 @@
+package com.example.lms.api.paging;
+
+import com.example.lms.api.error.ApiException;
+import com.example.lms.api.error.ErrorCode;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+// Opaque keyset position for listings: the sort value and ID of the last row returned.
+public record PageCursor(String sortValue, long id) {
+  public static PageCursor decode(String token) {
+    if (token == null || token.isBlank()) {
+      return null;
+    }
+    try {
+      String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int separator = value.lastIndexOf(':');
+      return new PageCursor(value.substring(0, separator), Long.parseLong(value.substring(separator + 1)));
+    } catch (RuntimeException ex) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "Invalid cursor");
+    }
+  }
+
+  public String encode() {
+    String value = sortValue + ":" + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public Instant sortInstant() {
+    try {
+      return Instant.parse(sortValue);
+    } catch (RuntimeException ex) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "Cursor does not match sort");
+    }
+  }
+
+  public int sortInt() {
+    try {
+      return Integer.parseInt(sortValue);
+    } catch (RuntimeException ex) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "Cursor does not match sort");
+    }
+  }
+}
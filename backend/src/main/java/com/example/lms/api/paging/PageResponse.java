@@ -0,0 +1,6 @@
+package com.example.lms.api.paging;
+
+import java.util.List;
+
+// total is only filled when the caller asked for it (includeTotal=true).
+public record PageResponse<T>(List<T> items, String nextCursor, Long total) {}
@@ -0,0 +1,46 @@
+package com.example.lms.api.paging;
+
+import com.example.lms.api.error.ApiException;
+import com.example.lms.api.error.ErrorCode;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+public final class Paging {
+  public static final int DEFAULT_LIMIT = 50;
+  public static final int MAX_LIMIT = 500;
+
+  private Paging() {}
+
+  public static void requireLimit(int limit) {
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "limit must be between 1 and " + MAX_LIMIT);
+    }
+  }
+
+  // Case-insensitive LIKE pattern (compare against UPPER(column) with ESCAPE '\'). LIKE wildcards
+  // typed by the user are matched literally.
+  public static String titlePattern(String title, String match) {
+    if (title == null || title.isBlank()) {
+      return null;
+    }
+    String escaped =
+        title.trim().toUpperCase(Locale.ROOT).replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    return switch (match) {
+      case "prefix" -> escaped + "%";
+      case "contains" -> "%" + escaped + "%";
+      default -> throw new ApiException(ErrorCode.VALIDATION_ERROR, "match must be prefix or contains");
+    };
+  }
+
+  // Rows were fetched with limit + 1; the extra row only signals that another page exists.
+  public static <E, T> PageResponse<T> page(
+      List<E> rows, int limit, Function<E, PageCursor> cursor, Function<E, T> mapper, Long total) {
+    if (rows.size() <= limit) {
+      return new PageResponse<>(rows.stream().map(mapper).toList(), null, total);
+    }
+    List<E> items = rows.subList(0, limit);
+    return new PageResponse<>(
+        items.stream().map(mapper).toList(), cursor.apply(items.get(limit - 1)).encode(), total);
+  }
+}
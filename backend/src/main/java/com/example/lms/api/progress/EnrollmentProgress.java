@@ -0,0 +1,12 @@
+package com.example.lms.api.progress;
+
+import java.time.Instant;
+import java.util.List;
+
+record EnrollmentProgress(
+    long enrollmentId,
+    long userId,
+    long courseId,
+    String status,
+    Instant enrolledAt,
+    List<ProgressEntity> rows) {}
@@ -1,14 +1,23 @@
 package com.example.lms.api.progress;
 
+import com.example.lms.api.enrollments.EnrollmentAuth;
 import com.example.lms.api.enrollments.EnrollmentRepository;
 import com.example.lms.api.error.ApiException;
 import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.events.ReportDataChangedEvent;
 import com.example.lms.api.progress.ProgressDtos.ProgressResponse;
 import com.example.lms.api.progress.ProgressDtos.ProgressUpdateRequest;
 import com.example.lms.api.security.AuthContext;
 import com.example.lms.api.security.AuthUtil;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -16,61 +25,179 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/progress")
 public class ProgressController {
+  private static final int MAX_BATCH_SIZE = 500;
+  private static final String VERSION_HEADER = "X-Progress-Version";
+
   private final ProgressRepository progressRepository;
   private final EnrollmentRepository enrollmentRepository;
+  private final ProgressWriteBuffer writeBuffer;
+  private final ProgressEventLog eventLog;
+  private final ProgressQueries progressQueries;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public ProgressController(ProgressRepository progressRepository, EnrollmentRepository enrollmentRepository) {
+  public ProgressController(
+      ProgressRepository progressRepository,
+      EnrollmentRepository enrollmentRepository,
+      ProgressWriteBuffer writeBuffer,
+      ProgressEventLog eventLog,
+      ProgressQueries progressQueries,
+      ApplicationEventPublisher eventPublisher) {
     this.progressRepository = progressRepository;
     this.enrollmentRepository = enrollmentRepository;
+    this.writeBuffer = writeBuffer;
+    this.eventLog = eventLog;
+    this.progressQueries = progressQueries;
+    this.eventPublisher = eventPublisher;
   }
 
   @GetMapping
-  public List<ProgressResponse> list(
+  public ResponseEntity<List<ProgressResponse>> list(
       @RequestParam("enrollmentId") long enrollmentId,
+      @RequestParam(name = "sinceVersion", required = false) Long sinceVersion,
       @RequestHeader("X-User-Id") Optional<String> userIdHeader,
-      @RequestHeader("X-Role") Optional<String> roleHeader) {
+      @RequestHeader("X-Role") Optional<String> roleHeader,
+      WebRequest webRequest) {
     AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
     AuthUtil.requireLearner(ctx);
     enrollmentRepository.requireOwnedByUser(enrollmentId, ctx.userId());
-    return progressRepository.findByEnrollmentId(enrollmentId).stream().map(this::toResponse).toList();
+    List<ProgressWrite> unflushed = progressQueries.unflushedWrites(enrollmentId);
+    ProgressVersion version = progressRepository.findVersion(enrollmentId);
+    if (!unflushed.isEmpty()) {
+      // Unflushed writes have no CHANGE_VERSION yet, so the response gets no ETag. The version
+      // header stays at the flushed high water; the next delta returns these rows once flushed.
+      List<ProgressEntity> rows =
+          sinceVersion == null
+              ? progressRepository.findByEnrollmentId(enrollmentId)
+              : progressRepository.findChangedSince(
+                  enrollmentId,
+                  sinceVersion,
+                  unflushed.stream().map(ProgressWrite::lessonId).distinct().toList());
+      return ResponseEntity.ok()
+          .cacheControl(CacheControl.noStore())
+          .header(VERSION_HEADER, Long.toString(version.maxVersion()))
+          .body(
+              ProgressWrites.overlay(rows, unflushed).stream()
+                  .map(ProgressQueries::toResponse)
+                  .toList());
+    }
+    String etag = "\"p" + enrollmentId + "-v" + version.maxVersion() + "-n" + version.rowCount() + "\"";
+    if (webRequest.checkNotModified(etag)) {
+      return null;
+    }
+    List<ProgressEntity> rows =
+        sinceVersion == null
+            ? progressRepository.findByEnrollmentId(enrollmentId)
+            : progressRepository.findChangedSince(enrollmentId, sinceVersion);
+    return ResponseEntity.ok()
+        .eTag(etag)
+        .cacheControl(CacheControl.noCache().cachePrivate())
+        .header(VERSION_HEADER, Long.toString(version.maxVersion()))
+        .body(rows.stream().map(ProgressQueries::toResponse).toList());
   }
 
   @PostMapping
-  public ProgressResponse update(
+  public ResponseEntity<ProgressResponse> update(
       @RequestBody ProgressUpdateRequest request,
       @RequestHeader("X-User-Id") Optional<String> userIdHeader,
       @RequestHeader("X-Role") Optional<String> roleHeader) {
     AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
     AuthUtil.requireLearner(ctx);
     validateRequest(request);
-    enrollmentRepository.requireOwnedByUser(request.enrollmentId(), ctx.userId());
-    String status = enrollmentRepository.findStatusById(request.enrollmentId());
-    if (isPending(status)) {
-      throw new ApiException(ErrorCode.FORBIDDEN, "Enrollment pending approval");
-    }
     boolean completed = request.progressPercent() >= 100.0;
-    long id =
-        progressRepository.upsert(
+    ProgressWrite write =
+        new ProgressWrite(
             request.enrollmentId(),
             request.lessonId(),
             request.progressPercent(),
             completed,
             request.lastPositionSec());
-    return toResponse(progressRepository.findById(id));
+    if (eventLog.isEnabled()) {
+      requireWritable(request.enrollmentId(), ctx.userId());
+      eventLog.append(List.of(write));
+      return ResponseEntity.accepted().body(ProgressQueries.toResponse(ProgressWrites.toEntity(write)));
+    }
+    if (writeBuffer.isEnabled() && !completed) {
+      requireWritable(request.enrollmentId(), ctx.userId());
+      ProgressWrite buffered = writeBuffer.offer(write);
+      if (buffered != null) {
+        return ResponseEntity.accepted().body(ProgressQueries.toResponse(ProgressWrites.toEntity(buffered)));
+      }
+      // Buffer full or shutting down: fall through to a synchronous write.
+    }
+    ProgressUpsertResult result =
+        writeBuffer.writeThrough(
+            List.of(write), writes -> progressRepository.upsertOwned(ctx.userId(), writes.get(0)));
+    if ("FORBIDDEN".equals(result.outcome())) {
+      throw new ApiException(ErrorCode.FORBIDDEN, "Enrollment does not belong to user");
+    }
+    if ("PENDING".equals(result.outcome())) {
+      throw new ApiException(ErrorCode.FORBIDDEN, "Enrollment pending approval");
+    }
+    eventPublisher.publishEvent(
+        ReportDataChangedEvent.forEnrollments(
+            ReportDataChangedEvent.Source.PROGRESS, Set.of(request.enrollmentId())));
+    return ResponseEntity.ok(ProgressQueries.toResponse(result.row()));
+  }
+
+  @PostMapping("/batch")
+  public List<ProgressResponse> updateBatch(
+      @RequestBody List<ProgressUpdateRequest> requests,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    AuthUtil.requireLearner(ctx);
+    if (requests == null || requests.isEmpty()) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "At least one progress entry is required");
+    }
+    if (requests.size() > MAX_BATCH_SIZE) {
+      throw new ApiException(
+          ErrorCode.VALIDATION_ERROR, "At most " + MAX_BATCH_SIZE + " progress entries per batch");
+    }
+    List<ProgressWrite> requested = new ArrayList<>(requests.size());
+    for (ProgressUpdateRequest request : requests) {
+      validateRequest(request);
+      requested.add(
+          new ProgressWrite(
+              request.enrollmentId(),
+              request.lessonId(),
+              request.progressPercent(),
+              request.progressPercent() >= 100.0,
+              request.lastPositionSec()));
+    }
+    Map<ProgressWrites.Key, ProgressWrite> writesByKey = ProgressWrites.fold(requested);
+    Set<Long> enrollmentIds = new LinkedHashSet<>();
+    for (ProgressWrite write : writesByKey.values()) {
+      if (enrollmentIds.add(write.enrollmentId())) {
+        requireWritable(write.enrollmentId(), ctx.userId());
+      }
+    }
+    if (eventLog.isEnabled()) {
+      eventLog.append(requested);
+      return writesByKey.values().stream()
+          .map(ProgressWrites::toEntity)
+          .map(ProgressQueries::toResponse)
+          .toList();
+    }
+    List<ProgressWrite> writes = new ArrayList<>(writesByKey.values());
+    writeBuffer.writeThrough(writes, progressRepository::upsertBatch);
+    eventPublisher.publishEvent(
+        ReportDataChangedEvent.forEnrollments(ReportDataChangedEvent.Source.PROGRESS, enrollmentIds));
+    return progressRepository.findByEnrollmentIds(enrollmentIds).stream()
+        .filter(row -> writesByKey.containsKey(new ProgressWrites.Key(row.enrollmentId(), row.lessonId())))
+        .map(ProgressQueries::toResponse)
+        .toList();
   }
 
-  private ProgressResponse toResponse(ProgressEntity entity) {
-    return new ProgressResponse(
-        entity.id(),
-        entity.enrollmentId(),
-        entity.lessonId(),
-        entity.progressPercent(),
-        entity.completedAt() == null ? null : entity.completedAt().toString(),
-        entity.lastPositionSec());
+  private void requireWritable(long enrollmentId, long userId) {
+    EnrollmentAuth auth = enrollmentRepository.requireOwnedByUser(enrollmentId, userId);
+    if (auth.isPending()) {
+      throw new ApiException(ErrorCode.FORBIDDEN, "Enrollment pending approval");
+    }
   }
 
   private void validateRequest(ProgressUpdateRequest request) {
@@ -84,8 +211,4 @@ public class ProgressController {
       throw new ApiException(ErrorCode.VALIDATION_ERROR, "Last position must be >= 0");
     }
   }
-
-  private boolean isPending(String status) {
-    return status != null && "PENDING".equalsIgnoreCase(status.trim());
-  }
 }
@@ -1,5 +1,8 @@
 package com.example.lms.api.progress;
 
+import com.example.lms.api.enrollments.EnrollmentDtos.EnrollmentResponse;
+import java.util.List;
+
 public class ProgressDtos {
   public record ProgressResponse(
       long id,
@@ -7,11 +10,14 @@ public class ProgressDtos {
       long lessonId,
       double progressPercent,
       String completedAt,
-      Double lastPositionSec) {}
+      Double lastPositionSec,
+      long changeVersion) {}
 
   public record ProgressUpdateRequest(
       long enrollmentId,
       long lessonId,
       double progressPercent,
       Double lastPositionSec) {}
+
+  public record LearnerCourseProgress(EnrollmentResponse enrollment, List<ProgressResponse> progress) {}
 }
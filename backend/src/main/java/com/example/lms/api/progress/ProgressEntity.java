@@ -0,0 +1,12 @@
+package com.example.lms.api.progress;
+
+import java.time.Instant;
+
+record ProgressEntity(
+    long id,
+    long enrollmentId,
+    long lessonId,
+    double progressPercent,
+    Instant completedAt,
+    Double lastPositionSec,
+    long changeVersion) {}
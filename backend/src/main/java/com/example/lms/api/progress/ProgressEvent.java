@@ -0,0 +1,3 @@
+package com.example.lms.api.progress;
+
+record ProgressEvent(long id, ProgressWrite write) {}
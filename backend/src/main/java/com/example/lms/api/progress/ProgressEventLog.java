@@ -0,0 +1,178 @@
+package com.example.lms.api.progress;
+
+import com.example.lms.api.concurrent.DaemonThreads;
+import com.example.lms.api.events.ReportDataChangedEvent;
+import com.example.lms.api.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Insert-only ingestion mode: progress writes are appended to PROGRESS_EVENTS and a background job
+// folds them into PROGRESS in bulk. Events are kept after compaction for watch-time analytics.
+@Component
+public class ProgressEventLog implements MetricsSource {
+  private static final Logger log = LoggerFactory.getLogger(ProgressEventLog.class);
+
+  private final ProgressEventRepository eventRepository;
+  private final ProgressRepository progressRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final boolean enabled;
+  private final int compactBatchSize;
+  private final int settleSeconds;
+  private final long compactIntervalMs;
+  private final ScheduledExecutorService compactor;
+
+  private final AtomicLong appendedEvents = new AtomicLong();
+  private final AtomicLong compactedEvents = new AtomicLong();
+  private final AtomicLong compactedRows = new AtomicLong();
+  private final AtomicLong compactionRuns = new AtomicLong();
+  private final AtomicLong failedCompactions = new AtomicLong();
+  private final AtomicLong watermark = new AtomicLong();
+
+  public ProgressEventLog(
+      ProgressEventRepository eventRepository,
+      ProgressRepository progressRepository,
+      PlatformTransactionManager transactionManager,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${lms.progress.event-log.enabled:false}") boolean enabled,
+      @Value("${lms.progress.event-log.compact-batch-size:5000}") int compactBatchSize,
+      @Value("${lms.progress.event-log.settle-seconds:2}") int settleSeconds,
+      @Value("${lms.progress.event-log.compact-interval-ms:5000}") long compactIntervalMs) {
+    this.eventRepository = eventRepository;
+    this.progressRepository = progressRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.eventPublisher = eventPublisher;
+    this.enabled = enabled;
+    this.compactBatchSize = Math.max(1, compactBatchSize);
+    this.settleSeconds = Math.max(0, settleSeconds);
+    this.compactIntervalMs = compactIntervalMs;
+    this.compactor = enabled ? DaemonThreads.scheduler("progress-event-compactor") : null;
+  }
+
+  @PostConstruct
+  public void start() {
+    if (compactor != null) {
+      compactor.scheduleWithFixedDelay(
+          this::compactQuietly, compactIntervalMs, compactIntervalMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void append(List<ProgressWrite> writes) {
+    if (writes.isEmpty()) {
+      return;
+    }
+    eventRepository.appendAll(writes);
+    appendedEvents.addAndGet(writes.size());
+  }
+
+  public List<ProgressWrite> uncompacted(long enrollmentId) {
+    if (!enabled) {
+      return List.of();
+    }
+    return eventRepository.findUncompacted(enrollmentId);
+  }
+
+  public int compact() {
+    int total = 0;
+    while (true) {
+      Set<Long> enrollmentIds = new HashSet<>();
+      Integer compacted = transactionTemplate.execute(status -> compactBatch(enrollmentIds));
+      if (compacted == null || compacted == 0) {
+        return total;
+      }
+      // Published after commit so cached reports are never reloaded from the uncommitted batch.
+      eventPublisher.publishEvent(
+          ReportDataChangedEvent.forEnrollments(ReportDataChangedEvent.Source.PROGRESS, enrollmentIds));
+      total += compacted;
+      if (compacted < compactBatchSize) {
+        return total;
+      }
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (!enabled) {
+      return;
+    }
+    compactor.shutdown();
+    try {
+      compactor.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public String metricsName() {
+    return "progressEventLog";
+  }
+
+  @Override
+  public Map<String, Object> metricsSnapshot() {
+    Map<String, Object> snapshot = new LinkedHashMap<>();
+    snapshot.put("enabled", enabled);
+    snapshot.put("appendedEvents", appendedEvents.get());
+    snapshot.put("compactedEvents", compactedEvents.get());
+    snapshot.put("compactedRows", compactedRows.get());
+    snapshot.put("compactionRuns", compactionRuns.get());
+    snapshot.put("failedCompactions", failedCompactions.get());
+    snapshot.put("watermark", watermark.get());
+    return snapshot;
+  }
+
+  private int compactBatch(Set<Long> enrollmentIds) {
+    long lastEventId = eventRepository.lockWatermark();
+    List<ProgressEvent> events =
+        eventRepository.findCompactable(lastEventId, compactBatchSize, settleSeconds);
+    if (events.isEmpty()) {
+      watermark.set(lastEventId);
+      return 0;
+    }
+    List<ProgressWrite> writes = new ArrayList<>(events.size());
+    for (ProgressEvent event : events) {
+      writes.add(event.write());
+    }
+    List<ProgressWrite> folded = new ArrayList<>(ProgressWrites.fold(writes).values());
+    progressRepository.upsertBatch(folded);
+    for (ProgressWrite write : folded) {
+      enrollmentIds.add(write.enrollmentId());
+    }
+    long newWatermark = events.get(events.size() - 1).id();
+    eventRepository.advanceWatermark(newWatermark);
+    compactionRuns.incrementAndGet();
+    compactedEvents.addAndGet(events.size());
+    compactedRows.addAndGet(folded.size());
+    watermark.set(newWatermark);
+    return events.size();
+  }
+
+  private void compactQuietly() {
+    try {
+      compact();
+    } catch (RuntimeException ex) {
+      failedCompactions.incrementAndGet();
+      log.warn("Progress event compaction failed", ex);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package com.example.lms.api.progress;
+
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ProgressEventRepository {
+  private final JdbcTemplate jdbcTemplate;
+
+  public ProgressEventRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public void appendAll(List<ProgressWrite> writes) {
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO PROGRESS_EVENTS (ENROLLMENT_ID, LESSON_ID, PROGRESS_PERCENT, LAST_POSITION_SEC) VALUES (?, ?, ?, ?)",
+        writes,
+        writes.size(),
+        (ps, write) -> {
+          ps.setLong(1, write.enrollmentId());
+          ps.setLong(2, write.lessonId());
+          ps.setDouble(3, write.progressPercent());
+          if (write.lastPositionSec() == null) {
+            ps.setNull(4, Types.NUMERIC);
+          } else {
+            ps.setDouble(4, write.lastPositionSec());
+          }
+        });
+  }
+
+  public List<ProgressWrite> findUncompacted(long enrollmentId) {
+    return jdbcTemplate.query(
+        """
+        SELECT ID, ENROLLMENT_ID, LESSON_ID, PROGRESS_PERCENT, LAST_POSITION_SEC
+        FROM PROGRESS_EVENTS
+        WHERE ENROLLMENT_ID = ?
+          AND ID > (SELECT LAST_EVENT_ID FROM PROGRESS_EVENT_COMPACTION WHERE ID = 1)
+        ORDER BY ID
+        """,
+        writeMapper(),
+        enrollmentId);
+  }
+
+  public long lockWatermark() {
+    Long watermark =
+        jdbcTemplate.queryForObject(
+            "SELECT LAST_EVENT_ID FROM PROGRESS_EVENT_COMPACTION WHERE ID = 1 FOR UPDATE",
+            Long.class);
+    return watermark == null ? 0L : watermark;
+  }
+
+  // Events younger than settleSeconds are left for the next run, so an insert whose identity
+  // value was allocated before a later one but committed after it is not skipped.
+  public List<ProgressEvent> findCompactable(long afterEventId, int limit, int settleSeconds) {
+    return jdbcTemplate.query(
+        """
+        SELECT ID, ENROLLMENT_ID, LESSON_ID, PROGRESS_PERCENT, LAST_POSITION_SEC
+        FROM PROGRESS_EVENTS
+        WHERE ID > ?
+          AND CREATED_AT < SYSTIMESTAMP - NUMTODSINTERVAL(?, 'SECOND')
+        ORDER BY ID
+        FETCH FIRST ? ROWS ONLY
+        """,
+        (ResultSet rs, int rowNum) ->
+            new ProgressEvent(rs.getLong("ID"), writeMapper().mapRow(rs, rowNum)),
+        afterEventId,
+        settleSeconds,
+        limit);
+  }
+
+  public void advanceWatermark(long lastEventId) {
+    jdbcTemplate.update(
+        "UPDATE PROGRESS_EVENT_COMPACTION SET LAST_EVENT_ID = ?, UPDATED_AT = SYSTIMESTAMP WHERE ID = 1",
+        lastEventId);
+  }
+
+  private RowMapper<ProgressWrite> writeMapper() {
+    return (ResultSet rs, int rowNum) -> {
+      double percent = rs.getDouble("PROGRESS_PERCENT");
+      double position = rs.getDouble("LAST_POSITION_SEC");
+      Double lastPositionSec = rs.wasNull() ? null : position;
+      return new ProgressWrite(
+          rs.getLong("ENROLLMENT_ID"),
+          rs.getLong("LESSON_ID"),
+          percent,
+          percent >= 100.0,
+          lastPositionSec);
+    };
+  }
+}
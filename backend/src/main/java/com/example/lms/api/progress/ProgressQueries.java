@@ -0,0 +1,69 @@
+package com.example.lms.api.progress;
+
+import com.example.lms.api.enrollments.EnrollmentDtos.EnrollmentResponse;
+import com.example.lms.api.progress.ProgressDtos.LearnerCourseProgress;
+import com.example.lms.api.progress.ProgressDtos.ProgressResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.stereotype.Component;
+
+// Progress reads as the learner sees them: PROGRESS rows with not-yet-flushed writes from the
+// event log and write-behind buffer laid over them.
+@Component
+public class ProgressQueries {
+  private final ProgressRepository progressRepository;
+  private final ProgressWriteBuffer writeBuffer;
+  private final ProgressEventLog eventLog;
+
+  public ProgressQueries(
+      ProgressRepository progressRepository,
+      ProgressWriteBuffer writeBuffer,
+      ProgressEventLog eventLog) {
+    this.progressRepository = progressRepository;
+    this.writeBuffer = writeBuffer;
+    this.eventLog = eventLog;
+  }
+
+  public Optional<LearnerCourseProgress> findLearnerCourse(long userId, long courseId) {
+    return progressRepository
+        .findEnrollmentWithProgress(userId, courseId)
+        .map(
+            found ->
+                new LearnerCourseProgress(
+                    new EnrollmentResponse(
+                        found.enrollmentId(),
+                        found.userId(),
+                        found.courseId(),
+                        found.status(),
+                        found.enrolledAt().toString()),
+                    ProgressWrites.overlay(found.rows(), unflushedWrites(found.enrollmentId())).stream()
+                        .map(ProgressQueries::toResponse)
+                        .toList()));
+  }
+
+  List<ProgressWrite> unflushedWrites(long enrollmentId) {
+    List<ProgressWrite> events = eventLog.uncompacted(enrollmentId);
+    List<ProgressWrite> buffered = writeBuffer.pendingFor(enrollmentId);
+    if (events.isEmpty()) {
+      return buffered;
+    }
+    if (buffered.isEmpty()) {
+      return events;
+    }
+    List<ProgressWrite> combined = new ArrayList<>(events);
+    combined.addAll(buffered);
+    return combined;
+  }
+
+  static ProgressResponse toResponse(ProgressEntity entity) {
+    return new ProgressResponse(
+        entity.id(),
+        entity.enrollmentId(),
+        entity.lessonId(),
+        entity.progressPercent(),
+        entity.completedAt() == null ? null : entity.completedAt().toString(),
+        entity.lastPositionSec(),
+        entity.changeVersion());
+  }
+}
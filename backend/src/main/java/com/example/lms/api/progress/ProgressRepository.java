@@ -1,82 +1,311 @@
 package com.example.lms.api.progress;
 
-import com.example.lms.api.error.ApiException;
-import com.example.lms.api.error.ErrorCode;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
 import java.time.Instant;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public class ProgressRepository {
+  private static final String UPSERT_SQL =
+      """
+      MERGE INTO PROGRESS p
+      USING (
+        SELECT
+          CAST(? AS NUMBER) AS ENROLLMENT_ID,
+          CAST(? AS NUMBER) AS LESSON_ID,
+          CAST(? AS NUMBER) AS PROGRESS_PERCENT,
+          CAST(? AS TIMESTAMP) AS COMPLETED_AT,
+          CAST(? AS NUMBER) AS LAST_POSITION_SEC
+        FROM DUAL
+      ) s
+      ON (p.ENROLLMENT_ID = s.ENROLLMENT_ID AND p.LESSON_ID = s.LESSON_ID)
+      WHEN MATCHED THEN UPDATE SET
+        p.PROGRESS_PERCENT = s.PROGRESS_PERCENT,
+        p.COMPLETED_AT = s.COMPLETED_AT,
+        p.LAST_POSITION_SEC = NVL(s.LAST_POSITION_SEC, p.LAST_POSITION_SEC)
+      WHEN NOT MATCHED THEN INSERT (ENROLLMENT_ID, LESSON_ID, PROGRESS_PERCENT, COMPLETED_AT, LAST_POSITION_SEC)
+        VALUES (s.ENROLLMENT_ID, s.LESSON_ID, s.PROGRESS_PERCENT, s.COMPLETED_AT, s.LAST_POSITION_SEC)
+      """;
+
   private final JdbcTemplate jdbcTemplate;
-  private final SimpleJdbcInsert insert;
 
   public ProgressRepository(JdbcTemplate jdbcTemplate) {
     this.jdbcTemplate = jdbcTemplate;
-    this.insert =
-        new SimpleJdbcInsert(jdbcTemplate)
-            .withTableName("PROGRESS")
-            .usingGeneratedKeyColumns("ID")
-            .usingColumns(
-                "ENROLLMENT_ID", "LESSON_ID", "PROGRESS_PERCENT", "COMPLETED_AT", "LAST_POSITION_SEC");
   }
 
   public List<ProgressEntity> findByEnrollmentId(long enrollmentId) {
     return jdbcTemplate.query(
-        "SELECT ID, ENROLLMENT_ID, LESSON_ID, PROGRESS_PERCENT, COMPLETED_AT, LAST_POSITION_SEC FROM PROGRESS WHERE ENROLLMENT_ID = ? ORDER BY ID",
+        "SELECT ID, ENROLLMENT_ID, LESSON_ID, PROGRESS_PERCENT, COMPLETED_AT, LAST_POSITION_SEC, CHANGE_VERSION FROM PROGRESS WHERE ENROLLMENT_ID = ? ORDER BY ID",
         mapper(),
         enrollmentId);
   }
 
-  public long upsert(
-      long enrollmentId,
-      long lessonId,
-      double progressPercent,
-      boolean completed,
-      Double lastPositionSec) {
-    List<Long> ids =
-        jdbcTemplate.query(
-            "SELECT ID FROM PROGRESS WHERE ENROLLMENT_ID = ? AND LESSON_ID = ?",
-            (rs, rowNum) -> rs.getLong("ID"),
-            enrollmentId,
-            lessonId);
-    if (ids.isEmpty()) {
-      Map<String, Object> params = new HashMap<>();
-      params.put("ENROLLMENT_ID", enrollmentId);
-      params.put("LESSON_ID", lessonId);
-      params.put("PROGRESS_PERCENT", progressPercent);
-      params.put("COMPLETED_AT", completed ? java.sql.Timestamp.from(Instant.now()) : null);
-      params.put("LAST_POSITION_SEC", lastPositionSec);
-      Number id = insert.executeAndReturnKey(params);
-      return id.longValue();
+  public List<ProgressEntity> findChangedSince(long enrollmentId, long sinceVersion) {
+    return jdbcTemplate.query(
+        "SELECT ID, ENROLLMENT_ID, LESSON_ID, PROGRESS_PERCENT, COMPLETED_AT, LAST_POSITION_SEC, CHANGE_VERSION FROM PROGRESS WHERE ENROLLMENT_ID = ? AND CHANGE_VERSION > ? ORDER BY CHANGE_VERSION",
+        mapper(),
+        enrollmentId,
+        sinceVersion);
+  }
+
+  // Delta plus the current rows of lessons that still have unflushed writes, so those can be
+  // overlaid onto their stored id and version.
+  public List<ProgressEntity> findChangedSince(
+      long enrollmentId, long sinceVersion, Collection<Long> lessonIds) {
+    if (lessonIds.isEmpty()) {
+      return findChangedSince(enrollmentId, sinceVersion);
     }
+    List<Object> params = new ArrayList<>(lessonIds.size() + 2);
+    params.add(enrollmentId);
+    params.add(sinceVersion);
+    params.addAll(lessonIds);
+    return jdbcTemplate.query(
+        "SELECT ID, ENROLLMENT_ID, LESSON_ID, PROGRESS_PERCENT, COMPLETED_AT, LAST_POSITION_SEC, CHANGE_VERSION FROM PROGRESS WHERE ENROLLMENT_ID = ? AND (CHANGE_VERSION > ? OR LESSON_ID IN ("
+            + String.join(", ", Collections.nCopies(lessonIds.size(), "?"))
+            + ")) ORDER BY CHANGE_VERSION",
+        mapper(),
+        params.toArray());
+  }
 
-    long id = ids.get(0);
-    jdbcTemplate.update(
-        "UPDATE PROGRESS SET PROGRESS_PERCENT = ?, COMPLETED_AT = ?, LAST_POSITION_SEC = NVL(?, LAST_POSITION_SEC) WHERE ID = ?",
-        progressPercent,
-        completed ? java.sql.Timestamp.from(Instant.now()) : null,
-        lastPositionSec,
-        id);
-    return id;
+  public ProgressVersion findVersion(long enrollmentId) {
+    return jdbcTemplate.queryForObject(
+        "SELECT NVL(MAX(CHANGE_VERSION), 0) AS MAX_VERSION, COUNT(*) AS ROW_COUNT FROM PROGRESS WHERE ENROLLMENT_ID = ?",
+        (ResultSet rs, int rowNum) -> new ProgressVersion(rs.getLong("MAX_VERSION"), rs.getLong("ROW_COUNT")),
+        enrollmentId);
   }
 
-  public ProgressEntity findById(long id) {
-    List<ProgressEntity> rows =
-        jdbcTemplate.query(
-            "SELECT ID, ENROLLMENT_ID, LESSON_ID, PROGRESS_PERCENT, COMPLETED_AT, LAST_POSITION_SEC FROM PROGRESS WHERE ID = ?",
-            mapper(),
-            id);
-    if (rows.isEmpty()) {
-      throw new ApiException(ErrorCode.NOT_FOUND, "Progress not found");
+  // Latest enrollment of the user in the course plus its progress rows, in one round trip.
+  public Optional<EnrollmentProgress> findEnrollmentWithProgress(long userId, long courseId) {
+    return jdbcTemplate.query(
+        """
+        SELECT e.ID AS E_ID, e.USER_ID, e.COURSE_ID, e.STATUS, e.ENROLLED_AT,
+               p.ID, p.ENROLLMENT_ID, p.LESSON_ID, p.PROGRESS_PERCENT, p.COMPLETED_AT,
+               p.LAST_POSITION_SEC, p.CHANGE_VERSION
+        FROM (
+          SELECT ID, USER_ID, COURSE_ID, STATUS, ENROLLED_AT
+          FROM ENROLLMENTS
+          WHERE USER_ID = ? AND COURSE_ID = ?
+          ORDER BY ENROLLED_AT DESC
+          FETCH FIRST 1 ROWS ONLY
+        ) e
+        LEFT JOIN PROGRESS p ON p.ENROLLMENT_ID = e.ID
+        ORDER BY p.ID
+        """,
+        (ResultSet rs) -> {
+          EnrollmentProgress result = null;
+          List<ProgressEntity> rows = new ArrayList<>();
+          RowMapper<ProgressEntity> mapper = mapper();
+          while (rs.next()) {
+            if (result == null) {
+              result =
+                  new EnrollmentProgress(
+                      rs.getLong("E_ID"),
+                      rs.getLong("USER_ID"),
+                      rs.getLong("COURSE_ID"),
+                      rs.getString("STATUS"),
+                      rs.getTimestamp("ENROLLED_AT").toInstant(),
+                      rows);
+            }
+            rs.getLong("ID");
+            if (!rs.wasNull()) {
+              rows.add(mapper.mapRow(rs, rows.size()));
+            }
+          }
+          return Optional.ofNullable(result);
+        },
+        userId,
+        courseId);
+  }
+
+  public List<ProgressEntity> findByEnrollmentIds(Collection<Long> enrollmentIds) {
+    if (enrollmentIds.isEmpty()) {
+      return List.of();
     }
-    return rows.get(0);
+    String placeholders = String.join(", ", Collections.nCopies(enrollmentIds.size(), "?"));
+    return jdbcTemplate.query(
+        "SELECT ID, ENROLLMENT_ID, LESSON_ID, PROGRESS_PERCENT, COMPLETED_AT, LAST_POSITION_SEC, CHANGE_VERSION FROM PROGRESS WHERE ENROLLMENT_ID IN ("
+            + placeholders
+            + ") ORDER BY ENROLLMENT_ID, ID",
+        mapper(),
+        enrollmentIds.toArray());
+  }
+
+  public ProgressUpsertResult upsertOwned(long userId, ProgressWrite write) {
+    return jdbcTemplate.execute(
+        """
+        DECLARE
+          v_enrollment_id NUMBER := ?;
+          v_user_id NUMBER := ?;
+          v_lesson_id NUMBER := ?;
+          v_percent NUMBER := ?;
+          v_completed NUMBER := ?;
+          v_position NUMBER := ?;
+          v_status ENROLLMENTS.STATUS%TYPE;
+          v_completed_at TIMESTAMP;
+          v_row PROGRESS%ROWTYPE;
+          v_outcome VARCHAR2(30);
+        BEGIN
+          BEGIN
+            SELECT STATUS INTO v_status
+            FROM ENROLLMENTS
+            WHERE ID = v_enrollment_id AND USER_ID = v_user_id;
+            IF UPPER(TRIM(v_status)) = 'PENDING' THEN
+              v_outcome := 'PENDING';
+            ELSE
+              IF v_completed = 1 THEN
+                v_completed_at := SYSTIMESTAMP;
+              END IF;
+              BEGIN
+                MERGE INTO PROGRESS p
+                USING (SELECT v_enrollment_id AS ENROLLMENT_ID, v_lesson_id AS LESSON_ID FROM DUAL) s
+                ON (p.ENROLLMENT_ID = s.ENROLLMENT_ID AND p.LESSON_ID = s.LESSON_ID)
+                WHEN MATCHED THEN UPDATE SET
+                  p.PROGRESS_PERCENT = v_percent,
+                  p.COMPLETED_AT = v_completed_at,
+                  p.LAST_POSITION_SEC = NVL(v_position, p.LAST_POSITION_SEC)
+                WHEN NOT MATCHED THEN INSERT (ENROLLMENT_ID, LESSON_ID, PROGRESS_PERCENT, COMPLETED_AT, LAST_POSITION_SEC)
+                  VALUES (v_enrollment_id, v_lesson_id, v_percent, v_completed_at, v_position);
+              EXCEPTION
+                WHEN DUP_VAL_ON_INDEX THEN
+                  UPDATE PROGRESS SET
+                    PROGRESS_PERCENT = v_percent,
+                    COMPLETED_AT = v_completed_at,
+                    LAST_POSITION_SEC = NVL(v_position, LAST_POSITION_SEC)
+                  WHERE ENROLLMENT_ID = v_enrollment_id AND LESSON_ID = v_lesson_id;
+              END;
+              SELECT * INTO v_row
+              FROM PROGRESS
+              WHERE ENROLLMENT_ID = v_enrollment_id AND LESSON_ID = v_lesson_id;
+              v_outcome := 'OK';
+            END IF;
+          EXCEPTION
+            WHEN NO_DATA_FOUND THEN
+              v_outcome := 'FORBIDDEN';
+          END;
+          ? := v_outcome;
+          ? := v_row.ID;
+          ? := v_row.PROGRESS_PERCENT;
+          ? := v_row.COMPLETED_AT;
+          ? := v_row.LAST_POSITION_SEC;
+          ? := v_row.CHANGE_VERSION;
+        END;
+        """,
+        (CallableStatement cs) -> {
+          cs.setLong(1, write.enrollmentId());
+          cs.setLong(2, userId);
+          cs.setLong(3, write.lessonId());
+          cs.setDouble(4, write.progressPercent());
+          cs.setInt(5, write.completed() ? 1 : 0);
+          if (write.lastPositionSec() == null) {
+            cs.setNull(6, Types.NUMERIC);
+          } else {
+            cs.setDouble(6, write.lastPositionSec());
+          }
+          cs.registerOutParameter(7, Types.VARCHAR);
+          cs.registerOutParameter(8, Types.NUMERIC);
+          cs.registerOutParameter(9, Types.NUMERIC);
+          cs.registerOutParameter(10, Types.TIMESTAMP);
+          cs.registerOutParameter(11, Types.NUMERIC);
+          cs.registerOutParameter(12, Types.NUMERIC);
+          cs.execute();
+          String outcome = cs.getString(7);
+          if (!"OK".equals(outcome)) {
+            return new ProgressUpsertResult(outcome, null);
+          }
+          java.sql.Timestamp completedAt = cs.getTimestamp(10);
+          double position = cs.getDouble(11);
+          Double lastPositionSec = cs.wasNull() ? null : position;
+          return new ProgressUpsertResult(
+              outcome,
+              new ProgressEntity(
+                  cs.getLong(8),
+                  write.enrollmentId(),
+                  write.lessonId(),
+                  cs.getDouble(9),
+                  completedAt == null ? null : completedAt.toInstant(),
+                  lastPositionSec,
+                  cs.getLong(12)));
+        });
+  }
+
+  public int upsertBatch(List<ProgressWrite> writes) {
+    if (writes.isEmpty()) {
+      return 0;
+    }
+    try {
+      return affectedRows(jdbcTemplate.batchUpdate(UPSERT_SQL, writes, writes.size(), this::bindUpsert));
+    } catch (DuplicateKeyException ex) {
+      // A concurrent MERGE inserted one of the keys first. Rows before it may already be applied;
+      // every statement is an idempotent upsert, so redo the batch row by row.
+      int affected = 0;
+      for (ProgressWrite write : writes) {
+        affected += upsertOne(write);
+      }
+      return affected;
+    }
+  }
+
+  private int upsertOne(ProgressWrite write) {
+    try {
+      return jdbcTemplate.update(UPSERT_SQL, ps -> bindUpsert(ps, write));
+    } catch (DuplicateKeyException ex) {
+      return jdbcTemplate.update(
+          """
+          UPDATE PROGRESS SET
+            PROGRESS_PERCENT = ?,
+            COMPLETED_AT = ?,
+            LAST_POSITION_SEC = NVL(?, LAST_POSITION_SEC)
+          WHERE ENROLLMENT_ID = ? AND LESSON_ID = ?
+          """,
+          ps -> {
+            bindValues(ps, 1, write);
+            ps.setLong(4, write.enrollmentId());
+            ps.setLong(5, write.lessonId());
+          });
+    }
+  }
+
+  private void bindUpsert(PreparedStatement ps, ProgressWrite write) throws SQLException {
+    ps.setLong(1, write.enrollmentId());
+    ps.setLong(2, write.lessonId());
+    bindValues(ps, 3, write);
+  }
+
+  private void bindValues(PreparedStatement ps, int first, ProgressWrite write) throws SQLException {
+    ps.setDouble(first, write.progressPercent());
+    if (write.completed()) {
+      ps.setTimestamp(first + 1, java.sql.Timestamp.from(Instant.now()));
+    } else {
+      ps.setNull(first + 1, Types.TIMESTAMP);
+    }
+    if (write.lastPositionSec() == null) {
+      ps.setNull(first + 2, Types.NUMERIC);
+    } else {
+      ps.setDouble(first + 2, write.lastPositionSec());
+    }
+  }
+
+  private static int affectedRows(int[][] counts) {
+    int affected = 0;
+    for (int[] batch : counts) {
+      for (int count : batch) {
+        affected += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+      }
+    }
+    return affected;
   }
 
   private RowMapper<ProgressEntity> mapper() {
@@ -89,7 +318,8 @@ public class ProgressRepository {
             rs.getTimestamp("COMPLETED_AT") == null
                 ? null
                 : rs.getTimestamp("COMPLETED_AT").toInstant(),
-            getNullableDouble(rs, "LAST_POSITION_SEC"));
+            getNullableDouble(rs, "LAST_POSITION_SEC"),
+            rs.getLong("CHANGE_VERSION"));
   }
 
   private Double getNullableDouble(ResultSet rs, String column) throws java.sql.SQLException {
@@ -97,11 +327,3 @@ public class ProgressRepository {
     return rs.wasNull() ? null : value;
   }
 }
-
-record ProgressEntity(
-    long id,
-    long enrollmentId,
-    long lessonId,
-    double progressPercent,
-    Instant completedAt,
-    Double lastPositionSec) {}
@@ -0,0 +1,3 @@
+package com.example.lms.api.progress;
+
+record ProgressUpsertResult(String outcome, ProgressEntity row) {}
@@ -0,0 +1,3 @@
+package com.example.lms.api.progress;
+
+record ProgressVersion(long maxVersion, long rowCount) {}
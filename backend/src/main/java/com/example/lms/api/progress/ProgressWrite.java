@@ -0,0 +1,8 @@
+package com.example.lms.api.progress;
+
+record ProgressWrite(
+    long enrollmentId,
+    long lessonId,
+    double progressPercent,
+    boolean completed,
+    Double lastPositionSec) {}
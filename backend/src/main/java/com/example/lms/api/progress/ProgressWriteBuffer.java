@@ -0,0 +1,256 @@
+package com.example.lms.api.progress;
+
+import com.example.lms.api.concurrent.DaemonThreads;
+import com.example.lms.api.events.ReportDataChangedEvent;
+import com.example.lms.api.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+// Write-behind buffer for progress heartbeats. Writes for the same (enrollment, lesson) are merged
+// in memory and flushed as one JDBC batch when the batch size or the flush interval is reached.
+@Component
+public class ProgressWriteBuffer implements MetricsSource {
+  private static final Logger log = LoggerFactory.getLogger(ProgressWriteBuffer.class);
+
+  private final ProgressRepository repository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final boolean enabled;
+  private final int batchSize;
+  private final int maxPending;
+  private final ConcurrentHashMap<ProgressWrites.Key, ProgressWrite> pending = new ConcurrentHashMap<>();
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final long flushIntervalMs;
+  private final ScheduledExecutorService flusher;
+  private volatile boolean closed;
+
+  private final AtomicLong accepted = new AtomicLong();
+  private final AtomicLong merged = new AtomicLong();
+  private final AtomicLong flushedRows = new AtomicLong();
+  private final AtomicLong flushedBatches = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong writeThroughs = new AtomicLong();
+  private final AtomicLong failedFlushes = new AtomicLong();
+
+  public ProgressWriteBuffer(
+      ProgressRepository repository,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${lms.progress.write-behind.enabled:false}") boolean enabled,
+      @Value("${lms.progress.write-behind.batch-size:200}") int batchSize,
+      @Value("${lms.progress.write-behind.max-pending:5000}") int maxPending,
+      @Value("${lms.progress.write-behind.flush-interval-ms:1000}") long flushIntervalMs) {
+    this.repository = repository;
+    this.eventPublisher = eventPublisher;
+    this.enabled = enabled;
+    this.batchSize = Math.max(1, batchSize);
+    this.maxPending = Math.max(this.batchSize, maxPending);
+    this.flushIntervalMs = flushIntervalMs;
+    this.flusher = enabled ? DaemonThreads.scheduler("progress-write-behind") : null;
+  }
+
+  @PostConstruct
+  public void start() {
+    if (flusher != null) {
+      flusher.scheduleWithFixedDelay(
+          this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  // Returns null when the write was not buffered: the buffer holds maxPending keys (e.g. while
+  // Oracle is failing and flushes keep requeueing) or is shutting down. The caller then writes
+  // through, so the buffer never grows past maxPending new keys.
+  public ProgressWrite offer(ProgressWrite write) {
+    ProgressWrites.Key key = ProgressWrites.Key.of(write);
+    if (closed) {
+      rejected.incrementAndGet();
+      return null;
+    }
+    if (pending.size() >= maxPending && !pending.containsKey(key)) {
+      rejected.incrementAndGet();
+      requestFlush();
+      return null;
+    }
+    accepted.incrementAndGet();
+    ProgressWrite result =
+        pending.merge(
+            key,
+            write,
+            (previous, incoming) -> {
+              merged.incrementAndGet();
+              return ProgressWrites.merge(previous, incoming);
+            });
+    if (closed) {
+      // Raced shutdown and the final flush may already have run; the caller's write-through folds
+      // this key out of pending.
+      rejected.incrementAndGet();
+      return null;
+    }
+    if (pending.size() >= batchSize) {
+      requestFlush();
+    }
+    return result;
+  }
+
+  // Runs synchronous writes without racing an in-flight flush of older data for the same keys.
+  // Pending heartbeats for those keys are folded into the writes instead of being flushed later.
+  public <T> T writeThrough(List<ProgressWrite> writes, Function<List<ProgressWrite>, T> syncWrite) {
+    if (!enabled) {
+      return syncWrite.apply(writes);
+    }
+    flushLock.lock();
+    try {
+      List<ProgressWrite> folded = new ArrayList<>(writes.size());
+      for (ProgressWrite write : writes) {
+        ProgressWrite previous = pending.remove(ProgressWrites.Key.of(write));
+        folded.add(previous == null ? write : ProgressWrites.merge(previous, write));
+      }
+      writeThroughs.addAndGet(folded.size());
+      return syncWrite.apply(folded);
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  public List<ProgressWrite> pendingFor(long enrollmentId) {
+    if (pending.isEmpty()) {
+      return List.of();
+    }
+    List<ProgressWrite> buffered = new ArrayList<>();
+    for (ProgressWrite write : pending.values()) {
+      if (write.enrollmentId() == enrollmentId) {
+        buffered.add(write);
+      }
+    }
+    return buffered;
+  }
+
+  public int flush() {
+    flushLock.lock();
+    Set<Long> enrollmentIds = new HashSet<>();
+    try {
+      int total = 0;
+      while (!pending.isEmpty()) {
+        List<ProgressWrite> batch = drain();
+        if (batch.isEmpty()) {
+          break;
+        }
+        try {
+          repository.upsertBatch(batch);
+        } catch (RuntimeException ex) {
+          failedFlushes.incrementAndGet();
+          requeue(batch);
+          throw ex;
+        }
+        flushedBatches.incrementAndGet();
+        flushedRows.addAndGet(batch.size());
+        total += batch.size();
+        for (ProgressWrite write : batch) {
+          enrollmentIds.add(write.enrollmentId());
+        }
+      }
+      return total;
+    } finally {
+      flushLock.unlock();
+      if (!enrollmentIds.isEmpty()) {
+        eventPublisher.publishEvent(
+            ReportDataChangedEvent.forEnrollments(ReportDataChangedEvent.Source.PROGRESS, enrollmentIds));
+      }
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (!enabled) {
+      return;
+    }
+    closed = true;
+    flusher.shutdown();
+    try {
+      flusher.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    flushQuietly();
+  }
+
+  @Override
+  public String metricsName() {
+    return "progressWriteBehind";
+  }
+
+  @Override
+  public Map<String, Object> metricsSnapshot() {
+    Map<String, Object> snapshot = new LinkedHashMap<>();
+    snapshot.put("enabled", enabled);
+    snapshot.put("pending", pending.size());
+    snapshot.put("maxPending", maxPending);
+    snapshot.put("accepted", accepted.get());
+    snapshot.put("merged", merged.get());
+    snapshot.put("flushedRows", flushedRows.get());
+    snapshot.put("flushedBatches", flushedBatches.get());
+    snapshot.put("rejectedToWriteThrough", rejected.get());
+    snapshot.put("writeThroughs", writeThroughs.get());
+    snapshot.put("failedFlushes", failedFlushes.get());
+    return snapshot;
+  }
+
+  private void requestFlush() {
+    try {
+      flusher.execute(this::flushQuietly);
+    } catch (RejectedExecutionException ex) {
+      // Shutting down; shutdown() runs the final flush.
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException ex) {
+      log.warn("Progress write-behind flush failed; {} rows kept for retry", pending.size(), ex);
+    }
+  }
+
+  private List<ProgressWrite> drain() {
+    List<ProgressWrite> batch = new ArrayList<>(batchSize);
+    for (ProgressWrites.Key key : pending.keySet()) {
+      ProgressWrite write = pending.remove(key);
+      if (write != null) {
+        batch.add(write);
+      }
+      if (batch.size() >= batchSize) {
+        break;
+      }
+    }
+    return batch;
+  }
+
+  private void requeue(List<ProgressWrite> batch) {
+    for (ProgressWrite write : batch) {
+      pending.merge(
+          ProgressWrites.Key.of(write),
+          write,
+          (newer, older) -> ProgressWrites.merge(older, newer));
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.example.lms.api.progress;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Shared merge rules for progress writes that are not yet in the PROGRESS table
+// (write-behind buffer, uncompacted events, batch requests).
+final class ProgressWrites {
+  private ProgressWrites() {}
+
+  static ProgressWrite merge(ProgressWrite previous, ProgressWrite incoming) {
+    return new ProgressWrite(
+        incoming.enrollmentId(),
+        incoming.lessonId(),
+        Math.max(previous.progressPercent(), incoming.progressPercent()),
+        previous.completed() || incoming.completed(),
+        incoming.lastPositionSec() != null ? incoming.lastPositionSec() : previous.lastPositionSec());
+  }
+
+  static Map<Key, ProgressWrite> fold(Collection<ProgressWrite> writes) {
+    Map<Key, ProgressWrite> folded = new LinkedHashMap<>();
+    for (ProgressWrite write : writes) {
+      folded.merge(Key.of(write), write, ProgressWrites::merge);
+    }
+    return folded;
+  }
+
+  static List<ProgressEntity> overlay(List<ProgressEntity> rows, Collection<ProgressWrite> writes) {
+    if (writes.isEmpty()) {
+      return rows;
+    }
+    Map<Key, ProgressWrite> pending = fold(writes);
+    List<ProgressEntity> result = new ArrayList<>(rows.size() + pending.size());
+    for (ProgressEntity row : rows) {
+      ProgressWrite write = pending.remove(new Key(row.enrollmentId(), row.lessonId()));
+      if (write == null) {
+        result.add(row);
+      } else {
+        result.add(
+            new ProgressEntity(
+                row.id(),
+                row.enrollmentId(),
+                row.lessonId(),
+                write.progressPercent(),
+                row.completedAt(),
+                write.lastPositionSec() != null ? write.lastPositionSec() : row.lastPositionSec(),
+                row.changeVersion()));
+      }
+    }
+    for (ProgressWrite write : pending.values()) {
+      result.add(toEntity(write));
+    }
+    return result;
+  }
+
+  static ProgressEntity toEntity(ProgressWrite write) {
+    return new ProgressEntity(
+        0L,
+        write.enrollmentId(),
+        write.lessonId(),
+        write.progressPercent(),
+        null,
+        write.lastPositionSec(),
+        0L);
+  }
+
+  record Key(long enrollmentId, long lessonId) {
+    static Key of(ProgressWrite write) {
+      return new Key(write.enrollmentId(), write.lessonId());
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.example.lms.api.reports;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class AnalyticsRepository {
+  private final JdbcTemplate jdbcTemplate;
+
+  public AnalyticsRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public List<CourseDimension> findCourses() {
+    String sql =
+        """
+        SELECT c.ID, c.TITLE, COUNT(l.ID) AS LESSON_COUNT
+        FROM COURSES c
+        LEFT JOIN LESSONS l ON l.COURSE_ID = c.ID
+        GROUP BY c.ID, c.TITLE
+        ORDER BY c.ID
+        """;
+    return jdbcTemplate.query(
+        sql,
+        (rs, rowNum) ->
+            new CourseDimension(rs.getLong("ID"), rs.getString("TITLE"), rs.getInt("LESSON_COUNT")));
+  }
+
+  public void streamUsers(Consumer<UserDimension> consumer) {
+    String sql = "SELECT ID, NAME, COMPANY, ROLE FROM USERS ORDER BY ID";
+    jdbcTemplate.query(
+        StreamingStatements.of(sql),
+        (ResultSet rs) ->
+            consumer.accept(
+                new UserDimension(
+                    rs.getLong("ID"),
+                    rs.getString("NAME"),
+                    rs.getString("COMPANY"),
+                    "LEARNER".equals(rs.getString("ROLE")))));
+  }
+
+  public void streamEnrollmentsAfter(long afterId, Consumer<EnrollmentFact> consumer) {
+    String sql =
+        """
+        SELECT ID, USER_ID, COURSE_ID, ENROLLED_AT
+        FROM ENROLLMENTS
+        WHERE ID > ?
+        ORDER BY ID
+        """;
+    jdbcTemplate.query(
+        StreamingStatements.of(sql, afterId),
+        (ResultSet rs) -> {
+          Timestamp enrolledAt = rs.getTimestamp("ENROLLED_AT");
+          consumer.accept(
+              new EnrollmentFact(
+                  rs.getLong("ID"),
+                  rs.getLong("USER_ID"),
+                  rs.getLong("COURSE_ID"),
+                  (int) enrolledAt.toLocalDateTime().toLocalDate().toEpochDay()));
+        });
+  }
+
+  public void streamProgressChangedAfter(long afterVersion, Consumer<ProgressFact> consumer) {
+    String sql =
+        """
+        SELECT ID, ENROLLMENT_ID, PROGRESS_PERCENT, CHANGE_VERSION
+        FROM PROGRESS
+        WHERE CHANGE_VERSION > ?
+        ORDER BY CHANGE_VERSION
+        """;
+    jdbcTemplate.query(
+        StreamingStatements.of(sql, afterVersion),
+        (ResultSet rs) ->
+            consumer.accept(
+                new ProgressFact(
+                    rs.getLong("ID"),
+                    rs.getLong("ENROLLMENT_ID"),
+                    rs.getFloat("PROGRESS_PERCENT"),
+                    rs.getLong("CHANGE_VERSION"))));
+  }
+}
@@ -0,0 +1,745 @@
+package com.example.lms.api.reports;
+
+import com.example.lms.api.concurrent.DaemonThreads;
+import com.example.lms.api.metrics.MetricsSource;
+import com.example.lms.api.reports.ReportDtos.CourseCompletionReportRow;
+import com.example.lms.api.reports.ReportDtos.CoursePeriodReportRow;
+import com.example.lms.api.reports.ReportDtos.LearnerProgressFilter;
+import com.example.lms.api.reports.ReportDtos.LearnerProgressRow;
+import com.example.lms.api.reports.ReportDtos.SliceRow;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// In-memory columnar copy of ENROLLMENTS and PROGRESS. Report queries become loops over primitive
+// arrays instead of Oracle joins. A background job applies new enrollment ids and progress change
+// versions; both scans start a little before the stored watermark, like the rollup job, and
+// re-applying a row is idempotent. Queries are only answered while the last successful refresh is
+// younger than max-staleness-ms, otherwise callers fall back to the database.
+@Component
+public class AnalyticsSnapshot implements MetricsSource {
+  private static final Logger log = LoggerFactory.getLogger(AnalyticsSnapshot.class);
+  private static final int CHUNK_SIZE = 50_000;
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int ALL_COURSES = -2;
+
+  private final AnalyticsRepository repository;
+  private final boolean enabled;
+  private final int maxEnrollments;
+  private final int maxProgressRows;
+  private final long maxStalenessMs;
+  private final long watermarkOverlap;
+  private final long refreshIntervalMs;
+  private final ScheduledExecutorService refresher;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // Course dimension; indexes are stable for the life of the snapshot.
+  private final Map<Long, Integer> courseIndex = new HashMap<>();
+  private long[] courseIds = new long[16];
+  private String[] courseTitles = new String[16];
+  private int[] courseLessonCounts = new int[16];
+  private int courseCount;
+
+  // User dimension, sorted by id and replaced as a whole on each refresh.
+  private long[] userIds = new long[0];
+  private String[] userNames = new String[0];
+  private String[] userCompanies = new String[0];
+  private boolean[] userLearners = new boolean[0];
+
+  // Enrollment columns with per-enrollment progress aggregates.
+  private LongIntMap enrollmentIndex = new LongIntMap(INITIAL_CAPACITY);
+  private LongIntMap userCourseIndex = new LongIntMap(INITIAL_CAPACITY);
+  private long[] enrollmentIds = new long[INITIAL_CAPACITY];
+  private long[] enrollmentUsers = new long[INITIAL_CAPACITY];
+  private int[] enrollmentCourses = new int[INITIAL_CAPACITY];
+  private int[] enrollmentDays = new int[INITIAL_CAPACITY];
+  private double[] enrollmentProgressSums = new double[INITIAL_CAPACITY];
+  private int[] enrollmentProgressRows = new int[INITIAL_CAPACITY];
+  private int[] enrollmentCompletedLessons = new int[INITIAL_CAPACITY];
+  // Set when another enrollment may share the (user, course) pair; those rows are de-duplicated
+  // with a hash set at query time, all others count as one learner each.
+  private boolean[] enrollmentShared = new boolean[INITIAL_CAPACITY];
+  private int enrollmentCount;
+
+  // Progress columns.
+  private LongIntMap progressIndex = new LongIntMap(INITIAL_CAPACITY);
+  private int[] progressEnrollments = new int[INITIAL_CAPACITY];
+  private float[] progressPercents = new float[INITIAL_CAPACITY];
+  private int progressCount;
+
+  private long enrollmentWatermark;
+  private long progressWatermark;
+  private volatile boolean ready;
+  private volatile boolean overCapacity;
+  private volatile long lastRefreshAt;
+
+  private final AtomicLong refreshRuns = new AtomicLong();
+  private final AtomicLong failedRefreshes = new AtomicLong();
+  private final AtomicLong lastRefreshMs = new AtomicLong();
+  private final AtomicLong queries = new AtomicLong();
+
+  public AnalyticsSnapshot(
+      AnalyticsRepository repository,
+      @Value("${lms.reports.analytics.enabled:false}") boolean enabled,
+      @Value("${lms.reports.analytics.refresh-interval-ms:30000}") long refreshIntervalMs,
+      @Value("${lms.reports.analytics.max-staleness-ms:120000}") long maxStalenessMs,
+      @Value("${lms.reports.analytics.max-enrollments:2000000}") int maxEnrollments,
+      @Value("${lms.reports.analytics.max-progress-rows:10000000}") int maxProgressRows,
+      @Value("${lms.reports.analytics.watermark-overlap:1000}") long watermarkOverlap) {
+    this.repository = repository;
+    this.enabled = enabled;
+    this.maxStalenessMs = maxStalenessMs;
+    this.maxEnrollments = maxEnrollments;
+    this.maxProgressRows = maxProgressRows;
+    this.watermarkOverlap = Math.max(0, watermarkOverlap);
+    this.refreshIntervalMs = refreshIntervalMs;
+    this.refresher = enabled ? DaemonThreads.scheduler("report-analytics-refresh") : null;
+  }
+
+  @PostConstruct
+  public void start() {
+    if (refresher != null) {
+      refresher.scheduleWithFixedDelay(
+          this::refreshQuietly, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public boolean isServing() {
+    return enabled
+        && ready
+        && !overCapacity
+        && System.currentTimeMillis() - lastRefreshAt <= maxStalenessMs;
+  }
+
+  public synchronized void refresh() {
+    if (overCapacity) {
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      List<CourseDimension> courses = repository.findCourses();
+      UserColumns users = loadUsers();
+      lock.writeLock().lock();
+      try {
+        applyCourses(courses);
+        userIds = users.ids;
+        userNames = users.names;
+        userCompanies = users.companies;
+        userLearners = users.learners;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      refreshEnrollments();
+      refreshProgress();
+    } catch (CapacityExceededException ex) {
+      overCapacity = true;
+      clear();
+      log.warn("Analytics snapshot disabled: {}; reports fall back to the database", ex.getMessage());
+      return;
+    }
+    ready = true;
+    lastRefreshAt = System.currentTimeMillis();
+    refreshRuns.incrementAndGet();
+    lastRefreshMs.set((System.nanoTime() - start) / 1_000_000);
+  }
+
+  public List<CoursePeriodReportRow> coursePeriodReport(Date from, Date to, Long courseId) {
+    CourseTotals totals = courseTotals(from, to, courseId);
+    List<CoursePeriodReportRow> rows = new ArrayList<>();
+    for (int c : totals.courses) {
+      double avg = totals.progressRows[c] == 0 ? 0 : totals.progressSums[c] / totals.progressRows[c];
+      rows.add(new CoursePeriodReportRow(courseIds[c], courseTitles[c], totals.learners[c], avg));
+    }
+    return rows;
+  }
+
+  public List<CourseCompletionReportRow> courseCompletionReport(Date from, Date to, Long courseId) {
+    CourseTotals totals = courseTotals(from, to, courseId);
+    List<CourseCompletionReportRow> rows = new ArrayList<>();
+    for (int c : totals.courses) {
+      rows.add(new CourseCompletionReportRow(courseIds[c], courseTitles[c], totals.completedLearners[c]));
+    }
+    return rows;
+  }
+
+  public List<LearnerProgressRow> learnerProgress(LearnerProgressFilter filter) {
+    queries.incrementAndGet();
+    lock.readLock().lock();
+    try {
+      int onlyCourse = courseFilter(filter.courseId());
+      if (onlyCourse == LongIntMap.MISSING) {
+        return List.of();
+      }
+      List<Integer> matches = new ArrayList<>();
+      for (int i = 0; i < enrollmentCount; i++) {
+        int c = enrollmentCourses[i];
+        if ((onlyCourse >= 0 && c != onlyCourse)
+            || courseLessonCounts[c] == 0
+            || courseTitles[c] == null
+            || (filter.userId() != null && enrollmentUsers[i] != filter.userId())) {
+          continue;
+        }
+        int u = Arrays.binarySearch(userIds, enrollmentUsers[i]);
+        if (u < 0
+            || !userLearners[u]
+            || (filter.company() != null && !filter.company().equals(userCompanies[u]))) {
+          continue;
+        }
+        matches.add(i);
+      }
+      matches.sort(
+          Comparator.<Integer>comparingLong(i -> enrollmentUsers[i])
+              .thenComparingLong(i -> courseIds[enrollmentCourses[i]]));
+      List<LearnerProgressRow> rows = new ArrayList<>();
+      int next = 0;
+      while (next < matches.size()) {
+        int first = matches.get(next);
+        long userId = enrollmentUsers[first];
+        int c = enrollmentCourses[first];
+        double sum = 0;
+        long progressRows = 0;
+        long completed = 0;
+        long lessons = 0;
+        while (next < matches.size()
+            && enrollmentUsers[matches.get(next)] == userId
+            && enrollmentCourses[matches.get(next)] == c) {
+          int i = matches.get(next++);
+          sum += enrollmentProgressSums[i];
+          progressRows += enrollmentProgressRows[i];
+          completed += enrollmentCompletedLessons[i];
+          lessons += courseLessonCounts[c];
+        }
+        int u = Arrays.binarySearch(userIds, userId);
+        rows.add(
+            new LearnerProgressRow(
+                userId,
+                userNames[u],
+                courseIds[c],
+                courseTitles[c],
+                progressRows == 0 ? 0 : sum / progressRows,
+                completed,
+                lessons));
+      }
+      return rows;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // Group-by dimensions the SQL reports do not offer: course, company, enrollment day or month.
+  public List<SliceRow> slice(Date from, Date to, Long courseId, String groupBy) {
+    queries.incrementAndGet();
+    int fromDay = (int) from.toLocalDate().toEpochDay();
+    int toDay = (int) to.toLocalDate().toEpochDay();
+    lock.readLock().lock();
+    try {
+      int onlyCourse = courseFilter(courseId);
+      if (onlyCourse == LongIntMap.MISSING) {
+        return List.of();
+      }
+      Map<Comparable<?>, SliceTotals> groups = new TreeMap<>();
+      for (int i = 0; i < enrollmentCount; i++) {
+        int day = enrollmentDays[i];
+        int c = enrollmentCourses[i];
+        if (day < fromDay || day > toDay || (onlyCourse >= 0 && c != onlyCourse)) {
+          continue;
+        }
+        Comparable<?> key = sliceKey(groupBy, i);
+        SliceTotals totals = groups.get(key);
+        if (totals == null) {
+          totals = new SliceTotals(sliceLabel(groupBy, i));
+          groups.put(key, totals);
+        }
+        totals.enrollments++;
+        totals.learners.add(enrollmentUsers[i]);
+        totals.progressSum += enrollmentProgressSums[i];
+        totals.progressRows += enrollmentProgressRows[i];
+        totals.completedLessons += enrollmentCompletedLessons[i];
+      }
+      List<SliceRow> rows = new ArrayList<>(groups.size());
+      for (Map.Entry<Comparable<?>, SliceTotals> entry : groups.entrySet()) {
+        SliceTotals totals = entry.getValue();
+        rows.add(
+            new SliceRow(
+                "course".equals(groupBy) ? String.valueOf(entry.getKey()) : totals.label,
+                totals.label,
+                totals.enrollments,
+                totals.learners.size(),
+                totals.progressRows == 0 ? 0 : totals.progressSum / totals.progressRows,
+                totals.completedLessons));
+      }
+      return rows;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (!enabled) {
+      return;
+    }
+    refresher.shutdown();
+    try {
+      refresher.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public String metricsName() {
+    return "reportAnalytics";
+  }
+
+  @Override
+  public Map<String, Object> metricsSnapshot() {
+    Map<String, Object> snapshot = new LinkedHashMap<>();
+    snapshot.put("enabled", enabled);
+    snapshot.put("serving", isServing());
+    snapshot.put("overCapacity", overCapacity);
+    lock.readLock().lock();
+    try {
+      snapshot.put("courses", courseCount);
+      snapshot.put("users", userIds.length);
+      snapshot.put("enrollments", enrollmentCount);
+      snapshot.put("progressRows", progressCount);
+      snapshot.put("approxHeapBytes", approxHeapBytes());
+      snapshot.put("enrollmentWatermark", enrollmentWatermark);
+      snapshot.put("progressWatermark", progressWatermark);
+    } finally {
+      lock.readLock().unlock();
+    }
+    snapshot.put("ageMs", ready ? System.currentTimeMillis() - lastRefreshAt : null);
+    snapshot.put("refreshRuns", refreshRuns.get());
+    snapshot.put("failedRefreshes", failedRefreshes.get());
+    snapshot.put("lastRefreshMs", lastRefreshMs.get());
+    snapshot.put("queries", queries.get());
+    return snapshot;
+  }
+
+  private CourseTotals courseTotals(Date from, Date to, Long courseId) {
+    queries.incrementAndGet();
+    int fromDay = (int) from.toLocalDate().toEpochDay();
+    int toDay = (int) to.toLocalDate().toEpochDay();
+    lock.readLock().lock();
+    try {
+      CourseTotals totals = new CourseTotals(courseCount);
+      int onlyCourse = courseFilter(courseId);
+      if (onlyCourse == LongIntMap.MISSING) {
+        return totals;
+      }
+      for (int i = 0; i < enrollmentCount; i++) {
+        int day = enrollmentDays[i];
+        int c = enrollmentCourses[i];
+        if (day < fromDay || day > toDay || (onlyCourse >= 0 && c != onlyCourse)) {
+          continue;
+        }
+        totals.seen[c] = true;
+        totals.progressSums[c] += enrollmentProgressSums[i];
+        totals.progressRows[c] += enrollmentProgressRows[i];
+        boolean completed = enrollmentCompletedLessons[i] > 0;
+        if (enrollmentShared[i]) {
+          totals.sharedLearners(c).add(enrollmentUsers[i]);
+          if (completed) {
+            totals.sharedCompleted(c).add(enrollmentUsers[i]);
+          }
+        } else {
+          totals.learners[c]++;
+          if (completed) {
+            totals.completedLearners[c]++;
+          }
+        }
+      }
+      for (int c = 0; c < courseCount; c++) {
+        if (!totals.seen[c] || courseTitles[c] == null) {
+          continue;
+        }
+        Set<Long> learners = totals.sharedLearners.get(c);
+        if (learners != null) {
+          totals.learners[c] += learners.size();
+        }
+        Set<Long> completed = totals.sharedCompleted.get(c);
+        if (completed != null) {
+          totals.completedLearners[c] += completed.size();
+        }
+        totals.courses.add(c);
+      }
+      totals.courses.sort(Comparator.comparingLong(c -> courseIds[c]));
+      return totals;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // ALL_COURSES for no filter, MISSING when the course is unknown to the snapshot.
+  private int courseFilter(Long courseId) {
+    if (courseId == null) {
+      return ALL_COURSES;
+    }
+    Integer index = courseIndex.get(courseId);
+    return index == null ? LongIntMap.MISSING : index;
+  }
+
+  private Comparable<?> sliceKey(String groupBy, int i) {
+    return switch (groupBy) {
+      case "company" -> Objects.toString(companyOf(enrollmentUsers[i]), "");
+      case "day" -> enrollmentDays[i];
+      case "month" -> {
+        LocalDate day = LocalDate.ofEpochDay(enrollmentDays[i]);
+        yield day.getYear() * 12 + day.getMonthValue() - 1;
+      }
+      default -> courseIds[enrollmentCourses[i]];
+    };
+  }
+
+  private String sliceLabel(String groupBy, int i) {
+    return switch (groupBy) {
+      case "company" -> Objects.toString(companyOf(enrollmentUsers[i]), "");
+      case "day" -> LocalDate.ofEpochDay(enrollmentDays[i]).toString();
+      case "month" -> LocalDate.ofEpochDay(enrollmentDays[i]).toString().substring(0, 7);
+      default -> courseTitles[enrollmentCourses[i]];
+    };
+  }
+
+  private String companyOf(long userId) {
+    int u = Arrays.binarySearch(userIds, userId);
+    return u < 0 ? null : userCompanies[u];
+  }
+
+  private UserColumns loadUsers() {
+    UserColumns users = new UserColumns();
+    repository.streamUsers(users::add);
+    users.trim();
+    return users;
+  }
+
+  private void applyCourses(List<CourseDimension> courses) {
+    for (CourseDimension course : courses) {
+      int c = courseIndexFor(course.id());
+      courseTitles[c] = course.title();
+      courseLessonCounts[c] = course.lessonCount();
+    }
+  }
+
+  // Enrollments can reference a course created after the course list was read; it gets a
+  // placeholder that the next refresh fills in and that queries skip until then.
+  private int courseIndexFor(long courseId) {
+    Integer existing = courseIndex.get(courseId);
+    if (existing != null) {
+      return existing;
+    }
+    if (courseCount == courseIds.length) {
+      int capacity = courseIds.length * 2;
+      courseIds = Arrays.copyOf(courseIds, capacity);
+      courseTitles = Arrays.copyOf(courseTitles, capacity);
+      courseLessonCounts = Arrays.copyOf(courseLessonCounts, capacity);
+    }
+    int c = courseCount++;
+    courseIds[c] = courseId;
+    courseIndex.put(courseId, c);
+    return c;
+  }
+
+  private void refreshEnrollments() {
+    long afterId = Math.max(0, enrollmentWatermark - watermarkOverlap);
+    List<EnrollmentFact> chunk = new ArrayList<>(CHUNK_SIZE);
+    repository.streamEnrollmentsAfter(
+        afterId,
+        fact -> {
+          chunk.add(fact);
+          if (chunk.size() >= CHUNK_SIZE) {
+            applyEnrollments(chunk);
+            chunk.clear();
+          }
+        });
+    applyEnrollments(chunk);
+  }
+
+  private void applyEnrollments(List<EnrollmentFact> facts) {
+    if (facts.isEmpty()) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      for (EnrollmentFact fact : facts) {
+        enrollmentWatermark = Math.max(enrollmentWatermark, fact.id());
+        if (enrollmentIndex.get(fact.id()) != LongIntMap.MISSING) {
+          continue;
+        }
+        if (enrollmentCount >= maxEnrollments) {
+          throw new CapacityExceededException("more than " + maxEnrollments + " enrollments");
+        }
+        ensureEnrollmentCapacity(enrollmentCount + 1);
+        int i = enrollmentCount++;
+        int c = courseIndexFor(fact.courseId());
+        enrollmentIds[i] = fact.id();
+        enrollmentUsers[i] = fact.userId();
+        enrollmentCourses[i] = c;
+        enrollmentDays[i] = fact.enrolledDay();
+        enrollmentIndex.put(fact.id(), i);
+        // Hash collisions only cause a false "shared" flag, which still counts correctly.
+        long pair = fact.userId() * 1_000_003L + fact.courseId();
+        pair = pair == Long.MIN_VALUE ? pair + 1 : pair;
+        int other = userCourseIndex.get(pair);
+        if (other == LongIntMap.MISSING) {
+          userCourseIndex.put(pair, i);
+        } else {
+          enrollmentShared[other] = true;
+          enrollmentShared[i] = true;
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void refreshProgress() {
+    long afterVersion = Math.max(0, progressWatermark - watermarkOverlap);
+    List<ProgressFact> chunk = new ArrayList<>(CHUNK_SIZE);
+    long[] unresolved = {Long.MAX_VALUE};
+    repository.streamProgressChangedAfter(
+        afterVersion,
+        fact -> {
+          chunk.add(fact);
+          if (chunk.size() >= CHUNK_SIZE) {
+            unresolved[0] = Math.min(unresolved[0], applyProgress(chunk));
+            chunk.clear();
+          }
+        });
+    unresolved[0] = Math.min(unresolved[0], applyProgress(chunk));
+    if (unresolved[0] != Long.MAX_VALUE) {
+      // Hold the watermark so rows of enrollments committed after our enrollment scan are retried.
+      lock.writeLock().lock();
+      try {
+        progressWatermark = Math.min(progressWatermark, unresolved[0] - 1);
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  // Returns the lowest change version whose enrollment is not in the snapshot yet.
+  private long applyProgress(List<ProgressFact> facts) {
+    long unresolved = Long.MAX_VALUE;
+    if (facts.isEmpty()) {
+      return unresolved;
+    }
+    lock.writeLock().lock();
+    try {
+      for (ProgressFact fact : facts) {
+        int e = enrollmentIndex.get(fact.enrollmentId());
+        if (e == LongIntMap.MISSING) {
+          unresolved = Math.min(unresolved, fact.changeVersion());
+          continue;
+        }
+        progressWatermark = Math.max(progressWatermark, fact.changeVersion());
+        int p = progressIndex.get(fact.id());
+        if (p == LongIntMap.MISSING) {
+          if (progressCount >= maxProgressRows) {
+            throw new CapacityExceededException("more than " + maxProgressRows + " progress rows");
+          }
+          ensureProgressCapacity(progressCount + 1);
+          p = progressCount++;
+          progressIndex.put(fact.id(), p);
+          progressEnrollments[p] = e;
+          enrollmentProgressRows[e]++;
+        } else {
+          removeFromAggregates(p);
+        }
+        progressPercents[p] = fact.progressPercent();
+        enrollmentProgressSums[e] += fact.progressPercent();
+        if (fact.progressPercent() == 100f) {
+          enrollmentCompletedLessons[e]++;
+        }
+      }
+      return unresolved;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void removeFromAggregates(int p) {
+    int e = progressEnrollments[p];
+    enrollmentProgressSums[e] -= progressPercents[p];
+    if (progressPercents[p] == 100f) {
+      enrollmentCompletedLessons[e]--;
+    }
+  }
+
+  private void ensureEnrollmentCapacity(int required) {
+    if (required <= enrollmentIds.length) {
+      return;
+    }
+    int capacity = (int) Math.min(Math.max(required, enrollmentIds.length * 2L), maxEnrollments);
+    enrollmentIds = Arrays.copyOf(enrollmentIds, capacity);
+    enrollmentUsers = Arrays.copyOf(enrollmentUsers, capacity);
+    enrollmentCourses = Arrays.copyOf(enrollmentCourses, capacity);
+    enrollmentDays = Arrays.copyOf(enrollmentDays, capacity);
+    enrollmentProgressSums = Arrays.copyOf(enrollmentProgressSums, capacity);
+    enrollmentProgressRows = Arrays.copyOf(enrollmentProgressRows, capacity);
+    enrollmentCompletedLessons = Arrays.copyOf(enrollmentCompletedLessons, capacity);
+    enrollmentShared = Arrays.copyOf(enrollmentShared, capacity);
+  }
+
+  private void ensureProgressCapacity(int required) {
+    if (required <= progressEnrollments.length) {
+      return;
+    }
+    int capacity = (int) Math.min(Math.max(required, progressEnrollments.length * 2L), maxProgressRows);
+    progressEnrollments = Arrays.copyOf(progressEnrollments, capacity);
+    progressPercents = Arrays.copyOf(progressPercents, capacity);
+  }
+
+  private long approxHeapBytes() {
+    long enrollmentBytes = (long) enrollmentIds.length * (8 + 8 + 4 + 4 + 8 + 4 + 4 + 1);
+    long progressBytes = (long) progressEnrollments.length * (4 + 4);
+    long mapBytes =
+        (enrollmentIndex.capacity() + userCourseIndex.capacity() + progressIndex.capacity()) * 12;
+    return enrollmentBytes + progressBytes + mapBytes;
+  }
+
+  private void clear() {
+    lock.writeLock().lock();
+    try {
+      enrollmentIds = new long[0];
+      enrollmentUsers = new long[0];
+      enrollmentCourses = new int[0];
+      enrollmentDays = new int[0];
+      enrollmentProgressSums = new double[0];
+      enrollmentProgressRows = new int[0];
+      enrollmentCompletedLessons = new int[0];
+      enrollmentShared = new boolean[0];
+      enrollmentCount = 0;
+      enrollmentIndex = new LongIntMap();
+      userCourseIndex = new LongIntMap();
+      progressIndex = new LongIntMap();
+      progressEnrollments = new int[0];
+      progressPercents = new float[0];
+      progressCount = 0;
+      ready = false;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void refreshQuietly() {
+    try {
+      refresh();
+    } catch (RuntimeException ex) {
+      failedRefreshes.incrementAndGet();
+      log.warn("Analytics snapshot refresh failed", ex);
+    }
+  }
+
+  private static final class CapacityExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    CapacityExceededException(String message) {
+      super(message);
+    }
+  }
+
+  private static final class UserColumns {
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] companies = new String[INITIAL_CAPACITY];
+    private boolean[] learners = new boolean[INITIAL_CAPACITY];
+    private int size;
+
+    void add(UserDimension user) {
+      if (size == ids.length) {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        companies = Arrays.copyOf(companies, capacity);
+        learners = Arrays.copyOf(learners, capacity);
+      }
+      ids[size] = user.id();
+      names[size] = user.name();
+      companies[size] = user.company();
+      learners[size] = user.learner();
+      size++;
+    }
+
+    void trim() {
+      ids = Arrays.copyOf(ids, size);
+      names = Arrays.copyOf(names, size);
+      companies = Arrays.copyOf(companies, size);
+      learners = Arrays.copyOf(learners, size);
+    }
+  }
+
+  private static final class CourseTotals {
+    private final boolean[] seen;
+    private final long[] learners;
+    private final long[] completedLearners;
+    private final double[] progressSums;
+    private final long[] progressRows;
+    private final List<Set<Long>> sharedLearners;
+    private final List<Set<Long>> sharedCompleted;
+    private final List<Integer> courses = new ArrayList<>();
+
+    CourseTotals(int courseCount) {
+      seen = new boolean[courseCount];
+      learners = new long[courseCount];
+      completedLearners = new long[courseCount];
+      progressSums = new double[courseCount];
+      progressRows = new long[courseCount];
+      sharedLearners = new ArrayList<>(Collections.nCopies(courseCount, null));
+      sharedCompleted = new ArrayList<>(Collections.nCopies(courseCount, null));
+    }
+
+    Set<Long> sharedLearners(int c) {
+      Set<Long> learners = sharedLearners.get(c);
+      if (learners == null) {
+        learners = new HashSet<>();
+        sharedLearners.set(c, learners);
+      }
+      return learners;
+    }
+
+    Set<Long> sharedCompleted(int c) {
+      Set<Long> completed = sharedCompleted.get(c);
+      if (completed == null) {
+        completed = new HashSet<>();
+        sharedCompleted.set(c, completed);
+      }
+      return completed;
+    }
+  }
+
+  private static final class SliceTotals {
+    private final String label;
+    private final Set<Long> learners = new HashSet<>();
+    private long enrollments;
+    private double progressSum;
+    private long progressRows;
+    private long completedLessons;
+
+    SliceTotals(String label) {
+      this.label = label;
+    }
+  }
+}
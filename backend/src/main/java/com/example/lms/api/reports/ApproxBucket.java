@@ -0,0 +1,3 @@
+package com.example.lms.api.reports;
+
+record ApproxBucket(long courseId, String courseTitle, byte[] sketch, double progressSum, long progressCount) {}
@@ -0,0 +1,3 @@
+package com.example.lms.api.reports;
+
+record BucketLearner(long enrollmentId, RollupBucket bucket, long userId) {}
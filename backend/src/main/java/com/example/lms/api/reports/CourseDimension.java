@@ -0,0 +1,3 @@
+package com.example.lms.api.reports;
+
+record CourseDimension(long id, String title, int lessonCount) {}
@@ -1,33 +1,70 @@
 package com.example.lms.api.reports;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 public final class CsvUtil {
+  public static final String COURSE_PERIOD_HEADER = "course_id,course_title,learner_count,avg_progress";
+  public static final String COURSE_COMPLETION_HEADER = "course_id,course_title,completed_learners";
+  public static final String LEARNER_PROGRESS_HEADER =
+      "user_id,user_name,course_id,course_title,avg_progress,completed_lessons,total_lessons";
+
   private CsvUtil() {}
 
   public static String toCoursePeriodCsv(List<ReportDtos.CoursePeriodReportRow> rows) {
     StringBuilder sb = new StringBuilder();
-    sb.append("course_id,course_title,learner_count,avg_progress").append("\n");
+    sb.append(COURSE_PERIOD_HEADER).append("\n");
     for (ReportDtos.CoursePeriodReportRow row : rows) {
-      sb.append(row.courseId()).append(",");
-      sb.append(escape(row.courseTitle())).append(",");
-      sb.append(row.learnerCount()).append(",");
-      sb.append(row.avgProgress()).append("\n");
+      appendCoursePeriod(sb, row);
     }
     return sb.toString();
   }
 
   public static String toCourseCompletionCsv(List<ReportDtos.CourseCompletionReportRow> rows) {
     StringBuilder sb = new StringBuilder();
-    sb.append("course_id,course_title,completed_learners").append("\n");
+    sb.append(COURSE_COMPLETION_HEADER).append("\n");
     for (ReportDtos.CourseCompletionReportRow row : rows) {
-      sb.append(row.courseId()).append(",");
-      sb.append(escape(row.courseTitle())).append(",");
-      sb.append(row.completedLearners()).append("\n");
+      appendCourseCompletion(sb, row);
     }
     return sb.toString();
   }
 
+  public static void appendCoursePeriod(Appendable out, ReportDtos.CoursePeriodReportRow row) {
+    try {
+      out.append(String.valueOf(row.courseId())).append(",");
+      out.append(escape(row.courseTitle())).append(",");
+      out.append(String.valueOf(row.learnerCount())).append(",");
+      out.append(String.valueOf(row.avgProgress())).append("\n");
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  public static void appendCourseCompletion(Appendable out, ReportDtos.CourseCompletionReportRow row) {
+    try {
+      out.append(String.valueOf(row.courseId())).append(",");
+      out.append(escape(row.courseTitle())).append(",");
+      out.append(String.valueOf(row.completedLearners())).append("\n");
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  public static void appendLearnerProgress(Appendable out, ReportDtos.LearnerProgressRow row) {
+    try {
+      out.append(String.valueOf(row.userId())).append(",");
+      out.append(escape(row.userName())).append(",");
+      out.append(String.valueOf(row.courseId())).append(",");
+      out.append(escape(row.courseTitle())).append(",");
+      out.append(String.valueOf(row.avgProgress())).append(",");
+      out.append(String.valueOf(row.completedLessons())).append(",");
+      out.append(String.valueOf(row.totalLessons())).append("\n");
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
   private static String escape(String value) {
     if (value == null) {
       return "";
@@ -0,0 +1,3 @@
+package com.example.lms.api.reports;
+
+record EnrollmentFact(long id, long userId, long courseId, int enrolledDay) {}
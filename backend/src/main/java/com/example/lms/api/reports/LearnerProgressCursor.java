@@ -0,0 +1,29 @@
+package com.example.lms.api.reports;
+
+import com.example.lms.api.error.ApiException;
+import com.example.lms.api.error.ErrorCode;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque keyset position for the learner progress report: the last (user, course) pair returned.
+public record LearnerProgressCursor(long userId, long courseId) {
+  public static LearnerProgressCursor of(ReportDtos.LearnerProgressRow row) {
+    return new LearnerProgressCursor(row.userId(), row.courseId());
+  }
+
+  public static LearnerProgressCursor decode(String token) {
+    try {
+      String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int separator = value.indexOf(':');
+      return new LearnerProgressCursor(
+          Long.parseLong(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+    } catch (RuntimeException ex) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "Invalid cursor");
+    }
+  }
+
+  public String encode() {
+    String value = userId + ":" + courseId;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,97 @@
+package com.example.lms.api.reports;
+
+import java.util.Arrays;
+
+// Open-addressing long -> int map without boxing, for the analytics snapshot's id lookups.
+// Not thread-safe; callers guard it with the snapshot lock.
+final class LongIntMap {
+  static final int MISSING = -1;
+
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private long[] keys;
+  private int[] values;
+  private int size;
+
+  LongIntMap() {
+    this(16);
+  }
+
+  LongIntMap(int expected) {
+    int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+    keys = new long[capacity];
+    values = new int[capacity];
+    Arrays.fill(keys, EMPTY);
+  }
+
+  int get(long key) {
+    long[] table = keys;
+    int mask = table.length - 1;
+    for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+      long current = table[slot];
+      if (current == key) {
+        return values[slot];
+      }
+      if (current == EMPTY) {
+        return MISSING;
+      }
+    }
+  }
+
+  void put(long key, int value) {
+    if (key == EMPTY) {
+      throw new IllegalArgumentException("Reserved key");
+    }
+    if ((size + 1) * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+    int mask = keys.length - 1;
+    for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+      long current = keys[slot];
+      if (current == key) {
+        values[slot] = value;
+        return;
+      }
+      if (current == EMPTY) {
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return;
+      }
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  long capacity() {
+    return keys.length;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new long[capacity];
+    values = new int[capacity];
+    Arrays.fill(keys, EMPTY);
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      long key = oldKeys[i];
+      if (key == EMPTY) {
+        continue;
+      }
+      int slot = hash(key) & mask;
+      while (keys[slot] != EMPTY) {
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = key;
+      values[slot] = oldValues[i];
+    }
+  }
+
+  private static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
@@ -0,0 +1,3 @@
+package com.example.lms.api.reports;
+
+record ProgressFact(long id, long enrollmentId, float progressPercent, long changeVersion) {}
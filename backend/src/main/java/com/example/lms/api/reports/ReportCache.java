@@ -0,0 +1,129 @@
+package com.example.lms.api.reports;
+
+import com.example.lms.api.cache.BoundedTtlCache;
+import com.example.lms.api.enrollments.EnrollmentRepository;
+import com.example.lms.api.events.ReportDataChangedEvent;
+import com.example.lms.api.metrics.MetricsSource;
+import java.sql.Date;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Caches report rows by report type and parameters. Concurrent misses for the same key share one
+// computation. Entries are dropped when enrollments or progress of their course change; when reports
+// are served from the rollup, only rollup refreshes count as changes.
+@Component
+public class ReportCache implements MetricsSource {
+  private final BoundedTtlCache<ReportKey, List<?>> cache;
+  private final ConcurrentHashMap<ReportKey, CompletableFuture<List<?>>> inFlight =
+      new ConcurrentHashMap<>();
+  private final EnrollmentRepository enrollmentRepository;
+  private final ReportRollupService rollupService;
+  private final boolean enabled;
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+
+  public ReportCache(
+      EnrollmentRepository enrollmentRepository,
+      ReportRollupService rollupService,
+      @Value("${lms.reports.cache.enabled:true}") boolean enabled,
+      @Value("${lms.reports.cache.max-size:500}") int maxSize,
+      @Value("${lms.reports.cache.ttl-seconds:300}") long ttlSeconds) {
+    this.enrollmentRepository = enrollmentRepository;
+    this.rollupService = rollupService;
+    this.enabled = enabled;
+    this.cache = new BoundedTtlCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> List<T> get(ReportKey key, Supplier<List<T>> loader) {
+    if (!enabled) {
+      return loader.get();
+    }
+    List<?> cached = cache.get(key);
+    if (cached != null) {
+      return (List<T>) cached;
+    }
+    CompletableFuture<List<?>> mine = new CompletableFuture<>();
+    CompletableFuture<List<?>> existing = inFlight.putIfAbsent(key, mine);
+    if (existing != null) {
+      coalesced.incrementAndGet();
+      return (List<T>) await(existing);
+    }
+    try {
+      long startGeneration = generation.get();
+      List<T> rows = List.copyOf(loader.get());
+      if (startGeneration == generation.get()) {
+        cache.put(key, rows);
+      }
+      mine.complete(rows);
+      return rows;
+    } catch (RuntimeException ex) {
+      mine.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  @EventListener
+  public void onReportDataChanged(ReportDataChangedEvent event) {
+    boolean fromRollup = event.source() == ReportDataChangedEvent.Source.ROLLUP;
+    if (rollupService.isEnabled() != fromRollup) {
+      return;
+    }
+    generation.incrementAndGet();
+    if (event.allCourses()) {
+      cache.clear();
+      return;
+    }
+    Set<Long> courseIds = new HashSet<>(event.courseIds());
+    for (Long enrollmentId : event.enrollmentIds()) {
+      Optional<Long> courseId = enrollmentRepository.findCourseId(enrollmentId);
+      if (courseId.isEmpty()) {
+        cache.clear();
+        return;
+      }
+      courseIds.add(courseId.get());
+    }
+    cache.invalidateIf(key -> key.courseId() == null || courseIds.contains(key.courseId()));
+  }
+
+  @Override
+  public String metricsName() {
+    return "reportCache";
+  }
+
+  @Override
+  public Map<String, Object> metricsSnapshot() {
+    Map<String, Object> snapshot = cache.stats();
+    snapshot.put("enabled", enabled);
+    snapshot.put("inFlight", inFlight.size());
+    snapshot.put("coalesced", coalesced.get());
+    return snapshot;
+  }
+
+  private static List<?> await(CompletableFuture<List<?>> future) {
+    try {
+      return future.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw ex;
+    }
+  }
+
+  public record ReportKey(String type, Date from, Date to, Long courseId) {}
+}
@@ -2,49 +2,112 @@ package com.example.lms.api.reports;
 
 import com.example.lms.api.error.ApiException;
 import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.reports.ReportDtos.ApproxCheckResponse;
 import com.example.lms.api.reports.ReportDtos.CourseCompletionReportRow;
 import com.example.lms.api.reports.ReportDtos.CoursePeriodReportRow;
+import com.example.lms.api.reports.ReportDtos.LearnerProgressFilter;
+import com.example.lms.api.reports.ReportDtos.LearnerProgressPage;
 import com.example.lms.api.reports.ReportDtos.LearnerProgressRow;
+import com.example.lms.api.reports.ReportDtos.ReportJobRequest;
+import com.example.lms.api.reports.ReportDtos.ReportJobResponse;
+import com.example.lms.api.reports.ReportDtos.RollupCheckResponse;
+import com.example.lms.api.reports.ReportDtos.RollupMismatch;
+import com.example.lms.api.reports.ReportDtos.RollupRebuildResponse;
+import com.example.lms.api.reports.ReportDtos.SliceRow;
+import com.example.lms.api.reports.ReportJobService.ReportJob;
+import com.example.lms.api.reports.ReportJobService.ReportJobSpec;
 import com.example.lms.api.security.AuthContext;
 import com.example.lms.api.security.AuthUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Date;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/reports")
 public class ReportController {
-  private final ReportRepository repository;
+  private static final int BUFFER_SIZE = 8192;
+  private static final int DEFAULT_PAGE_SIZE = 100;
+  private static final int MAX_PAGE_SIZE = 1000;
+  private static final List<String> SLICE_DIMENSIONS = List.of("course", "company", "day", "month");
+  private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+  private static final String APPROX_HEADER = "X-Approximate";
+  private static final String APPROX_ERROR_HEADER = "X-Learner-Count-Relative-Error";
+  private static final MediaType NDJSON = MediaType.valueOf("application/x-ndjson");
 
-  public ReportController(ReportRepository repository) {
-    this.repository = repository;
+  private final ReportService service;
+  private final ReportRollupService rollupService;
+  private final ReportJobService jobService;
+  private final ReportExportExecutor exportExecutor;
+  private final ObjectMapper mapper;
+
+  public ReportController(
+      ReportService service,
+      ReportRollupService rollupService,
+      ReportJobService jobService,
+      ReportExportExecutor exportExecutor,
+      ObjectMapper mapper) {
+    this.service = service;
+    this.rollupService = rollupService;
+    this.jobService = jobService;
+    this.exportExecutor = exportExecutor;
+    this.mapper = mapper;
   }
 
   @GetMapping("/course-period")
-  public List<CoursePeriodReportRow> coursePeriod(
+  public ResponseEntity<List<CoursePeriodReportRow>> coursePeriod(
       @RequestParam("from") String from,
       @RequestParam("to") String to,
       @RequestParam(name = "courseId", required = false) Long courseId,
+      @RequestParam(name = "approx", defaultValue = "false") boolean approx,
       @RequestHeader("X-User-Id") Optional<String> userIdHeader,
       @RequestHeader("X-Role") Optional<String> roleHeader) {
     AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
     AuthUtil.requireAdmin(ctx);
     Date fromDate = parseDate(from, "from");
     Date toDate = parseDate(to, "to");
-    return repository.coursePeriodReport(fromDate, toDate, courseId);
+    if (!approx) {
+      return ResponseEntity.ok(service.coursePeriodReport(fromDate, toDate, courseId));
+    }
+    List<CoursePeriodReportRow> rows = service.approxCoursePeriodReport(fromDate, toDate, courseId);
+    return ResponseEntity.ok()
+        .header(APPROX_HEADER, "true")
+        .header(APPROX_ERROR_HEADER, String.valueOf(rollupService.approxRelativeError()))
+        .body(rows);
   }
 
-  @GetMapping("/course-period.csv")
-  public ResponseEntity<String> coursePeriodCsv(
+  @GetMapping("/course-period/approx-check")
+  public ApproxCheckResponse checkApprox(
       @RequestParam("from") String from,
       @RequestParam("to") String to,
       @RequestParam(name = "courseId", required = false) Long courseId,
@@ -52,14 +115,29 @@ public class ReportController {
       @RequestHeader("X-Role") Optional<String> roleHeader) {
     AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
     AuthUtil.requireAdmin(ctx);
+    return rollupService.checkApprox(parseDate(from, "from"), parseDate(to, "to"), courseId);
+  }
+
+  @GetMapping("/course-period.csv")
+  public ResponseEntity<StreamingResponseBody> coursePeriodCsv(
+      @RequestParam("from") String from,
+      @RequestParam("to") String to,
+      @RequestParam(name = "courseId", required = false) Long courseId,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader,
+      @RequestHeader(HttpHeaders.ACCEPT_ENCODING) Optional<String> acceptEncoding,
+      HttpServletRequest request) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    AuthUtil.requireAdmin(ctx);
     Date fromDate = parseDate(from, "from");
     Date toDate = parseDate(to, "to");
-    List<CoursePeriodReportRow> rows = repository.coursePeriodReport(fromDate, toDate, courseId);
-    String csv = CsvUtil.toCoursePeriodCsv(rows);
-    return ResponseEntity.ok()
-        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"course-period.csv\"")
-        .contentType(MediaType.valueOf("text/csv"))
-        .body(csv);
+    List<CoursePeriodReportRow> rows = service.coursePeriodReport(fromDate, toDate, courseId);
+    return streamCsv(
+        request,
+        "course-period.csv",
+        acceptEncoding,
+        CsvUtil.COURSE_PERIOD_HEADER,
+        writer -> rows.forEach(row -> CsvUtil.appendCoursePeriod(writer, row)));
   }
 
   @GetMapping("/course-completion")
@@ -73,41 +151,314 @@ public class ReportController {
     AuthUtil.requireAdmin(ctx);
     Date fromDate = parseDate(from, "from");
     Date toDate = parseDate(to, "to");
-    return repository.courseCompletionReport(fromDate, toDate, courseId);
+    return service.courseCompletionReport(fromDate, toDate, courseId);
+  }
+
+  @GetMapping("/slice")
+  public List<SliceRow> slice(
+      @RequestParam("from") String from,
+      @RequestParam("to") String to,
+      @RequestParam(name = "groupBy", defaultValue = "course") String groupBy,
+      @RequestParam(name = "courseId", required = false) Long courseId,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    AuthUtil.requireAdmin(ctx);
+    if (!SLICE_DIMENSIONS.contains(groupBy)) {
+      throw new ApiException(
+          ErrorCode.VALIDATION_ERROR, "groupBy must be one of " + String.join(", ", SLICE_DIMENSIONS));
+    }
+    return service.slice(parseDate(from, "from"), parseDate(to, "to"), courseId, groupBy);
   }
 
   @GetMapping("/learner-progress")
   public List<LearnerProgressRow> learnerProgress(
       @RequestParam(name = "userId", required = false) Long userId,
+      @RequestParam(name = "courseId", required = false) Long courseId,
+      @RequestParam(name = "company", required = false) String company,
       @RequestHeader("X-User-Id") Optional<String> userIdHeader,
       @RequestHeader("X-Role") Optional<String> roleHeader) {
     AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
-    if ("ADMIN".equalsIgnoreCase(ctx.role())) {
-      return repository.learnerProgress(userId);
-    }
-    if ("LEARNER".equalsIgnoreCase(ctx.role())) {
-      return repository.learnerProgress(ctx.userId());
+    return service.learnerProgress(learnerProgressFilter(ctx, userId, courseId, company));
+  }
+
+  @GetMapping("/learner-progress/page")
+  public LearnerProgressPage learnerProgressPage(
+      @RequestParam(name = "userId", required = false) Long userId,
+      @RequestParam(name = "courseId", required = false) Long courseId,
+      @RequestParam(name = "company", required = false) String company,
+      @RequestParam(name = "cursor", required = false) String cursor,
+      @RequestParam(name = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new ApiException(
+          ErrorCode.VALIDATION_ERROR, "limit must be between 1 and " + MAX_PAGE_SIZE);
     }
-    throw new ApiException(ErrorCode.FORBIDDEN, "Unsupported role");
+    LearnerProgressCursor after =
+        cursor == null || cursor.isBlank() ? null : LearnerProgressCursor.decode(cursor);
+    return service.learnerProgressPage(
+        learnerProgressFilter(ctx, userId, courseId, company), after, limit);
+  }
+
+  @GetMapping("/learner-progress.ndjson")
+  public ResponseEntity<StreamingResponseBody> learnerProgressNdjson(
+      @RequestParam(name = "userId", required = false) Long userId,
+      @RequestParam(name = "courseId", required = false) Long courseId,
+      @RequestParam(name = "company", required = false) String company,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader,
+      @RequestHeader(HttpHeaders.ACCEPT_ENCODING) Optional<String> acceptEncoding,
+      HttpServletRequest request) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    LearnerProgressFilter filter = learnerProgressFilter(ctx, userId, courseId, company);
+    ObjectWriter rowWriter = mapper.writerFor(LearnerProgressRow.class);
+    return streamText(
+        request,
+        NDJSON,
+        "learner-progress.ndjson",
+        acceptEncoding,
+        writer ->
+            service.streamLearnerProgress(
+                filter,
+                row -> {
+                  try {
+                    writer.write(rowWriter.writeValueAsString(row));
+                    writer.write("\n");
+                  } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                  }
+                }));
   }
 
   @GetMapping("/course-completion.csv")
-  public ResponseEntity<String> courseCompletionCsv(
+  public ResponseEntity<StreamingResponseBody> courseCompletionCsv(
       @RequestParam("from") String from,
       @RequestParam("to") String to,
       @RequestParam(name = "courseId", required = false) Long courseId,
       @RequestHeader("X-User-Id") Optional<String> userIdHeader,
-      @RequestHeader("X-Role") Optional<String> roleHeader) {
+      @RequestHeader("X-Role") Optional<String> roleHeader,
+      @RequestHeader(HttpHeaders.ACCEPT_ENCODING) Optional<String> acceptEncoding,
+      HttpServletRequest request) {
     AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
     AuthUtil.requireAdmin(ctx);
     Date fromDate = parseDate(from, "from");
     Date toDate = parseDate(to, "to");
-    List<CourseCompletionReportRow> rows = repository.courseCompletionReport(fromDate, toDate, courseId);
-    String csv = CsvUtil.toCourseCompletionCsv(rows);
-    return ResponseEntity.ok()
-        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"course-completion.csv\"")
-        .contentType(MediaType.valueOf("text/csv"))
-        .body(csv);
+    List<CourseCompletionReportRow> rows = service.courseCompletionReport(fromDate, toDate, courseId);
+    return streamCsv(
+        request,
+        "course-completion.csv",
+        acceptEncoding,
+        CsvUtil.COURSE_COMPLETION_HEADER,
+        writer -> rows.forEach(row -> CsvUtil.appendCourseCompletion(writer, row)));
+  }
+
+  @GetMapping("/learner-progress.csv")
+  public ResponseEntity<StreamingResponseBody> learnerProgressCsv(
+      @RequestParam(name = "userId", required = false) Long userId,
+      @RequestParam(name = "courseId", required = false) Long courseId,
+      @RequestParam(name = "company", required = false) String company,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader,
+      @RequestHeader(HttpHeaders.ACCEPT_ENCODING) Optional<String> acceptEncoding,
+      HttpServletRequest request) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    LearnerProgressFilter filter = learnerProgressFilter(ctx, userId, courseId, company);
+    return streamCsv(
+        request,
+        "learner-progress.csv",
+        acceptEncoding,
+        CsvUtil.LEARNER_PROGRESS_HEADER,
+        writer -> service.streamLearnerProgress(filter, row -> CsvUtil.appendLearnerProgress(writer, row)));
+  }
+
+  @PostMapping("/jobs")
+  public ResponseEntity<ReportJobResponse> submitJob(
+      @RequestBody ReportJobRequest request,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    AuthUtil.requireAdmin(ctx);
+    String type = request.type() == null ? "" : request.type();
+    if (!ReportJobSpec.TYPES.contains(type)) {
+      throw new ApiException(
+          ErrorCode.VALIDATION_ERROR, "type must be one of " + String.join(", ", ReportJobSpec.TYPES));
+    }
+    ReportJobSpec spec;
+    if (ReportJobSpec.LEARNER_PROGRESS.equals(type)) {
+      spec =
+          new ReportJobSpec(
+              type,
+              null,
+              null,
+              null,
+              learnerProgressFilter(ctx, request.userId(), request.courseId(), request.company()));
+    } else {
+      if (request.from() == null || request.to() == null) {
+        throw new ApiException(ErrorCode.VALIDATION_ERROR, "from and to are required");
+      }
+      spec =
+          new ReportJobSpec(
+              type, parseDate(request.from(), "from"), parseDate(request.to(), "to"), request.courseId(), null);
+    }
+    ReportJob job = jobService.submit(ctx.userId(), spec);
+    return ResponseEntity.accepted().body(toJobResponse(job));
+  }
+
+  @GetMapping("/jobs")
+  public List<ReportJobResponse> listJobs(
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    AuthUtil.requireAdmin(ctx);
+    return jobService.findByOwner(ctx.userId()).stream().map(this::toJobResponse).toList();
+  }
+
+  @GetMapping("/jobs/{id}")
+  public ReportJobResponse getJob(
+      @PathVariable("id") String id,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    AuthUtil.requireAdmin(ctx);
+    return toJobResponse(jobService.find(id, ctx.userId()));
+  }
+
+  // Full downloads use Tomcat sendfile when the connector supports it, so the spool file goes to the
+  // socket without passing through the JVM heap; range requests are served by Spring as 206.
+  @GetMapping("/jobs/{id}/result")
+  public ResponseEntity<Resource> downloadJobResult(
+      @PathVariable("id") String id,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader,
+      HttpServletRequest request) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    AuthUtil.requireAdmin(ctx);
+    ReportJob job = jobService.find(id, ctx.userId());
+    if (!"SUCCEEDED".equals(job.status())) {
+      throw new ApiException(ErrorCode.CONFLICT, "Report job is " + job.status());
+    }
+    Path file = job.file();
+    if (!Files.isReadable(file)) {
+      throw new ApiException(ErrorCode.NOT_FOUND, "Report result expired");
+    }
+    ResponseEntity.BodyBuilder response =
+        ResponseEntity.ok()
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + job.spec().type() + "-" + job.id() + ".csv\"")
+            .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+            .contentType(MediaType.valueOf("text/csv"));
+    if (request.getHeader(HttpHeaders.RANGE) == null
+        && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+      request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+      request.setAttribute(SENDFILE_START, 0L);
+      request.setAttribute(SENDFILE_END, job.sizeBytes());
+      return response.contentLength(job.sizeBytes()).build();
+    }
+    return response.body(new FileSystemResource(file));
+  }
+
+  @PostMapping("/rollup/rebuild")
+  public RollupRebuildResponse rebuildRollup(
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    AuthUtil.requireAdmin(ctx);
+    long start = System.nanoTime();
+    int rows = rollupService.rebuild();
+    return new RollupRebuildResponse(rows, (System.nanoTime() - start) / 1_000_000);
+  }
+
+  @GetMapping("/rollup/check")
+  public RollupCheckResponse checkRollup(
+      @RequestParam("from") String from,
+      @RequestParam("to") String to,
+      @RequestParam(name = "courseId", required = false) Long courseId,
+      @RequestHeader("X-User-Id") Optional<String> userIdHeader,
+      @RequestHeader("X-Role") Optional<String> roleHeader) {
+    AuthContext ctx = AuthUtil.requireAuth(userIdHeader, roleHeader);
+    AuthUtil.requireAdmin(ctx);
+    List<RollupMismatch> mismatches =
+        rollupService.check(parseDate(from, "from"), parseDate(to, "to"), courseId);
+    return new RollupCheckResponse(mismatches.isEmpty(), mismatches);
+  }
+
+  private ReportJobResponse toJobResponse(ReportJob job) {
+    return new ReportJobResponse(
+        job.id(),
+        job.spec().type(),
+        job.status(),
+        job.createdAt().toString(),
+        job.finishedAt() == null ? null : job.finishedAt().toString(),
+        job.rowCount(),
+        job.sizeBytes(),
+        job.error());
+  }
+
+  private LearnerProgressFilter learnerProgressFilter(
+      AuthContext ctx, Long userId, Long courseId, String company) {
+    String companyFilter = company == null || company.isBlank() ? null : company.trim();
+    if ("ADMIN".equalsIgnoreCase(ctx.role())) {
+      return new LearnerProgressFilter(userId, courseId, companyFilter);
+    }
+    if ("LEARNER".equalsIgnoreCase(ctx.role())) {
+      return new LearnerProgressFilter(ctx.userId(), courseId, companyFilter);
+    }
+    throw new ApiException(ErrorCode.FORBIDDEN, "Unsupported role");
+  }
+
+  private ResponseEntity<StreamingResponseBody> streamCsv(
+      HttpServletRequest request,
+      String filename,
+      Optional<String> acceptEncoding,
+      String header,
+      TextBody body) {
+    return streamText(
+        request,
+        MediaType.valueOf("text/csv"),
+        filename,
+        acceptEncoding,
+        writer -> {
+          writer.write(header);
+          writer.write("\n");
+          body.write(writer);
+        });
+  }
+
+  private ResponseEntity<StreamingResponseBody> streamText(
+      HttpServletRequest request,
+      MediaType contentType,
+      String filename,
+      Optional<String> acceptEncoding,
+      TextBody body) {
+    exportExecutor.prepare(request);
+    boolean gzip = acceptEncoding.map(value -> value.toLowerCase().contains("gzip")).orElse(false);
+    StreamingResponseBody stream =
+        out -> {
+          OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+          Writer writer =
+              new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+          body.write(writer);
+          writer.flush();
+          if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+          }
+        };
+    ResponseEntity.BodyBuilder response =
+        ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .contentType(contentType);
+    if (gzip) {
+      response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    return response.body(stream);
+  }
+
+  private interface TextBody {
+    void write(Writer writer) throws IOException;
   }
 
   private Date parseDate(String value, String field) {
@@ -1,5 +1,7 @@
 package com.example.lms.api.reports;
 
+import java.util.List;
+
 public class ReportDtos {
   public record CoursePeriodReportRow(
       long courseId, String courseTitle, long learnerCount, double avgProgress) {}
@@ -15,4 +17,50 @@ public class ReportDtos {
       double avgProgress,
       long completedLessons,
       long totalLessons) {}
+
+  public record LearnerProgressFilter(Long userId, Long courseId, String company) {}
+
+  public record LearnerProgressPage(List<LearnerProgressRow> items, String nextCursor) {}
+
+  public record SliceRow(
+      String key,
+      String label,
+      long enrollments,
+      long learners,
+      double avgProgress,
+      long completedLessons) {}
+
+  public record ReportJobRequest(
+      String type, String from, String to, Long courseId, Long userId, String company) {}
+
+  public record ReportJobResponse(
+      String id,
+      String type,
+      String status,
+      String createdAt,
+      String finishedAt,
+      long rowCount,
+      long sizeBytes,
+      String error) {}
+
+  public record RollupMismatch(
+      long courseId,
+      long rawLearnerCount,
+      long rollupLearnerCount,
+      double rawAvgProgress,
+      double rollupAvgProgress,
+      long rawCompletedLearners,
+      long rollupCompletedLearners) {}
+
+  public record RollupCheckResponse(boolean consistent, List<RollupMismatch> mismatches) {}
+
+  public record RollupRebuildResponse(int rows, long durationMs) {}
+
+  public record ApproxCheckResponse(
+      int courses,
+      long exactMs,
+      long approxMs,
+      double relativeStandardError,
+      double meanRelativeError,
+      double maxRelativeError) {}
 }
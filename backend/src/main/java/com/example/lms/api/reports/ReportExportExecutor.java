@@ -0,0 +1,77 @@
+package com.example.lms.api.reports;
+
+import com.example.lms.api.concurrent.DaemonThreads;
+import com.example.lms.api.error.ApiException;
+import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.metrics.MetricsSource;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+// Streaming exports write for as long as the result set and the client take, so they do not share
+// the MVC async executor or its request timeout. Each export request is switched to this pool and
+// to timeout-ms (0 or less means no timeout) before the handler returns its StreamingResponseBody.
+@Component
+public class ReportExportExecutor implements MetricsSource {
+  private final ThreadPoolExecutor workers;
+  private final AsyncTaskExecutor executor;
+  private final long timeoutMs;
+
+  private final AtomicLong started = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+
+  public ReportExportExecutor(
+      @Value("${lms.reports.export.threads:4}") int threads,
+      @Value("${lms.reports.export.queue-capacity:20}") int queueCapacity,
+      @Value("${lms.reports.export.timeout-ms:3600000}") long timeoutMs) {
+    this.timeoutMs = timeoutMs;
+    this.workers = DaemonThreads.fixedPool("report-export", threads, queueCapacity);
+    this.executor = new TaskExecutorAdapter(workers);
+  }
+
+  public void prepare(HttpServletRequest request) {
+    if (workers.getQueue().remainingCapacity() == 0) {
+      rejected.incrementAndGet();
+      throw new ApiException(ErrorCode.TOO_MANY_REQUESTS, "Too many report exports in progress");
+    }
+    WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+    asyncManager.setTaskExecutor(executor);
+    AsyncWebRequest asyncRequest = asyncManager.getAsyncWebRequest();
+    if (asyncRequest != null) {
+      // Servlet containers treat a timeout of 0 or less as no timeout.
+      asyncRequest.setTimeout(timeoutMs > 0 ? timeoutMs : -1);
+    }
+    started.incrementAndGet();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    workers.shutdownNow();
+  }
+
+  @Override
+  public String metricsName() {
+    return "reportExports";
+  }
+
+  @Override
+  public Map<String, Object> metricsSnapshot() {
+    Map<String, Object> snapshot = new LinkedHashMap<>();
+    snapshot.put("running", workers.getActiveCount());
+    snapshot.put("queued", workers.getQueue().size());
+    snapshot.put("started", started.get());
+    snapshot.put("rejected", rejected.get());
+    snapshot.put("timeoutMs", timeoutMs);
+    return snapshot;
+  }
+}
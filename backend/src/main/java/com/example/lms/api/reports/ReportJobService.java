@@ -0,0 +1,333 @@
+package com.example.lms.api.reports;
+
+import com.example.lms.api.concurrent.DaemonThreads;
+import com.example.lms.api.error.ApiException;
+import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.metrics.MetricsSource;
+import com.example.lms.api.reports.ReportDtos.LearnerProgressFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Runs report exports off the request thread. Jobs go to a bounded pool, write CSV to a spool file
+// and are kept until they expire. Each admin may have a limited number of jobs queued or running.
+@Component
+public class ReportJobService implements MetricsSource {
+  private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+  private final ReportService reportService;
+  private final Path spoolDir;
+  private final int maxActivePerUser;
+  private final Duration ttl;
+  private final ThreadPoolExecutor workers;
+  private final ScheduledExecutorService reaper;
+  private final ConcurrentHashMap<String, ReportJob> jobs = new ConcurrentHashMap<>();
+
+  private final AtomicLong submitted = new AtomicLong();
+  private final AtomicLong succeeded = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong expired = new AtomicLong();
+
+  public ReportJobService(
+      ReportService reportService,
+      @Value("${lms.reports.jobs.spool-dir:${java.io.tmpdir}/lms-report-jobs}") String spoolDir,
+      @Value("${lms.reports.jobs.threads:2}") int threads,
+      @Value("${lms.reports.jobs.queue-capacity:50}") int queueCapacity,
+      @Value("${lms.reports.jobs.max-active-per-user:2}") int maxActivePerUser,
+      @Value("${lms.reports.jobs.ttl-minutes:60}") long ttlMinutes) {
+    this.reportService = reportService;
+    this.spoolDir = Path.of(spoolDir);
+    this.maxActivePerUser = Math.max(1, maxActivePerUser);
+    this.ttl = Duration.ofMinutes(ttlMinutes);
+    try {
+      Files.createDirectories(this.spoolDir);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Cannot create report spool directory " + spoolDir, ex);
+    }
+    this.workers = DaemonThreads.fixedPool("report-job", threads, queueCapacity);
+    this.reaper = DaemonThreads.scheduler("report-job-reaper");
+  }
+
+  @PostConstruct
+  public void start() {
+    reaper.scheduleWithFixedDelay(this::expireQuietly, 1, 1, TimeUnit.MINUTES);
+  }
+
+  public ReportJob submit(long ownerId, ReportJobSpec spec) {
+    ReportJob job;
+    synchronized (this) {
+      long active =
+          jobs.values().stream().filter(existing -> existing.ownerId() == ownerId && existing.isActive()).count();
+      if (active >= maxActivePerUser) {
+        rejected.incrementAndGet();
+        throw new ApiException(
+            ErrorCode.CONFLICT, "At most " + maxActivePerUser + " report jobs may run at once");
+      }
+      job = new ReportJob(UUID.randomUUID().toString(), ownerId, spec, Instant.now());
+      jobs.put(job.id(), job);
+    }
+    try {
+      workers.execute(() -> run(job));
+    } catch (RejectedExecutionException ex) {
+      jobs.remove(job.id());
+      rejected.incrementAndGet();
+      throw new ApiException(ErrorCode.CONFLICT, "Report job queue is full");
+    }
+    submitted.incrementAndGet();
+    return job;
+  }
+
+  public ReportJob find(String id, long userId) {
+    ReportJob job = jobs.get(id);
+    if (job == null || job.ownerId() != userId) {
+      throw new ApiException(ErrorCode.NOT_FOUND, "Report job not found");
+    }
+    return job;
+  }
+
+  public List<ReportJob> findByOwner(long userId) {
+    return jobs.values().stream()
+        .filter(job -> job.ownerId() == userId)
+        .sorted(Comparator.comparing(ReportJob::createdAt).reversed())
+        .toList();
+  }
+
+  public int expire() {
+    Instant cutoff = Instant.now().minus(ttl);
+    int removed = 0;
+    for (ReportJob job : jobs.values()) {
+      if (job.isActive() || job.finishedAt().isAfter(cutoff)) {
+        continue;
+      }
+      jobs.remove(job.id());
+      deleteQuietly(job.file());
+      removed++;
+    }
+    expired.addAndGet(removed);
+    return removed;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    reaper.shutdownNow();
+    workers.shutdownNow();
+    try {
+      workers.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    for (ReportJob job : jobs.values()) {
+      deleteQuietly(job.file());
+    }
+  }
+
+  @Override
+  public String metricsName() {
+    return "reportJobs";
+  }
+
+  @Override
+  public Map<String, Object> metricsSnapshot() {
+    Map<String, Object> snapshot = new LinkedHashMap<>();
+    snapshot.put("jobs", jobs.size());
+    snapshot.put("running", workers.getActiveCount());
+    snapshot.put("queued", workers.getQueue().size());
+    snapshot.put("submitted", submitted.get());
+    snapshot.put("succeeded", succeeded.get());
+    snapshot.put("failed", failed.get());
+    snapshot.put("rejected", rejected.get());
+    snapshot.put("expired", expired.get());
+    return snapshot;
+  }
+
+  private void run(ReportJob job) {
+    job.start();
+    Path partial = spoolDir.resolve(job.id() + ".part");
+    Path target = spoolDir.resolve(job.id() + ".csv");
+    try {
+      long rows;
+      try (Writer writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+        rows = write(job.spec(), writer);
+      }
+      Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      job.succeed(target, rows, Files.size(target));
+      succeeded.incrementAndGet();
+    } catch (IOException | RuntimeException ex) {
+      deleteQuietly(partial);
+      job.fail(ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage());
+      failed.incrementAndGet();
+      log.warn("Report job {} ({}) failed", job.id(), job.spec().type(), ex);
+    }
+  }
+
+  private long write(ReportJobSpec spec, Writer writer) throws IOException {
+    AtomicLong rows = new AtomicLong();
+    switch (spec.type()) {
+      case ReportJobSpec.COURSE_PERIOD -> {
+        writer.write(CsvUtil.COURSE_PERIOD_HEADER);
+        writer.write("\n");
+        for (ReportDtos.CoursePeriodReportRow row :
+            reportService.coursePeriodReport(spec.from(), spec.to(), spec.courseId())) {
+          CsvUtil.appendCoursePeriod(writer, row);
+          rows.incrementAndGet();
+        }
+      }
+      case ReportJobSpec.COURSE_COMPLETION -> {
+        writer.write(CsvUtil.COURSE_COMPLETION_HEADER);
+        writer.write("\n");
+        for (ReportDtos.CourseCompletionReportRow row :
+            reportService.courseCompletionReport(spec.from(), spec.to(), spec.courseId())) {
+          CsvUtil.appendCourseCompletion(writer, row);
+          rows.incrementAndGet();
+        }
+      }
+      case ReportJobSpec.LEARNER_PROGRESS -> {
+        writer.write(CsvUtil.LEARNER_PROGRESS_HEADER);
+        writer.write("\n");
+        reportService.streamLearnerProgress(
+            spec.learnerFilter(),
+            row -> {
+              CsvUtil.appendLearnerProgress(writer, row);
+              rows.incrementAndGet();
+            });
+      }
+      default -> throw new IllegalArgumentException("Unknown report type " + spec.type());
+    }
+    return rows.get();
+  }
+
+  private void expireQuietly() {
+    try {
+      expire();
+    } catch (RuntimeException ex) {
+      log.warn("Report job expiry failed", ex);
+    }
+  }
+
+  private void deleteQuietly(Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException ex) {
+      log.warn("Could not delete report spool file {}", file, ex);
+    }
+  }
+
+  public record ReportJobSpec(
+      String type, Date from, Date to, Long courseId, LearnerProgressFilter learnerFilter) {
+    public static final String COURSE_PERIOD = "course-period";
+    public static final String COURSE_COMPLETION = "course-completion";
+    public static final String LEARNER_PROGRESS = "learner-progress";
+    public static final List<String> TYPES = List.of(COURSE_PERIOD, COURSE_COMPLETION, LEARNER_PROGRESS);
+  }
+
+  public static final class ReportJob {
+    private final String id;
+    private final long ownerId;
+    private final ReportJobSpec spec;
+    private final Instant createdAt;
+    private volatile String status = "QUEUED";
+    private volatile Instant finishedAt;
+    private volatile Path file;
+    private volatile long rowCount;
+    private volatile long sizeBytes;
+    private volatile String error;
+
+    ReportJob(String id, long ownerId, ReportJobSpec spec, Instant createdAt) {
+      this.id = id;
+      this.ownerId = ownerId;
+      this.spec = spec;
+      this.createdAt = createdAt;
+    }
+
+    public String id() {
+      return id;
+    }
+
+    public long ownerId() {
+      return ownerId;
+    }
+
+    public ReportJobSpec spec() {
+      return spec;
+    }
+
+    public Instant createdAt() {
+      return createdAt;
+    }
+
+    public String status() {
+      return status;
+    }
+
+    public Instant finishedAt() {
+      return finishedAt;
+    }
+
+    public Path file() {
+      return file;
+    }
+
+    public long rowCount() {
+      return rowCount;
+    }
+
+    public long sizeBytes() {
+      return sizeBytes;
+    }
+
+    public String error() {
+      return error;
+    }
+
+    public boolean isActive() {
+      return "QUEUED".equals(status) || "RUNNING".equals(status);
+    }
+
+    void start() {
+      status = "RUNNING";
+    }
+
+    void succeed(Path file, long rowCount, long sizeBytes) {
+      this.file = file;
+      this.rowCount = rowCount;
+      this.sizeBytes = sizeBytes;
+      this.finishedAt = Instant.now();
+      this.status = "SUCCEEDED";
+    }
+
+    void fail(String error) {
+      this.error = error;
+      this.finishedAt = Instant.now();
+      this.status = "FAILED";
+    }
+  }
+}
@@ -2,11 +2,13 @@ package com.example.lms.api.reports;
 
 import com.example.lms.api.reports.ReportDtos.CourseCompletionReportRow;
 import com.example.lms.api.reports.ReportDtos.CoursePeriodReportRow;
+import com.example.lms.api.reports.ReportDtos.LearnerProgressFilter;
 import com.example.lms.api.reports.ReportDtos.LearnerProgressRow;
 import java.sql.Date;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
@@ -20,6 +22,12 @@ public class ReportRepository {
   }
 
   public List<CoursePeriodReportRow> coursePeriodReport(Date from, Date to, Long courseId) {
+    List<Object> params = new ArrayList<>();
+    String sql = coursePeriodSql(from, to, courseId, params);
+    return jdbcTemplate.query(sql, mapperPeriod(), params.toArray());
+  }
+
+  private String coursePeriodSql(Date from, Date to, Long courseId, List<Object> params) {
     String baseSql =
         """
         SELECT
@@ -33,7 +41,6 @@ public class ReportRepository {
         WHERE e.ENROLLED_AT >= ? AND e.ENROLLED_AT < (? + 1)
         """;
 
-    List<Object> params = new ArrayList<>();
     params.add(from);
     params.add(to);
 
@@ -43,11 +50,16 @@ public class ReportRepository {
     }
 
     baseSql += " GROUP BY c.ID, c.TITLE ORDER BY c.ID";
-
-    return jdbcTemplate.query(baseSql, mapperPeriod(), params.toArray());
+    return baseSql;
   }
 
   public List<CourseCompletionReportRow> courseCompletionReport(Date from, Date to, Long courseId) {
+    List<Object> params = new ArrayList<>();
+    String sql = courseCompletionSql(from, to, courseId, params);
+    return jdbcTemplate.query(sql, mapperCompletion(), params.toArray());
+  }
+
+  private String courseCompletionSql(Date from, Date to, Long courseId, List<Object> params) {
     String baseSql =
         """
         SELECT
@@ -60,7 +72,6 @@ public class ReportRepository {
         WHERE e.ENROLLED_AT >= ? AND e.ENROLLED_AT < (? + 1)
         """;
 
-    List<Object> params = new ArrayList<>();
     params.add(from);
     params.add(to);
 
@@ -70,11 +81,32 @@ public class ReportRepository {
     }
 
     baseSql += " GROUP BY c.ID, c.TITLE ORDER BY c.ID";
+    return baseSql;
+  }
+
+  public List<LearnerProgressRow> learnerProgress(LearnerProgressFilter filter) {
+    List<Object> params = new ArrayList<>();
+    String sql = learnerProgressSql(filter, params);
+    return jdbcTemplate.query(sql, mapperLearnerProgress(), params.toArray());
+  }
 
-    return jdbcTemplate.query(baseSql, mapperCompletion(), params.toArray());
+  public List<LearnerProgressRow> learnerProgressPage(
+      LearnerProgressFilter filter, LearnerProgressCursor after, int limit) {
+    List<Object> params = new ArrayList<>();
+    String sql = learnerProgressPageSql(filter, after, limit, params);
+    return jdbcTemplate.query(sql, mapperLearnerProgress(), params.toArray());
   }
 
-  public List<LearnerProgressRow> learnerProgress(Long userId) {
+  public void streamLearnerProgress(LearnerProgressFilter filter, Consumer<LearnerProgressRow> consumer) {
+    List<Object> params = new ArrayList<>();
+    String sql = learnerProgressSql(filter, params);
+    RowMapper<LearnerProgressRow> mapper = mapperLearnerProgress();
+    jdbcTemplate.query(
+        StreamingStatements.of(sql, params.toArray()),
+        (ResultSet rs) -> consumer.accept(mapper.mapRow(rs, rs.getRow())));
+  }
+
+  private String learnerProgressSql(LearnerProgressFilter filter, List<Object> params) {
     String sql =
         """
         SELECT
@@ -92,13 +124,70 @@ public class ReportRepository {
         LEFT JOIN PROGRESS p ON p.ENROLLMENT_ID = e.ID AND p.LESSON_ID = l.ID
         WHERE u.ROLE = 'LEARNER'
         """;
-    List<Object> params = new ArrayList<>();
-    if (userId != null) {
-      sql += " AND u.ID = ?";
-      params.add(userId);
-    }
+    sql += learnerProgressFilterSql(filter, params);
     sql += " GROUP BY u.ID, u.NAME, c.ID, c.TITLE ORDER BY u.ID, c.ID";
-    return jdbcTemplate.query(sql, mapperLearnerProgress(), params.toArray());
+    return sql;
+  }
+
+  // Picks the page of (user, course) keys from ENROLLMENTS first, so the lesson/progress join and the
+  // aggregation only run for the rows that are returned.
+  private String learnerProgressPageSql(
+      LearnerProgressFilter filter, LearnerProgressCursor after, int limit, List<Object> params) {
+    String keysSql =
+        """
+        SELECT DISTINCT e.USER_ID, e.COURSE_ID
+        FROM ENROLLMENTS e
+        JOIN USERS u ON u.ID = e.USER_ID
+        WHERE u.ROLE = 'LEARNER'
+          AND EXISTS (SELECT 1 FROM LESSONS l WHERE l.COURSE_ID = e.COURSE_ID)
+        """;
+    keysSql += learnerProgressFilterSql(filter, params);
+    if (after != null) {
+      keysSql += " AND (e.USER_ID > ? OR (e.USER_ID = ? AND e.COURSE_ID > ?))";
+      params.add(after.userId());
+      params.add(after.userId());
+      params.add(after.courseId());
+    }
+    keysSql += " ORDER BY e.USER_ID, e.COURSE_ID FETCH FIRST ? ROWS ONLY";
+    params.add(limit);
+    return "WITH PAGE_KEYS AS (\n"
+        + keysSql
+        + """
+        )
+        SELECT
+          u.ID AS USER_ID,
+          u.NAME AS USER_NAME,
+          c.ID AS COURSE_ID,
+          c.TITLE AS COURSE_TITLE,
+          NVL(AVG(p.PROGRESS_PERCENT), 0) AS AVG_PROGRESS,
+          SUM(CASE WHEN p.PROGRESS_PERCENT = 100 THEN 1 ELSE 0 END) AS COMPLETED_LESSONS,
+          COUNT(l.ID) AS TOTAL_LESSONS
+        FROM PAGE_KEYS k
+        JOIN USERS u ON u.ID = k.USER_ID
+        JOIN ENROLLMENTS e ON e.USER_ID = k.USER_ID AND e.COURSE_ID = k.COURSE_ID
+        JOIN COURSES c ON c.ID = k.COURSE_ID
+        JOIN LESSONS l ON l.COURSE_ID = c.ID
+        LEFT JOIN PROGRESS p ON p.ENROLLMENT_ID = e.ID AND p.LESSON_ID = l.ID
+        GROUP BY u.ID, u.NAME, c.ID, c.TITLE
+        ORDER BY u.ID, c.ID
+        """;
+  }
+
+  private String learnerProgressFilterSql(LearnerProgressFilter filter, List<Object> params) {
+    String sql = "";
+    if (filter.userId() != null) {
+      sql += " AND e.USER_ID = ?";
+      params.add(filter.userId());
+    }
+    if (filter.courseId() != null) {
+      sql += " AND e.COURSE_ID = ?";
+      params.add(filter.courseId());
+    }
+    if (filter.company() != null) {
+      sql += " AND u.COMPANY = ?";
+      params.add(filter.company());
+    }
+    return sql;
   }
 
   private RowMapper<CoursePeriodReportRow> mapperPeriod() {
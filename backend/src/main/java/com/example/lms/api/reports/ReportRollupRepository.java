@@ -0,0 +1,363 @@
+package com.example.lms.api.reports;
+
+import com.example.lms.api.reports.ReportDtos.CourseCompletionReportRow;
+import com.example.lms.api.reports.ReportDtos.CoursePeriodReportRow;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ReportRollupRepository {
+  private static final String BUCKET_AGGREGATES =
+      """
+      COUNT(DISTINCT e.USER_ID) AS LEARNER_COUNT,
+      NVL(SUM(p.PROGRESS_PERCENT), 0) AS PROGRESS_SUM,
+      COUNT(p.PROGRESS_PERCENT) AS PROGRESS_COUNT,
+      COUNT(DISTINCT CASE WHEN p.PROGRESS_PERCENT = 100 THEN e.USER_ID END) AS COMPLETED_LEARNERS
+      """;
+
+  private static final int SKETCH_LOOKUP_SIZE = 500;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public ReportRollupRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public List<CoursePeriodReportRow> coursePeriodReport(Date from, Date to, Long courseId) {
+    List<CoursePeriodReportRow> rows = new ArrayList<>();
+    streamCoursePeriodReport(from, to, courseId, rows::add);
+    return rows;
+  }
+
+  public void streamCoursePeriodReport(
+      Date from, Date to, Long courseId, Consumer<CoursePeriodReportRow> consumer) {
+    List<Object> params = new ArrayList<>();
+    String sql =
+        """
+        SELECT
+          c.ID AS COURSE_ID,
+          c.TITLE AS COURSE_TITLE,
+          SUM(r.LEARNER_COUNT) AS LEARNER_COUNT,
+          CASE WHEN SUM(r.PROGRESS_COUNT) > 0 THEN SUM(r.PROGRESS_SUM) / SUM(r.PROGRESS_COUNT) ELSE 0 END AS AVG_PROGRESS
+        FROM COURSE_DAILY_ROLLUP r
+        JOIN COURSES c ON c.ID = r.COURSE_ID
+        """
+            + rollupWhere(from, to, courseId, params)
+            + " GROUP BY c.ID, c.TITLE HAVING SUM(r.LEARNER_COUNT) > 0 ORDER BY c.ID";
+    jdbcTemplate.query(
+        StreamingStatements.of(sql, params.toArray()),
+        (ResultSet rs) ->
+            consumer.accept(
+                new CoursePeriodReportRow(
+                    rs.getLong("COURSE_ID"),
+                    rs.getString("COURSE_TITLE"),
+                    rs.getLong("LEARNER_COUNT"),
+                    rs.getDouble("AVG_PROGRESS"))));
+  }
+
+  public List<CourseCompletionReportRow> courseCompletionReport(Date from, Date to, Long courseId) {
+    List<CourseCompletionReportRow> rows = new ArrayList<>();
+    streamCourseCompletionReport(from, to, courseId, rows::add);
+    return rows;
+  }
+
+  public void streamCourseCompletionReport(
+      Date from, Date to, Long courseId, Consumer<CourseCompletionReportRow> consumer) {
+    List<Object> params = new ArrayList<>();
+    String sql =
+        """
+        SELECT
+          c.ID AS COURSE_ID,
+          c.TITLE AS COURSE_TITLE,
+          SUM(r.COMPLETED_LEARNERS) AS COMPLETED_LEARNERS
+        FROM COURSE_DAILY_ROLLUP r
+        JOIN COURSES c ON c.ID = r.COURSE_ID
+        """
+            + rollupWhere(from, to, courseId, params)
+            + " GROUP BY c.ID, c.TITLE HAVING SUM(r.LEARNER_COUNT) > 0 ORDER BY c.ID";
+    jdbcTemplate.query(
+        StreamingStatements.of(sql, params.toArray()),
+        (ResultSet rs) ->
+            consumer.accept(
+                new CourseCompletionReportRow(
+                    rs.getLong("COURSE_ID"),
+                    rs.getString("COURSE_TITLE"),
+                    rs.getLong("COMPLETED_LEARNERS"))));
+  }
+
+  // PENDING_* is the source high water recorded by an earlier run; it counts as settled once it is
+  // older than settleSeconds, by which time every row at or below it is assumed committed.
+  public RollupWatermarks lockState(int settleSeconds) {
+    return jdbcTemplate.queryForObject(
+        """
+        SELECT
+          LAST_PROGRESS_VERSION,
+          LAST_ENROLLMENT_ID,
+          PENDING_PROGRESS_VERSION,
+          PENDING_ENROLLMENT_ID,
+          CASE WHEN PENDING_AT <= SYSTIMESTAMP - NUMTODSINTERVAL(?, 'SECOND') THEN 1 ELSE 0 END AS PENDING_SETTLED
+        FROM COURSE_ROLLUP_STATE
+        WHERE ID = 1
+        FOR UPDATE
+        """,
+        (ResultSet rs, int rowNum) -> {
+          RollupState settled =
+              new RollupState(rs.getLong("LAST_PROGRESS_VERSION"), rs.getLong("LAST_ENROLLMENT_ID"));
+          long pendingVersion = rs.getLong("PENDING_PROGRESS_VERSION");
+          if (rs.wasNull()) {
+            return new RollupWatermarks(settled, null, false);
+          }
+          return new RollupWatermarks(
+              settled,
+              new RollupState(pendingVersion, rs.getLong("PENDING_ENROLLMENT_ID")),
+              rs.getInt("PENDING_SETTLED") == 1);
+        },
+        settleSeconds);
+  }
+
+  public RollupState findSourceHighWater() {
+    return jdbcTemplate.queryForObject(
+        """
+        SELECT
+          (SELECT NVL(MAX(CHANGE_VERSION), 0) FROM PROGRESS) AS LAST_PROGRESS_VERSION,
+          (SELECT NVL(MAX(ID), 0) FROM ENROLLMENTS) AS LAST_ENROLLMENT_ID
+        FROM DUAL
+        """,
+        (ResultSet rs, int rowNum) ->
+            new RollupState(rs.getLong("LAST_PROGRESS_VERSION"), rs.getLong("LAST_ENROLLMENT_ID")));
+  }
+
+  public void saveState(RollupState state) {
+    jdbcTemplate.update(
+        "UPDATE COURSE_ROLLUP_STATE SET LAST_PROGRESS_VERSION = ?, LAST_ENROLLMENT_ID = ?, UPDATED_AT = SYSTIMESTAMP WHERE ID = 1",
+        state.lastProgressVersion(),
+        state.lastEnrollmentId());
+  }
+
+  public void savePending(RollupState pending) {
+    jdbcTemplate.update(
+        """
+        UPDATE COURSE_ROLLUP_STATE
+        SET PENDING_PROGRESS_VERSION = ?, PENDING_ENROLLMENT_ID = ?, PENDING_AT = SYSTIMESTAMP, UPDATED_AT = SYSTIMESTAMP
+        WHERE ID = 1
+        """,
+        pending.lastProgressVersion(),
+        pending.lastEnrollmentId());
+  }
+
+  // Buckets are (course, enrollment day). A progress change dirties the bucket its enrollment was
+  // created in, because both reports filter on ENROLLED_AT.
+  public List<RollupBucket> findDirtyBuckets(long sinceProgressVersion, long sinceEnrollmentId) {
+    return jdbcTemplate.query(
+        """
+        SELECT e.COURSE_ID, TRUNC(e.ENROLLED_AT) AS ROLLUP_DATE
+        FROM PROGRESS p
+        JOIN ENROLLMENTS e ON e.ID = p.ENROLLMENT_ID
+        WHERE p.CHANGE_VERSION > ?
+        UNION
+        SELECT COURSE_ID, TRUNC(ENROLLED_AT) AS ROLLUP_DATE
+        FROM ENROLLMENTS
+        WHERE ID > ?
+        """,
+        (ResultSet rs, int rowNum) -> new RollupBucket(rs.getLong("COURSE_ID"), rs.getDate("ROLLUP_DATE")),
+        sinceProgressVersion,
+        sinceEnrollmentId);
+  }
+
+  public void recomputeBuckets(List<RollupBucket> buckets) {
+    if (buckets.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(
+        """
+        MERGE INTO COURSE_DAILY_ROLLUP r
+        USING (
+          SELECT ? AS COURSE_ID, ? AS ROLLUP_DATE,
+        """
+            + BUCKET_AGGREGATES
+            + """
+          FROM ENROLLMENTS e
+          LEFT JOIN PROGRESS p ON p.ENROLLMENT_ID = e.ID
+          WHERE e.COURSE_ID = ? AND e.ENROLLED_AT >= ? AND e.ENROLLED_AT < (? + 1)
+        ) s
+        ON (r.COURSE_ID = s.COURSE_ID AND r.ROLLUP_DATE = s.ROLLUP_DATE)
+        WHEN MATCHED THEN UPDATE SET
+          r.LEARNER_COUNT = s.LEARNER_COUNT,
+          r.PROGRESS_SUM = s.PROGRESS_SUM,
+          r.PROGRESS_COUNT = s.PROGRESS_COUNT,
+          r.COMPLETED_LEARNERS = s.COMPLETED_LEARNERS,
+          r.UPDATED_AT = SYSTIMESTAMP
+        WHEN NOT MATCHED THEN INSERT (
+          COURSE_ID, ROLLUP_DATE, LEARNER_COUNT, PROGRESS_SUM, PROGRESS_COUNT, COMPLETED_LEARNERS
+        ) VALUES (
+          s.COURSE_ID, s.ROLLUP_DATE, s.LEARNER_COUNT, s.PROGRESS_SUM, s.PROGRESS_COUNT, s.COMPLETED_LEARNERS
+        )
+        """,
+        buckets,
+        buckets.size(),
+        (ps, bucket) -> {
+          ps.setLong(1, bucket.courseId());
+          ps.setDate(2, bucket.rollupDate());
+          ps.setLong(3, bucket.courseId());
+          ps.setDate(4, bucket.rollupDate());
+          ps.setDate(5, bucket.rollupDate());
+        });
+  }
+
+  public int rebuildAll() {
+    jdbcTemplate.update("DELETE FROM COURSE_DAILY_ROLLUP");
+    return jdbcTemplate.update(
+        """
+        INSERT INTO COURSE_DAILY_ROLLUP (
+          COURSE_ID, ROLLUP_DATE, LEARNER_COUNT, PROGRESS_SUM, PROGRESS_COUNT, COMPLETED_LEARNERS
+        )
+        SELECT
+          e.COURSE_ID,
+          TRUNC(e.ENROLLED_AT),
+        """
+            + BUCKET_AGGREGATES
+            + """
+        FROM ENROLLMENTS e
+        LEFT JOIN PROGRESS p ON p.ENROLLMENT_ID = e.ID
+        GROUP BY e.COURSE_ID, TRUNC(e.ENROLLED_AT)
+        """);
+  }
+
+  public long lockSketchWatermark() {
+    Long watermark =
+        jdbcTemplate.queryForObject(
+            "SELECT LAST_SKETCH_ENROLLMENT_ID FROM COURSE_ROLLUP_STATE WHERE ID = 1 FOR UPDATE", Long.class);
+    return watermark == null ? 0 : watermark;
+  }
+
+  public long findSettledEnrollmentId() {
+    Long settled =
+        jdbcTemplate.queryForObject(
+            "SELECT LAST_ENROLLMENT_ID FROM COURSE_ROLLUP_STATE WHERE ID = 1", Long.class);
+    return settled == null ? 0 : settled;
+  }
+
+  public void saveSketchWatermark(long lastEnrollmentId) {
+    jdbcTemplate.update(
+        "UPDATE COURSE_ROLLUP_STATE SET LAST_SKETCH_ENROLLMENT_ID = ?, UPDATED_AT = SYSTIMESTAMP WHERE ID = 1",
+        lastEnrollmentId);
+  }
+
+  public List<BucketLearner> findEnrollmentLearners(long afterEnrollmentId, int limit) {
+    return jdbcTemplate.query(
+        """
+        SELECT ID, COURSE_ID, TRUNC(ENROLLED_AT) AS ROLLUP_DATE, USER_ID
+        FROM ENROLLMENTS
+        WHERE ID > ?
+        ORDER BY ID
+        FETCH FIRST ? ROWS ONLY
+        """,
+        (ResultSet rs, int rowNum) ->
+            new BucketLearner(
+                rs.getLong("ID"),
+                new RollupBucket(rs.getLong("COURSE_ID"), rs.getDate("ROLLUP_DATE")),
+                rs.getLong("USER_ID")),
+        afterEnrollmentId,
+        limit);
+  }
+
+  public Map<RollupBucket, HyperLogLog> findSketches(Collection<RollupBucket> buckets) {
+    Map<RollupBucket, HyperLogLog> sketches = new HashMap<>();
+    List<RollupBucket> all = new ArrayList<>(buckets);
+    for (int i = 0; i < all.size(); i += SKETCH_LOOKUP_SIZE) {
+      List<RollupBucket> chunk = all.subList(i, Math.min(all.size(), i + SKETCH_LOOKUP_SIZE));
+      List<Object> params = new ArrayList<>(chunk.size() * 2);
+      StringJoiner pairs = new StringJoiner(", ");
+      for (RollupBucket bucket : chunk) {
+        pairs.add("(?, ?)");
+        params.add(bucket.courseId());
+        params.add(bucket.rollupDate());
+      }
+      jdbcTemplate.query(
+          "SELECT COURSE_ID, ROLLUP_DATE, SKETCH FROM COURSE_DAILY_LEARNER_SKETCH WHERE (COURSE_ID, ROLLUP_DATE) IN ("
+              + pairs
+              + ")",
+          (ResultSet rs) -> {
+            sketches.put(
+                new RollupBucket(rs.getLong("COURSE_ID"), rs.getDate("ROLLUP_DATE")),
+                HyperLogLog.fromBytes(rs.getBytes("SKETCH")));
+          },
+          params.toArray());
+    }
+    return sketches;
+  }
+
+  public void saveSketches(Map<RollupBucket, HyperLogLog> sketches) {
+    if (sketches.isEmpty()) {
+      return;
+    }
+    List<Map.Entry<RollupBucket, HyperLogLog>> entries = new ArrayList<>(sketches.entrySet());
+    jdbcTemplate.batchUpdate(
+        """
+        MERGE INTO COURSE_DAILY_LEARNER_SKETCH s
+        USING (SELECT ? AS COURSE_ID, ? AS ROLLUP_DATE, ? AS SKETCH FROM DUAL) src
+        ON (s.COURSE_ID = src.COURSE_ID AND s.ROLLUP_DATE = src.ROLLUP_DATE)
+        WHEN MATCHED THEN UPDATE SET s.SKETCH = src.SKETCH, s.UPDATED_AT = SYSTIMESTAMP
+        WHEN NOT MATCHED THEN INSERT (COURSE_ID, ROLLUP_DATE, SKETCH)
+          VALUES (src.COURSE_ID, src.ROLLUP_DATE, src.SKETCH)
+        """,
+        entries,
+        entries.size(),
+        (ps, entry) -> {
+          ps.setLong(1, entry.getKey().courseId());
+          ps.setDate(2, entry.getKey().rollupDate());
+          ps.setBytes(3, entry.getValue().toBytes());
+        });
+  }
+
+  public void deleteSketches() {
+    jdbcTemplate.update("DELETE FROM COURSE_DAILY_LEARNER_SKETCH");
+  }
+
+  // One pass over the window's (course, day) buckets: the learner sketch and the progress sums come
+  // from the same row, so the approximate report never runs the exact one. A bucket whose sketch
+  // has not been written yet has a null SKETCH and adds no learners.
+  public void streamApproxBuckets(Date from, Date to, Long courseId, Consumer<ApproxBucket> consumer) {
+    List<Object> params = new ArrayList<>();
+    String sql =
+        """
+        SELECT r.COURSE_ID, c.TITLE AS COURSE_TITLE, s.SKETCH, r.PROGRESS_SUM, r.PROGRESS_COUNT
+        FROM COURSE_DAILY_ROLLUP r
+        JOIN COURSES c ON c.ID = r.COURSE_ID
+        LEFT JOIN COURSE_DAILY_LEARNER_SKETCH s
+          ON s.COURSE_ID = r.COURSE_ID AND s.ROLLUP_DATE = r.ROLLUP_DATE
+        """
+            + rollupWhere(from, to, courseId, params)
+            + " AND r.LEARNER_COUNT > 0";
+    jdbcTemplate.query(
+        StreamingStatements.of(sql, params.toArray()),
+        (ResultSet rs) ->
+            consumer.accept(
+                new ApproxBucket(
+                    rs.getLong("COURSE_ID"),
+                    rs.getString("COURSE_TITLE"),
+                    rs.getBytes("SKETCH"),
+                    rs.getDouble("PROGRESS_SUM"),
+                    rs.getLong("PROGRESS_COUNT"))));
+  }
+
+  private String rollupWhere(Date from, Date to, Long courseId, List<Object> params) {
+    params.add(from);
+    params.add(to);
+    String where = " WHERE r.ROLLUP_DATE >= ? AND r.ROLLUP_DATE <= ?";
+    if (courseId != null) {
+      where += " AND r.COURSE_ID = ?";
+      params.add(courseId);
+    }
+    return where;
+  }
+}
@@ -0,0 +1,356 @@
+package com.example.lms.api.reports;
+
+import com.example.lms.api.concurrent.DaemonThreads;
+import com.example.lms.api.events.ReportDataChangedEvent;
+import com.example.lms.api.metrics.MetricsSource;
+import com.example.lms.api.reports.ReportDtos.ApproxCheckResponse;
+import com.example.lms.api.reports.ReportDtos.CourseCompletionReportRow;
+import com.example.lms.api.reports.ReportDtos.CoursePeriodReportRow;
+import com.example.lms.api.reports.ReportDtos.RollupMismatch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Keeps COURSE_DAILY_ROLLUP current with a delta job. Each run recomputes every (course, day)
+// bucket touched by progress versions or enrollment ids past the settled watermark. Sequence and
+// identity values can commit out of order, so the watermark only advances to a source high water
+// recorded at least settleSeconds earlier; rows above it are rescanned each run, which is safe
+// because recomputing a bucket is idempotent.
+@Component
+public class ReportRollupService implements MetricsSource {
+  private static final Logger log = LoggerFactory.getLogger(ReportRollupService.class);
+  private static final int BUCKET_BATCH_SIZE = 500;
+  private static final double AVG_TOLERANCE = 0.01;
+  private static final int SKETCH_BATCH_SIZE = 20_000;
+
+  private final ReportRollupRepository rollupRepository;
+  private final ReportRepository reportRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final boolean enabled;
+  private final int settleSeconds;
+  private final long refreshIntervalMs;
+  private final ScheduledExecutorService refresher;
+
+  private final AtomicLong refreshRuns = new AtomicLong();
+  private final AtomicLong refreshedBuckets = new AtomicLong();
+  private final AtomicLong failedRefreshes = new AtomicLong();
+  private final AtomicLong rebuilds = new AtomicLong();
+  private final AtomicLong lastRefreshMs = new AtomicLong();
+  private final AtomicLong sketchedEnrollments = new AtomicLong();
+
+  public ReportRollupService(
+      ReportRollupRepository rollupRepository,
+      ReportRepository reportRepository,
+      PlatformTransactionManager transactionManager,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${lms.reports.rollup.enabled:true}") boolean enabled,
+      @Value("${lms.reports.rollup.refresh-interval-ms:60000}") long refreshIntervalMs,
+      @Value("${lms.reports.rollup.settle-seconds:300}") int settleSeconds) {
+    this.rollupRepository = rollupRepository;
+    this.reportRepository = reportRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.eventPublisher = eventPublisher;
+    this.enabled = enabled;
+    this.settleSeconds = Math.max(0, settleSeconds);
+    this.refreshIntervalMs = refreshIntervalMs;
+    this.refresher = enabled ? DaemonThreads.scheduler("report-rollup-refresh") : null;
+  }
+
+  @PostConstruct
+  public void start() {
+    if (refresher != null) {
+      refresher.scheduleWithFixedDelay(
+          this::refreshQuietly, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public List<CoursePeriodReportRow> coursePeriodReport(Date from, Date to, Long courseId) {
+    return rollupRepository.coursePeriodReport(from, to, courseId);
+  }
+
+  public List<CourseCompletionReportRow> courseCompletionReport(Date from, Date to, Long courseId) {
+    return rollupRepository.courseCompletionReport(from, to, courseId);
+  }
+
+  // Same window as the course period report, but learners are counted by merging the per-day
+  // HyperLogLog sketches of each course instead of summing exact counts. Titles and average progress
+  // come from the same rollup rows in a single pass.
+  public List<CoursePeriodReportRow> approxCoursePeriodReport(Date from, Date to, Long courseId) {
+    Map<Long, ApproxCourse> courses = new TreeMap<>();
+    rollupRepository.streamApproxBuckets(
+        from,
+        to,
+        courseId,
+        bucket -> {
+          ApproxCourse course =
+              courses.computeIfAbsent(bucket.courseId(), key -> new ApproxCourse(bucket.courseTitle()));
+          if (bucket.sketch() != null) {
+            course.learners.merge(HyperLogLog.fromBytes(bucket.sketch()));
+          }
+          course.progressSum += bucket.progressSum();
+          course.progressCount += bucket.progressCount();
+        });
+    List<CoursePeriodReportRow> rows = new ArrayList<>(courses.size());
+    for (Map.Entry<Long, ApproxCourse> entry : courses.entrySet()) {
+      ApproxCourse course = entry.getValue();
+      rows.add(
+          new CoursePeriodReportRow(
+              entry.getKey(),
+              course.title,
+              course.learners.estimate(),
+              course.progressCount > 0 ? course.progressSum / course.progressCount : 0));
+    }
+    return rows;
+  }
+
+  public double approxRelativeError() {
+    return HyperLogLog.RELATIVE_STANDARD_ERROR;
+  }
+
+  // Runs the exact and the approximate course period report over the same window and reports
+  // latency and per-course learner count error. Read-only: sketches are compared as of the last
+  // scheduled refresh, so enrollments since then count as error.
+  public ApproxCheckResponse checkApprox(Date from, Date to, Long courseId) {
+    long start = System.nanoTime();
+    List<CoursePeriodReportRow> exact = reportRepository.coursePeriodReport(from, to, courseId);
+    long exactMs = (System.nanoTime() - start) / 1_000_000;
+    start = System.nanoTime();
+    List<CoursePeriodReportRow> approx = approxCoursePeriodReport(from, to, courseId);
+    long approxMs = (System.nanoTime() - start) / 1_000_000;
+
+    Map<Long, Long> approxLearners = new HashMap<>();
+    for (CoursePeriodReportRow row : approx) {
+      approxLearners.put(row.courseId(), row.learnerCount());
+    }
+    double errorSum = 0;
+    double maxError = 0;
+    for (CoursePeriodReportRow row : exact) {
+      long estimate = approxLearners.getOrDefault(row.courseId(), 0L);
+      double error =
+          row.learnerCount() == 0 ? 0 : Math.abs(estimate - row.learnerCount()) / (double) row.learnerCount();
+      errorSum += error;
+      maxError = Math.max(maxError, error);
+    }
+    return new ApproxCheckResponse(
+        exact.size(),
+        exactMs,
+        approxMs,
+        HyperLogLog.RELATIVE_STANDARD_ERROR,
+        exact.isEmpty() ? 0 : errorSum / exact.size(),
+        maxError);
+  }
+
+  public int refresh() {
+    long start = System.nanoTime();
+    Set<Long> changedCourses = new HashSet<>();
+    Integer buckets =
+        transactionTemplate.execute(
+            status -> {
+              RollupWatermarks watermarks = rollupRepository.lockState(settleSeconds);
+              RollupState settled = watermarks.settled();
+              List<RollupBucket> dirty =
+                  rollupRepository.findDirtyBuckets(
+                      settled.lastProgressVersion(), settled.lastEnrollmentId());
+              for (RollupBucket bucket : dirty) {
+                changedCourses.add(bucket.courseId());
+              }
+              for (int i = 0; i < dirty.size(); i += BUCKET_BATCH_SIZE) {
+                rollupRepository.recomputeBuckets(
+                    dirty.subList(i, Math.min(dirty.size(), i + BUCKET_BATCH_SIZE)));
+              }
+              // This scan started after the pending high water settled, so it saw every row at or
+              // below it and the watermark can move there.
+              if (watermarks.pending() != null && watermarks.pendingSettled()) {
+                settled =
+                    new RollupState(
+                        Math.max(settled.lastProgressVersion(), watermarks.pending().lastProgressVersion()),
+                        Math.max(settled.lastEnrollmentId(), watermarks.pending().lastEnrollmentId()));
+                rollupRepository.saveState(settled);
+              }
+              if (watermarks.pending() == null || watermarks.pendingSettled()) {
+                rollupRepository.savePending(rollupRepository.findSourceHighWater());
+              }
+              return dirty.size();
+            });
+    refreshSketches();
+    refreshRuns.incrementAndGet();
+    refreshedBuckets.addAndGet(buckets == null ? 0 : buckets);
+    if (!changedCourses.isEmpty()) {
+      eventPublisher.publishEvent(
+          ReportDataChangedEvent.forCourses(ReportDataChangedEvent.Source.ROLLUP, changedCourses));
+    }
+    lastRefreshMs.set((System.nanoTime() - start) / 1_000_000);
+    return buckets == null ? 0 : buckets;
+  }
+
+  public int rebuild() {
+    Integer rows =
+        transactionTemplate.execute(
+            status -> {
+              rollupRepository.lockState(settleSeconds);
+              RollupState highWater = rollupRepository.findSourceHighWater();
+              int inserted = rollupRepository.rebuildAll();
+              // Rows that commit late below this high water are picked up by the delta job until it
+              // settles, so the settled watermark stays where it was.
+              rollupRepository.savePending(highWater);
+              rollupRepository.deleteSketches();
+              rollupRepository.saveSketchWatermark(0);
+              return inserted;
+            });
+    refreshSketches();
+    rebuilds.incrementAndGet();
+    eventPublisher.publishEvent(ReportDataChangedEvent.forAllCourses(ReportDataChangedEvent.Source.ROLLUP));
+    return rows == null ? 0 : rows;
+  }
+
+  // Compares the rollup answer with the raw COURSES x ENROLLMENTS x PROGRESS join. The rollup is
+  // refreshed first so that the comparison is not skewed by the refresh interval.
+  public List<RollupMismatch> check(Date from, Date to, Long courseId) {
+    refresh();
+    Map<Long, CoursePeriodReportRow> rawPeriod = new LinkedHashMap<>();
+    for (CoursePeriodReportRow row : reportRepository.coursePeriodReport(from, to, courseId)) {
+      rawPeriod.put(row.courseId(), row);
+    }
+    Map<Long, CoursePeriodReportRow> rollupPeriod = new LinkedHashMap<>();
+    for (CoursePeriodReportRow row : rollupRepository.coursePeriodReport(from, to, courseId)) {
+      rollupPeriod.put(row.courseId(), row);
+    }
+    Map<Long, Long> rawCompleted = new LinkedHashMap<>();
+    for (CourseCompletionReportRow row : reportRepository.courseCompletionReport(from, to, courseId)) {
+      rawCompleted.put(row.courseId(), row.completedLearners());
+    }
+    Map<Long, Long> rollupCompleted = new LinkedHashMap<>();
+    for (CourseCompletionReportRow row : rollupRepository.courseCompletionReport(from, to, courseId)) {
+      rollupCompleted.put(row.courseId(), row.completedLearners());
+    }
+
+    TreeSet<Long> courseIds = new TreeSet<>(rawPeriod.keySet());
+    courseIds.addAll(rollupPeriod.keySet());
+    courseIds.addAll(rawCompleted.keySet());
+    courseIds.addAll(rollupCompleted.keySet());
+    List<RollupMismatch> mismatches = new ArrayList<>();
+    for (Long id : courseIds) {
+      CoursePeriodReportRow raw = rawPeriod.get(id);
+      CoursePeriodReportRow rollup = rollupPeriod.get(id);
+      long rawLearners = raw == null ? 0 : raw.learnerCount();
+      long rollupLearners = rollup == null ? 0 : rollup.learnerCount();
+      double rawAvg = raw == null ? 0 : raw.avgProgress();
+      double rollupAvg = rollup == null ? 0 : rollup.avgProgress();
+      long rawDone = rawCompleted.getOrDefault(id, 0L);
+      long rollupDone = rollupCompleted.getOrDefault(id, 0L);
+      if (rawLearners != rollupLearners
+          || Math.abs(rawAvg - rollupAvg) > AVG_TOLERANCE
+          || rawDone != rollupDone) {
+        mismatches.add(
+            new RollupMismatch(
+                id, rawLearners, rollupLearners, rawAvg, rollupAvg, rawDone, rollupDone));
+      }
+    }
+    return mismatches;
+  }
+
+  // Adds enrollments past the sketch watermark to their (course, day) sketch. Re-adding a learner
+  // is a no-op, so enrollments above the settled rollup watermark are rescanned on every run and
+  // the sketch watermark only moves up to it once the scan has reached the end.
+  private void refreshSketches() {
+    long settledEnrollmentId = rollupRepository.findSettledEnrollmentId();
+    long cursor = -1;
+    while (cursor != Long.MAX_VALUE) {
+      long after = cursor;
+      Long next =
+          transactionTemplate.execute(
+              status -> {
+                long watermark = rollupRepository.lockSketchWatermark();
+                List<BucketLearner> learners =
+                    rollupRepository.findEnrollmentLearners(Math.max(after, watermark), SKETCH_BATCH_SIZE);
+                if (!learners.isEmpty()) {
+                  Set<RollupBucket> buckets = new HashSet<>();
+                  for (BucketLearner learner : learners) {
+                    buckets.add(learner.bucket());
+                  }
+                  Map<RollupBucket, HyperLogLog> sketches = rollupRepository.findSketches(buckets);
+                  for (BucketLearner learner : learners) {
+                    sketches.computeIfAbsent(learner.bucket(), key -> new HyperLogLog()).add(learner.userId());
+                  }
+                  rollupRepository.saveSketches(sketches);
+                  sketchedEnrollments.addAndGet(learners.size());
+                }
+                if (learners.size() < SKETCH_BATCH_SIZE) {
+                  rollupRepository.saveSketchWatermark(Math.max(watermark, settledEnrollmentId));
+                  return Long.MAX_VALUE;
+                }
+                return learners.get(learners.size() - 1).enrollmentId();
+              });
+      cursor = next == null ? Long.MAX_VALUE : next;
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (refresher != null) {
+      refresher.shutdownNow();
+    }
+  }
+
+  @Override
+  public String metricsName() {
+    return "reportRollup";
+  }
+
+  @Override
+  public Map<String, Object> metricsSnapshot() {
+    Map<String, Object> snapshot = new LinkedHashMap<>();
+    snapshot.put("enabled", enabled);
+    snapshot.put("refreshRuns", refreshRuns.get());
+    snapshot.put("refreshedBuckets", refreshedBuckets.get());
+    snapshot.put("failedRefreshes", failedRefreshes.get());
+    snapshot.put("lastRefreshMs", lastRefreshMs.get());
+    snapshot.put("rebuilds", rebuilds.get());
+    snapshot.put("sketchedEnrollments", sketchedEnrollments.get());
+    return snapshot;
+  }
+
+  private void refreshQuietly() {
+    try {
+      refresh();
+    } catch (RuntimeException ex) {
+      failedRefreshes.incrementAndGet();
+      log.warn("Course rollup refresh failed", ex);
+    }
+  }
+
+  private static final class ApproxCourse {
+    private final String title;
+    private final HyperLogLog learners = new HyperLogLog();
+    private double progressSum;
+    private long progressCount;
+
+    private ApproxCourse(String title) {
+      this.title = title;
+    }
+  }
+}
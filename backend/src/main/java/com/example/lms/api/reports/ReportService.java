@@ -0,0 +1,98 @@
+package com.example.lms.api.reports;
+
+import com.example.lms.api.error.ApiException;
+import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.reports.ReportCache.ReportKey;
+import com.example.lms.api.reports.ReportDtos.CourseCompletionReportRow;
+import com.example.lms.api.reports.ReportDtos.CoursePeriodReportRow;
+import com.example.lms.api.reports.ReportDtos.LearnerProgressFilter;
+import com.example.lms.api.reports.ReportDtos.LearnerProgressPage;
+import com.example.lms.api.reports.ReportDtos.LearnerProgressRow;
+import com.example.lms.api.reports.ReportDtos.SliceRow;
+import java.sql.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ReportService {
+  private final ReportRepository repository;
+  private final ReportRollupService rollupService;
+  private final ReportCache cache;
+  private final AnalyticsSnapshot analytics;
+
+  public ReportService(
+      ReportRepository repository,
+      ReportRollupService rollupService,
+      ReportCache cache,
+      AnalyticsSnapshot analytics) {
+    this.repository = repository;
+    this.rollupService = rollupService;
+    this.cache = cache;
+    this.analytics = analytics;
+  }
+
+  public List<CoursePeriodReportRow> coursePeriodReport(Date from, Date to, Long courseId) {
+    if (analytics.isServing()) {
+      return analytics.coursePeriodReport(from, to, courseId);
+    }
+    return cache.get(
+        new ReportKey("course-period", from, to, courseId),
+        () ->
+            rollupService.isEnabled()
+                ? rollupService.coursePeriodReport(from, to, courseId)
+                : repository.coursePeriodReport(from, to, courseId));
+  }
+
+  public List<CoursePeriodReportRow> approxCoursePeriodReport(Date from, Date to, Long courseId) {
+    if (!rollupService.isEnabled()) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "approx requires the report rollup to be enabled");
+    }
+    return cache.get(
+        new ReportKey("course-period-approx", from, to, courseId),
+        () -> rollupService.approxCoursePeriodReport(from, to, courseId));
+  }
+
+  public List<CourseCompletionReportRow> courseCompletionReport(Date from, Date to, Long courseId) {
+    if (analytics.isServing()) {
+      return analytics.courseCompletionReport(from, to, courseId);
+    }
+    return cache.get(
+        new ReportKey("course-completion", from, to, courseId),
+        () ->
+            rollupService.isEnabled()
+                ? rollupService.courseCompletionReport(from, to, courseId)
+                : repository.courseCompletionReport(from, to, courseId));
+  }
+
+  public List<LearnerProgressRow> learnerProgress(LearnerProgressFilter filter) {
+    if (analytics.isServing()) {
+      return analytics.learnerProgress(filter);
+    }
+    return repository.learnerProgress(filter);
+  }
+
+  public List<SliceRow> slice(Date from, Date to, Long courseId, String groupBy) {
+    if (!analytics.isServing()) {
+      throw new ApiException(ErrorCode.CONFLICT, "Analytics snapshot is not available");
+    }
+    return analytics.slice(from, to, courseId, groupBy);
+  }
+
+  public LearnerProgressPage learnerProgressPage(
+      LearnerProgressFilter filter, LearnerProgressCursor after, int limit) {
+    // One extra row tells whether another page exists without a separate count query.
+    List<LearnerProgressRow> rows = repository.learnerProgressPage(filter, after, limit + 1);
+    if (rows.size() <= limit) {
+      return new LearnerProgressPage(rows, null);
+    }
+    List<LearnerProgressRow> items = rows.subList(0, limit);
+    return new LearnerProgressPage(
+        List.copyOf(items), LearnerProgressCursor.of(items.get(limit - 1)).encode());
+  }
+
+  public void streamLearnerProgress(
+      LearnerProgressFilter filter, Consumer<LearnerProgressRow> consumer) {
+    repository.streamLearnerProgress(filter, consumer);
+  }
+}
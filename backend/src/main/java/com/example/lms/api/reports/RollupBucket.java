@@ -0,0 +1,5 @@
+package com.example.lms.api.reports;
+
+import java.sql.Date;
+
+record RollupBucket(long courseId, Date rollupDate) {}
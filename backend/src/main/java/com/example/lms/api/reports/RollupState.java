@@ -0,0 +1,3 @@
+package com.example.lms.api.reports;
+
+record RollupState(long lastProgressVersion, long lastEnrollmentId) {}
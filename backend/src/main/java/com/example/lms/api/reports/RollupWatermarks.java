@@ -0,0 +1,3 @@
+package com.example.lms.api.reports;
+
+record RollupWatermarks(RollupState settled, RollupState pending, boolean pendingSettled) {}
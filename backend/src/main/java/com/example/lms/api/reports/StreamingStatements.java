@@ -0,0 +1,20 @@
+package com.example.lms.api.reports;
+
+import java.sql.PreparedStatement;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+final class StreamingStatements {
+  static final int FETCH_SIZE = 500;
+
+  private StreamingStatements() {}
+
+  static PreparedStatementCreator of(String sql, Object... params) {
+    return con -> {
+      PreparedStatement ps = con.prepareStatement(sql);
+      ps.setFetchSize(FETCH_SIZE);
+      new ArgumentPreparedStatementSetter(params).setValues(ps);
+      return ps;
+    };
+  }
+}
@@ -0,0 +1,3 @@
+package com.example.lms.api.reports;
+
+record UserDimension(long id, String name, String company, boolean learner) {}
@@ -0,0 +1,54 @@
+package com.example.lms.api.search;
+
+import com.example.lms.api.error.ApiException;
+import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.search.SearchDtos.SearchHit;
+import com.example.lms.api.search.SearchDtos.SearchResponse;
+import java.util.List;
+import java.util.Set;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+  private static final int MAX_LIMIT = 100;
+  private static final int MAX_QUERY_LENGTH = 200;
+
+  private final SearchIndex index;
+
+  public SearchController(SearchIndex index) {
+    this.index = index;
+  }
+
+  @GetMapping
+  public SearchResponse search(
+      @RequestParam("q") String query,
+      @RequestParam(name = "type", required = false) List<String> types,
+      @RequestParam(name = "limit", defaultValue = "20") int limit) {
+    if (query == null || query.isBlank()) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "q is required");
+    }
+    if (query.length() > MAX_QUERY_LENGTH) {
+      throw new ApiException(
+          ErrorCode.VALIDATION_ERROR, "q must be at most " + MAX_QUERY_LENGTH + " characters");
+    }
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new ApiException(ErrorCode.VALIDATION_ERROR, "limit must be between 1 and " + MAX_LIMIT);
+    }
+    Set<String> typeFilter;
+    if (types == null || types.isEmpty()) {
+      typeFilter = Set.copyOf(SearchDtos.TYPES);
+    } else {
+      typeFilter = Set.copyOf(types.stream().map(String::toUpperCase).toList());
+      if (!SearchDtos.TYPES.containsAll(typeFilter)) {
+        throw new ApiException(ErrorCode.VALIDATION_ERROR, "type must be one of " + SearchDtos.TYPES);
+      }
+    }
+    long started = System.nanoTime();
+    List<SearchHit> hits = index.search(query, typeFilter, limit);
+    return new SearchResponse(query, hits, (System.nanoTime() - started) / 1000);
+  }
+}
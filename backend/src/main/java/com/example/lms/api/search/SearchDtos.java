@@ -0,0 +1,13 @@
+package com.example.lms.api.search;
+
+import java.util.List;
+
+public class SearchDtos {
+  public static final String COURSE = "COURSE";
+  public static final String LESSON = "LESSON";
+  public static final String BOARD = "BOARD";
+  public static final List<String> TYPES = List.of(COURSE, LESSON, BOARD);
+
+  public record SearchHit(String type, long id, Long courseId, String title, String snippet, double score) {}
+  public record SearchResponse(String query, List<SearchHit> hits, long tookMicros) {}
+}
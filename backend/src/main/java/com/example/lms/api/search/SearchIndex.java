@@ -0,0 +1,400 @@
+package com.example.lms.api.search;
+
+import com.example.lms.api.concurrent.DaemonThreads;
+import com.example.lms.api.events.ContentChangedEvent;
+import com.example.lms.api.metrics.MetricsSource;
+import com.example.lms.api.search.SearchDtos.SearchHit;
+import com.example.lms.api.search.SearchTokenizer.Token;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Inverted index over course, lesson and board text. Writes arrive as ContentChangedEvent and
+// re-read only the affected rows; the periodic rebuild picks up writes made on other instances.
+// Queries take the read lock and never touch the database.
+@Component
+public class SearchIndex implements MetricsSource {
+  private static final Logger log = LoggerFactory.getLogger(SearchIndex.class);
+  private static final double TITLE_WEIGHT = 3.0;
+  private static final double PREFIX_WEIGHT = 0.6;
+  private static final int MAX_PREFIX_EXPANSIONS = 200;
+  private static final int SNIPPET_LENGTH = 160;
+
+  private final SearchRepository repository;
+  private final Object writeLock = new Object();
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final long reloadIntervalMs;
+  private final ScheduledExecutorService reloader;
+  private Index index;
+
+  private final AtomicLong queries = new AtomicLong();
+  private final AtomicLong updates = new AtomicLong();
+  private final AtomicLong failedUpdates = new AtomicLong();
+  private final AtomicLong reloads = new AtomicLong();
+  private final AtomicLong failedReloads = new AtomicLong();
+
+  public SearchIndex(
+      SearchRepository repository,
+      @Value("${lms.search.reload-interval-ms:300000}") long reloadIntervalMs) {
+    this.repository = repository;
+    this.reloadIntervalMs = reloadIntervalMs;
+    this.reloader = DaemonThreads.scheduler("search-index-reload");
+  }
+
+  @PostConstruct
+  public void start() {
+    reloader.scheduleWithFixedDelay(
+        this::reloadQuietly, reloadIntervalMs, reloadIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warm() {
+    reloadQuietly();
+  }
+
+  public List<SearchHit> search(String query, Set<String> types, int limit) {
+    queries.incrementAndGet();
+    List<Token> tokens = distinct(SearchTokenizer.tokenize(query));
+    if (tokens.isEmpty()) {
+      return List.of();
+    }
+    ensureLoaded();
+    lock.readLock().lock();
+    try {
+      return index.search(tokens, types, limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // The write has committed by the time the event is published. A failed refresh must not fail
+  // the write itself; the next rebuild repairs the index.
+  @EventListener
+  public void onContentChanged(ContentChangedEvent event) {
+    try {
+      synchronized (writeLock) {
+        if (index == null) {
+          return;
+        }
+        switch (event.kind()) {
+          case COURSE -> {
+            Optional<SearchSource> course = repository.findCourse(event.id());
+            apply(current -> current.replace(SearchDtos.COURSE, event.id(), course));
+          }
+          case LESSONS -> {
+            List<SearchSource> lessons = repository.findLessonsByCourseId(event.id());
+            apply(current -> current.replaceLessons(event.id(), lessons));
+          }
+          case BOARD -> {
+            Optional<SearchSource> board = repository.findBoard(event.id());
+            apply(current -> current.replace(SearchDtos.BOARD, event.id(), board));
+          }
+        }
+      }
+      updates.incrementAndGet();
+    } catch (RuntimeException ex) {
+      failedUpdates.incrementAndGet();
+      log.warn("Search index update failed for {} {}", event.kind(), event.id(), ex);
+    }
+  }
+
+  public void reload() {
+    synchronized (writeLock) {
+      Index rebuilt = new Index();
+      repository.streamAll(rebuilt::add);
+      lock.writeLock().lock();
+      try {
+        index = rebuilt;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      reloads.incrementAndGet();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    reloader.shutdownNow();
+  }
+
+  @Override
+  public String metricsName() {
+    return "searchIndex";
+  }
+
+  @Override
+  public Map<String, Object> metricsSnapshot() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    lock.readLock().lock();
+    try {
+      stats.put("loaded", index != null);
+      stats.put("documents", index == null ? 0 : index.docs.size());
+      stats.put("terms", index == null ? 0 : index.postings.size());
+    } finally {
+      lock.readLock().unlock();
+    }
+    stats.put("queries", queries.get());
+    stats.put("updates", updates.get());
+    stats.put("failedUpdates", failedUpdates.get());
+    stats.put("reloads", reloads.get());
+    stats.put("failedReloads", failedReloads.get());
+    return stats;
+  }
+
+  private void ensureLoaded() {
+    lock.readLock().lock();
+    try {
+      if (index != null) {
+        return;
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    synchronized (writeLock) {
+      if (index == null) {
+        reload();
+      }
+    }
+  }
+
+  // Caller holds writeLock.
+  private void apply(Consumer<Index> change) {
+    lock.writeLock().lock();
+    try {
+      change.accept(index);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void reloadQuietly() {
+    try {
+      reload();
+    } catch (RuntimeException ex) {
+      failedReloads.incrementAndGet();
+      log.warn("Search index reload failed", ex);
+    }
+  }
+
+  private static List<Token> distinct(List<Token> tokens) {
+    Map<String, Token> byTerm = new LinkedHashMap<>();
+    for (Token token : tokens) {
+      byTerm.merge(token.term(), token, (left, right) -> left.prefix() ? left : right);
+    }
+    return new ArrayList<>(byTerm.values());
+  }
+
+  private static final class Index {
+    private final TreeMap<String, Map<Integer, Posting>> postings = new TreeMap<>();
+    private final Map<Integer, Doc> docs = new HashMap<>();
+    private final Map<DocKey, Integer> docNos = new HashMap<>();
+    private final Map<Long, Set<Integer>> lessonsByCourse = new HashMap<>();
+    private int nextDocNo;
+    private long totalLength;
+
+    void add(SearchSource source) {
+      int docNo = nextDocNo++;
+      Map<String, Posting> terms = new HashMap<>();
+      int length = 0;
+      for (Token token : SearchTokenizer.tokenize(source.title())) {
+        terms.computeIfAbsent(token.term(), key -> new Posting()).title++;
+        length++;
+      }
+      for (Token token : SearchTokenizer.tokenize(source.body())) {
+        terms.computeIfAbsent(token.term(), key -> new Posting()).body++;
+        length++;
+      }
+      for (Map.Entry<String, Posting> entry : terms.entrySet()) {
+        postings.computeIfAbsent(entry.getKey(), key -> new HashMap<>()).put(docNo, entry.getValue());
+      }
+      docs.put(
+          docNo,
+          new Doc(
+              source.type(),
+              source.id(),
+              source.courseId(),
+              source.title(),
+              source.body(),
+              Set.copyOf(terms.keySet()),
+              Math.max(1, length)));
+      docNos.put(new DocKey(source.type(), source.id()), docNo);
+      if (SearchDtos.LESSON.equals(source.type())) {
+        lessonsByCourse.computeIfAbsent(source.courseId(), key -> new HashSet<>()).add(docNo);
+      }
+      totalLength += Math.max(1, length);
+    }
+
+    void replace(String type, long id, Optional<SearchSource> source) {
+      Integer docNo = docNos.get(new DocKey(type, id));
+      if (docNo != null) {
+        remove(docNo);
+      }
+      source.ifPresent(this::add);
+    }
+
+    void replaceLessons(long courseId, List<SearchSource> lessons) {
+      Set<Integer> existing = lessonsByCourse.remove(courseId);
+      if (existing != null) {
+        for (Integer docNo : existing) {
+          remove(docNo);
+        }
+      }
+      lessons.forEach(this::add);
+    }
+
+    private void remove(int docNo) {
+      Doc doc = docs.remove(docNo);
+      if (doc == null) {
+        return;
+      }
+      docNos.remove(new DocKey(doc.type(), doc.id()));
+      for (String term : doc.terms()) {
+        Map<Integer, Posting> docsForTerm = postings.get(term);
+        if (docsForTerm != null) {
+          docsForTerm.remove(docNo);
+          if (docsForTerm.isEmpty()) {
+            postings.remove(term);
+          }
+        }
+      }
+      if (SearchDtos.LESSON.equals(doc.type())) {
+        Set<Integer> siblings = lessonsByCourse.get(doc.courseId());
+        if (siblings != null) {
+          siblings.remove(docNo);
+        }
+      }
+      totalLength -= doc.length();
+    }
+
+    // Every query token must match (AND); the document score is the sum of its best BM25 term
+    // score per token, with prefix expansions discounted.
+    List<SearchHit> search(List<Token> tokens, Set<String> types, int limit) {
+      if (docs.isEmpty()) {
+        return List.of();
+      }
+      double avgLength = (double) totalLength / docs.size();
+      Map<Integer, Double> scores = null;
+      for (Token token : tokens) {
+        Map<Integer, Double> matches = new HashMap<>();
+        collect(token.term(), 1.0, avgLength, matches);
+        if (token.prefix()) {
+          int expansions = 0;
+          String from = token.term();
+          for (String term : postings.subMap(from, false, from + Character.MAX_VALUE, false).keySet()) {
+            if (++expansions > MAX_PREFIX_EXPANSIONS) {
+              break;
+            }
+            collect(term, PREFIX_WEIGHT, avgLength, matches);
+          }
+        }
+        if (scores == null) {
+          scores = matches;
+        } else {
+          Map<Integer, Double> previous = scores;
+          scores = new HashMap<>();
+          for (Map.Entry<Integer, Double> entry : matches.entrySet()) {
+            Double before = previous.get(entry.getKey());
+            if (before != null) {
+              scores.put(entry.getKey(), before + entry.getValue());
+            }
+          }
+        }
+        if (scores.isEmpty()) {
+          return List.of();
+        }
+      }
+      // Lowest score (then highest doc number) at the head, so the heap keeps the best `limit` hits.
+      Comparator<Map.Entry<Integer, Double>> byScore =
+          Map.Entry.<Integer, Double>comparingByValue()
+              .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+      PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(byScore);
+      for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+        if (!types.contains(docs.get(entry.getKey()).type())) {
+          continue;
+        }
+        top.offer(entry);
+        if (top.size() > limit) {
+          top.poll();
+        }
+      }
+      List<SearchHit> hits = new ArrayList<>(top.size());
+      while (!top.isEmpty()) {
+        Map.Entry<Integer, Double> entry = top.poll();
+        Doc doc = docs.get(entry.getKey());
+        hits.add(
+            new SearchHit(
+                doc.type(),
+                doc.id(),
+                doc.courseId(),
+                doc.title(),
+                snippet(doc.body(), tokens.get(0).term()),
+                Math.round(entry.getValue() * 1000) / 1000.0));
+      }
+      Collections.reverse(hits);
+      return hits;
+    }
+
+    private void collect(String term, double weight, double avgLength, Map<Integer, Double> matches) {
+      Map<Integer, Posting> docsForTerm = postings.get(term);
+      if (docsForTerm == null) {
+        return;
+      }
+      double idf = Math.log(1 + (docs.size() - docsForTerm.size() + 0.5) / (docsForTerm.size() + 0.5));
+      for (Map.Entry<Integer, Posting> entry : docsForTerm.entrySet()) {
+        Posting posting = entry.getValue();
+        double tf = TITLE_WEIGHT * posting.title + posting.body;
+        double norm = 1.2 * (0.25 + 0.75 * docs.get(entry.getKey()).length() / avgLength);
+        double score = weight * idf * tf * 2.2 / (tf + norm);
+        matches.merge(entry.getKey(), score, Math::max);
+      }
+    }
+
+    private static String snippet(String body, String term) {
+      if (body == null || body.isBlank()) {
+        return null;
+      }
+      String text = body.replaceAll("\\s+", " ").trim();
+      if (text.length() <= SNIPPET_LENGTH) {
+        return text;
+      }
+      int at = text.toLowerCase(Locale.ROOT).indexOf(term);
+      int start =
+          at < 0 ? 0 : Math.max(0, Math.min(at - SNIPPET_LENGTH / 4, text.length() - SNIPPET_LENGTH));
+      String window = text.substring(start, start + SNIPPET_LENGTH);
+      return (start > 0 ? "..." : "") + window + (start + SNIPPET_LENGTH < text.length() ? "..." : "");
+    }
+  }
+
+  private static final class Posting {
+    private int title;
+    private int body;
+  }
+
+  private record Doc(
+      String type, long id, Long courseId, String title, String body, Set<String> terms, int length) {}
+
+  private record DocKey(String type, long id) {}
+}
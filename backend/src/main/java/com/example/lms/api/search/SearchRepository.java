@@ -0,0 +1,70 @@
+package com.example.lms.api.search;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class SearchRepository {
+  private static final String COURSE_SQL = "SELECT ID, TITLE, DESCRIPTION FROM COURSES";
+  private static final String LESSON_SQL = "SELECT ID, COURSE_ID, TITLE, CONTENT FROM LESSONS";
+  private static final String BOARD_SQL = "SELECT ID, TITLE, CONTENT FROM BOARDS";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public SearchRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public void streamAll(Consumer<SearchSource> consumer) {
+    jdbcTemplate.query(COURSE_SQL, forEach(courseMapper(), consumer));
+    jdbcTemplate.query(LESSON_SQL, forEach(lessonMapper(), consumer));
+    jdbcTemplate.query(BOARD_SQL, forEach(boardMapper(), consumer));
+  }
+
+  public Optional<SearchSource> findCourse(long id) {
+    return jdbcTemplate.query(COURSE_SQL + " WHERE ID = ?", courseMapper(), id).stream().findFirst();
+  }
+
+  public List<SearchSource> findLessonsByCourseId(long courseId) {
+    return jdbcTemplate.query(LESSON_SQL + " WHERE COURSE_ID = ?", lessonMapper(), courseId);
+  }
+
+  public Optional<SearchSource> findBoard(long id) {
+    return jdbcTemplate.query(BOARD_SQL + " WHERE ID = ?", boardMapper(), id).stream().findFirst();
+  }
+
+  private RowCallbackHandler forEach(RowMapper<SearchSource> mapper, Consumer<SearchSource> consumer) {
+    return rs -> consumer.accept(mapper.mapRow(rs, rs.getRow()));
+  }
+
+  private RowMapper<SearchSource> courseMapper() {
+    return (rs, rowNum) ->
+        new SearchSource(
+            SearchDtos.COURSE,
+            rs.getLong("ID"),
+            rs.getLong("ID"),
+            rs.getString("TITLE"),
+            rs.getString("DESCRIPTION"));
+  }
+
+  private RowMapper<SearchSource> lessonMapper() {
+    return (rs, rowNum) ->
+        new SearchSource(
+            SearchDtos.LESSON,
+            rs.getLong("ID"),
+            rs.getLong("COURSE_ID"),
+            rs.getString("TITLE"),
+            rs.getString("CONTENT"));
+  }
+
+  private RowMapper<SearchSource> boardMapper() {
+    return (rs, rowNum) ->
+        new SearchSource(
+            SearchDtos.BOARD, rs.getLong("ID"), null, rs.getString("TITLE"), rs.getString("CONTENT"));
+  }
+}
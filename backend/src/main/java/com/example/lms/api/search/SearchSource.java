@@ -0,0 +1,3 @@
+package com.example.lms.api.search;
+
+record SearchSource(String type, long id, Long courseId, String title, String body) {}
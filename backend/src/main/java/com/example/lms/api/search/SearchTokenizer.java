@@ -0,0 +1,70 @@
+package com.example.lms.api.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Latin/digit runs become lowercase words. Hangul and other CJK runs have no spaces between
+// morphemes (particles attach to nouns), so they become overlapping character bigrams; a single
+// character run is kept as a unigram, so a noun with a particle attached still shares the noun's
+// bigrams. Words and unigrams are matched as prefixes at query time, bigrams exactly.
+final class SearchTokenizer {
+  private SearchTokenizer() {}
+
+  static List<Token> tokenize(String text) {
+    List<Token> tokens = new ArrayList<>();
+    if (text == null || text.isEmpty()) {
+      return tokens;
+    }
+    String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    StringBuilder run = new StringBuilder();
+    boolean cjkRun = false;
+    int i = 0;
+    while (i < normalized.length()) {
+      int codePoint = normalized.codePointAt(i);
+      i += Character.charCount(codePoint);
+      boolean cjk = isCjk(codePoint);
+      boolean word = !cjk && Character.isLetterOrDigit(codePoint);
+      if ((!cjk && !word) || (run.length() > 0 && cjk != cjkRun)) {
+        flush(run, cjkRun, tokens);
+      }
+      if (cjk || word) {
+        run.appendCodePoint(codePoint);
+        cjkRun = cjk;
+      }
+    }
+    flush(run, cjkRun, tokens);
+    return tokens;
+  }
+
+  private static void flush(StringBuilder run, boolean cjk, List<Token> tokens) {
+    if (run.length() == 0) {
+      return;
+    }
+    String value = run.toString();
+    run.setLength(0);
+    if (!cjk) {
+      tokens.add(new Token(value, true));
+      return;
+    }
+    int[] codePoints = value.codePoints().toArray();
+    if (codePoints.length == 1) {
+      tokens.add(new Token(value, true));
+      return;
+    }
+    for (int j = 0; j + 1 < codePoints.length; j++) {
+      tokens.add(new Token(new String(codePoints, j, 2), false));
+    }
+  }
+
+  private static boolean isCjk(int codePoint) {
+    Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+    return script == Character.UnicodeScript.HANGUL
+        || script == Character.UnicodeScript.HAN
+        || script == Character.UnicodeScript.HIRAGANA
+        || script == Character.UnicodeScript.KATAKANA;
+  }
+
+  record Token(String term, boolean prefix) {}
+}
@@ -0,0 +1,39 @@
+MERGE INTO PROGRESS p
+USING (
+  SELECT
+    MIN(ID) KEEP (
+      DENSE_RANK FIRST ORDER BY CASE WHEN COMPLETED_AT IS NOT NULL THEN 0 ELSE 1 END, PROGRESS_PERCENT DESC NULLS LAST, ID
+    ) AS KEEP_ID,
+    MAX(PROGRESS_PERCENT) AS PROGRESS_PERCENT,
+    MIN(COMPLETED_AT) AS COMPLETED_AT,
+    MAX(LAST_POSITION_SEC) AS LAST_POSITION_SEC
+  FROM PROGRESS
+  GROUP BY ENROLLMENT_ID, LESSON_ID
+  HAVING COUNT(*) > 1
+) d
+ON (p.ID = d.KEEP_ID)
+WHEN MATCHED THEN
+  UPDATE SET
+    p.PROGRESS_PERCENT = d.PROGRESS_PERCENT,
+    p.COMPLETED_AT = d.COMPLETED_AT,
+    p.LAST_POSITION_SEC = d.LAST_POSITION_SEC;
+
+DELETE FROM PROGRESS p
+WHERE p.ID NOT IN (
+  SELECT
+    MIN(ID) KEEP (
+      DENSE_RANK FIRST ORDER BY CASE WHEN COMPLETED_AT IS NOT NULL THEN 0 ELSE 1 END, PROGRESS_PERCENT DESC NULLS LAST, ID
+    )
+  FROM PROGRESS
+  GROUP BY ENROLLMENT_ID, LESSON_ID
+);
+
+BEGIN
+  EXECUTE IMMEDIATE 'ALTER TABLE PROGRESS ADD CONSTRAINT UQ_PROGRESS_ENROLLMENT_LESSON UNIQUE (ENROLLMENT_ID, LESSON_ID)';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE != -2261 THEN
+      RAISE;
+    END IF;
+END;
+/
@@ -0,0 +1,31 @@
+BEGIN
+  EXECUTE IMMEDIATE 'CREATE SEQUENCE PROGRESS_CHANGE_SEQ START WITH 1 INCREMENT BY 1 CACHE 100';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE != -955 THEN
+      RAISE;
+    END IF;
+END;
+/
+
+BEGIN
+  EXECUTE IMMEDIATE 'ALTER TABLE PROGRESS ADD CHANGE_VERSION NUMBER(19)';
+EXCEPTION
+  WHEN OTHERS THEN
+    IF SQLCODE != -1430 THEN
+      RAISE;
+    END IF;
+END;
+/
+
+UPDATE PROGRESS SET CHANGE_VERSION = PROGRESS_CHANGE_SEQ.NEXTVAL WHERE CHANGE_VERSION IS NULL;
+
+CREATE OR REPLACE TRIGGER TRG_PROGRESS_CHANGE_VERSION
+BEFORE INSERT OR UPDATE ON PROGRESS
+FOR EACH ROW
+BEGIN
+  :NEW.CHANGE_VERSION := PROGRESS_CHANGE_SEQ.NEXTVAL;
+END;
+/
+
+CREATE INDEX IDX_PROGRESS_ENROLLMENT_VERSION ON PROGRESS (ENROLLMENT_ID, CHANGE_VERSION);
@@ -0,0 +1,20 @@
+CREATE TABLE PROGRESS_EVENTS (
+  ID NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  ENROLLMENT_ID NUMBER NOT NULL,
+  LESSON_ID NUMBER NOT NULL,
+  PROGRESS_PERCENT NUMBER(5,2) NOT NULL,
+  LAST_POSITION_SEC NUMBER(10,2),
+  CREATED_AT TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL
+);
+
+CREATE INDEX IDX_PROGRESS_EVENTS_ENROLLMENT ON PROGRESS_EVENTS (ENROLLMENT_ID, ID);
+CREATE INDEX IDX_PROGRESS_EVENTS_CREATED_AT ON PROGRESS_EVENTS (CREATED_AT);
+
+CREATE TABLE PROGRESS_EVENT_COMPACTION (
+  ID NUMBER(1) PRIMARY KEY,
+  LAST_EVENT_ID NUMBER NOT NULL,
+  UPDATED_AT TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL,
+  CONSTRAINT CK_PROGRESS_EVENT_COMPACTION_ID CHECK (ID = 1)
+);
+
+INSERT INTO PROGRESS_EVENT_COMPACTION (ID, LAST_EVENT_ID) VALUES (1, 0);
@@ -0,0 +1,41 @@
+CREATE TABLE COURSE_DAILY_ROLLUP (
+  COURSE_ID NUMBER NOT NULL,
+  ROLLUP_DATE DATE NOT NULL,
+  LEARNER_COUNT NUMBER(10) DEFAULT 0 NOT NULL,
+  PROGRESS_SUM NUMBER(14,2) DEFAULT 0 NOT NULL,
+  PROGRESS_COUNT NUMBER(10) DEFAULT 0 NOT NULL,
+  COMPLETED_LEARNERS NUMBER(10) DEFAULT 0 NOT NULL,
+  UPDATED_AT TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL,
+  CONSTRAINT PK_COURSE_DAILY_ROLLUP PRIMARY KEY (ROLLUP_DATE, COURSE_ID)
+);
+
+CREATE INDEX IDX_COURSE_DAILY_ROLLUP_COURSE ON COURSE_DAILY_ROLLUP (COURSE_ID, ROLLUP_DATE);
+
+CREATE TABLE COURSE_ROLLUP_STATE (
+  ID NUMBER(1) PRIMARY KEY,
+  LAST_PROGRESS_VERSION NUMBER(19) NOT NULL,
+  LAST_ENROLLMENT_ID NUMBER NOT NULL,
+  UPDATED_AT TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL,
+  CONSTRAINT CK_COURSE_ROLLUP_STATE_ID CHECK (ID = 1)
+);
+
+CREATE INDEX IDX_PROGRESS_CHANGE_VERSION ON PROGRESS (CHANGE_VERSION);
+CREATE INDEX IDX_ENROLLMENTS_COURSE_ENROLLED ON ENROLLMENTS (COURSE_ID, ENROLLED_AT);
+
+INSERT INTO COURSE_ROLLUP_STATE (ID, LAST_PROGRESS_VERSION, LAST_ENROLLMENT_ID)
+SELECT 1, (SELECT NVL(MAX(CHANGE_VERSION), 0) FROM PROGRESS), (SELECT NVL(MAX(ID), 0) FROM ENROLLMENTS)
+FROM DUAL;
+
+INSERT INTO COURSE_DAILY_ROLLUP (
+  COURSE_ID, ROLLUP_DATE, LEARNER_COUNT, PROGRESS_SUM, PROGRESS_COUNT, COMPLETED_LEARNERS
+)
+SELECT
+  e.COURSE_ID,
+  TRUNC(e.ENROLLED_AT),
+  COUNT(DISTINCT e.USER_ID),
+  NVL(SUM(p.PROGRESS_PERCENT), 0),
+  COUNT(p.PROGRESS_PERCENT),
+  COUNT(DISTINCT CASE WHEN p.PROGRESS_PERCENT = 100 THEN e.USER_ID END)
+FROM ENROLLMENTS e
+LEFT JOIN PROGRESS p ON p.ENROLLMENT_ID = e.ID
+GROUP BY e.COURSE_ID, TRUNC(e.ENROLLED_AT);
@@ -0,0 +1,2 @@
+CREATE INDEX IDX_ENROLLMENTS_USER_COURSE ON ENROLLMENTS (USER_ID, COURSE_ID);
+CREATE INDEX IDX_USERS_COMPANY ON USERS (COMPANY);
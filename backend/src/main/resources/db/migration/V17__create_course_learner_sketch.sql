@@ -0,0 +1,11 @@
+CREATE TABLE COURSE_DAILY_LEARNER_SKETCH (
+  COURSE_ID NUMBER NOT NULL,
+  ROLLUP_DATE DATE NOT NULL,
+  SKETCH RAW(1100) NOT NULL,
+  UPDATED_AT TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL,
+  CONSTRAINT PK_COURSE_DAILY_LEARNER_SKETCH PRIMARY KEY (ROLLUP_DATE, COURSE_ID)
+);
+
+CREATE INDEX IDX_LEARNER_SKETCH_COURSE ON COURSE_DAILY_LEARNER_SKETCH (COURSE_ID, ROLLUP_DATE);
+
+ALTER TABLE COURSE_ROLLUP_STATE ADD (LAST_SKETCH_ENROLLMENT_ID NUMBER DEFAULT 0 NOT NULL);
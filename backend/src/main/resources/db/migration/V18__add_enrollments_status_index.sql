@@ -0,0 +1,2 @@
+CREATE INDEX IDX_ENROLLMENTS_STATUS_ENROLLED ON ENROLLMENTS (STATUS, ENROLLED_AT, ID);
+DROP INDEX IDX_ENROLLMENTS_STATUS;
@@ -0,0 +1,10 @@
+CREATE TABLE AI_RESPONSE_CACHE (
+  REQUEST_TYPE VARCHAR2(30) NOT NULL,
+  MODEL_NAME VARCHAR2(50) NOT NULL,
+  INPUT_HASH CHAR(64) NOT NULL,
+  OUTPUT_TEXT CLOB NOT NULL,
+  CREATED_AT TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL,
+  CONSTRAINT PK_AI_RESPONSE_CACHE PRIMARY KEY (INPUT_HASH, REQUEST_TYPE, MODEL_NAME)
+);
+
+CREATE INDEX IDX_AI_RESPONSE_CACHE_CREATED ON AI_RESPONSE_CACHE (CREATED_AT);
@@ -0,0 +1,5 @@
+ALTER TABLE COURSE_ROLLUP_STATE ADD (
+  PENDING_PROGRESS_VERSION NUMBER(19),
+  PENDING_ENROLLMENT_ID NUMBER,
+  PENDING_AT TIMESTAMP
+);
@@ -0,0 +1,99 @@
+CREATE TABLE ENROLLMENT_DUPLICATES AS
+SELECT e.ID AS DUPLICATE_ID, k.KEEP_ID
+FROM ENROLLMENTS e
+JOIN (
+  SELECT
+    USER_ID,
+    COURSE_ID,
+    MIN(ID) KEEP (
+      DENSE_RANK FIRST ORDER BY CASE WHEN STATUS = 'PENDING' THEN 1 ELSE 0 END, ENROLLED_AT, ID
+    ) AS KEEP_ID
+  FROM ENROLLMENTS
+  GROUP BY USER_ID, COURSE_ID
+  HAVING COUNT(*) > 1
+) k ON k.USER_ID = e.USER_ID AND k.COURSE_ID = e.COURSE_ID
+WHERE e.ID != k.KEEP_ID;
+
+MERGE INTO PROGRESS p
+USING (
+  SELECT
+    MIN(x.ID) KEEP (
+      DENSE_RANK FIRST ORDER BY CASE WHEN x.COMPLETED_AT IS NOT NULL THEN 0 ELSE 1 END, x.PROGRESS_PERCENT DESC NULLS LAST, x.ID
+    ) AS KEEP_ID,
+    MAX(x.PROGRESS_PERCENT) AS PROGRESS_PERCENT,
+    MIN(x.COMPLETED_AT) AS COMPLETED_AT,
+    MAX(x.LAST_POSITION_SEC) AS LAST_POSITION_SEC
+  FROM (
+    SELECT pr.ID, pr.LESSON_ID, pr.PROGRESS_PERCENT, pr.COMPLETED_AT, pr.LAST_POSITION_SEC,
+      NVL(d.KEEP_ID, pr.ENROLLMENT_ID) AS TARGET_ENROLLMENT_ID
+    FROM PROGRESS pr
+    LEFT JOIN ENROLLMENT_DUPLICATES d ON d.DUPLICATE_ID = pr.ENROLLMENT_ID
+  ) x
+  GROUP BY x.TARGET_ENROLLMENT_ID, x.LESSON_ID
+  HAVING COUNT(*) > 1
+) f
+ON (p.ID = f.KEEP_ID)
+WHEN MATCHED THEN
+  UPDATE SET
+    p.PROGRESS_PERCENT = f.PROGRESS_PERCENT,
+    p.COMPLETED_AT = f.COMPLETED_AT,
+    p.LAST_POSITION_SEC = f.LAST_POSITION_SEC;
+
+DELETE FROM PROGRESS p
+WHERE p.ID NOT IN (
+  SELECT
+    MIN(x.ID) KEEP (
+      DENSE_RANK FIRST ORDER BY CASE WHEN x.COMPLETED_AT IS NOT NULL THEN 0 ELSE 1 END, x.PROGRESS_PERCENT DESC NULLS LAST, x.ID
+    )
+  FROM (
+    SELECT pr.ID, pr.LESSON_ID, pr.PROGRESS_PERCENT, pr.COMPLETED_AT,
+      NVL(d.KEEP_ID, pr.ENROLLMENT_ID) AS TARGET_ENROLLMENT_ID
+    FROM PROGRESS pr
+    LEFT JOIN ENROLLMENT_DUPLICATES d ON d.DUPLICATE_ID = pr.ENROLLMENT_ID
+  ) x
+  GROUP BY x.TARGET_ENROLLMENT_ID, x.LESSON_ID
+);
+
+UPDATE PROGRESS p
+SET p.ENROLLMENT_ID = (SELECT d.KEEP_ID FROM ENROLLMENT_DUPLICATES d WHERE d.DUPLICATE_ID = p.ENROLLMENT_ID)
+WHERE p.ENROLLMENT_ID IN (SELECT DUPLICATE_ID FROM ENROLLMENT_DUPLICATES);
+
+UPDATE PROGRESS_EVENTS pe
+SET pe.ENROLLMENT_ID = (SELECT d.KEEP_ID FROM ENROLLMENT_DUPLICATES d WHERE d.DUPLICATE_ID = pe.ENROLLMENT_ID)
+WHERE pe.ENROLLMENT_ID IN (SELECT DUPLICATE_ID FROM ENROLLMENT_DUPLICATES);
+
+DELETE FROM ENROLLMENTS WHERE ID IN (SELECT DUPLICATE_ID FROM ENROLLMENT_DUPLICATES);
+
+DROP TABLE ENROLLMENT_DUPLICATES PURGE;
+
+ALTER TABLE ENROLLMENTS ADD CONSTRAINT UQ_ENROLLMENTS_USER_COURSE UNIQUE (USER_ID, COURSE_ID)
+  USING INDEX IDX_ENROLLMENTS_USER_COURSE;
+
+DELETE FROM COURSE_DAILY_ROLLUP;
+
+INSERT INTO COURSE_DAILY_ROLLUP (
+  COURSE_ID, ROLLUP_DATE, LEARNER_COUNT, PROGRESS_SUM, PROGRESS_COUNT, COMPLETED_LEARNERS
+)
+SELECT
+  e.COURSE_ID,
+  TRUNC(e.ENROLLED_AT),
+  COUNT(DISTINCT e.USER_ID),
+  NVL(SUM(p.PROGRESS_PERCENT), 0),
+  COUNT(p.PROGRESS_PERCENT),
+  COUNT(DISTINCT CASE WHEN p.PROGRESS_PERCENT = 100 THEN e.USER_ID END)
+FROM ENROLLMENTS e
+LEFT JOIN PROGRESS p ON p.ENROLLMENT_ID = e.ID
+GROUP BY e.COURSE_ID, TRUNC(e.ENROLLED_AT);
+
+DELETE FROM COURSE_DAILY_LEARNER_SKETCH;
+
+UPDATE COURSE_ROLLUP_STATE
+SET
+  LAST_PROGRESS_VERSION = (SELECT NVL(MAX(CHANGE_VERSION), 0) FROM PROGRESS),
+  LAST_ENROLLMENT_ID = (SELECT NVL(MAX(ID), 0) FROM ENROLLMENTS),
+  LAST_SKETCH_ENROLLMENT_ID = 0,
+  PENDING_PROGRESS_VERSION = NULL,
+  PENDING_ENROLLMENT_ID = NULL,
+  PENDING_AT = NULL,
+  UPDATED_AT = SYSTIMESTAMP
+WHERE ID = 1;
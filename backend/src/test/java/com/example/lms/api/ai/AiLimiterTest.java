@@ -0,0 +1,147 @@
+package com.example.lms.api.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.lms.api.error.ApiException;
+import com.example.lms.api.error.ErrorCode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class AiLimiterTest {
+  private AiLimiter limiter;
+
+  @AfterEach
+  void stop() {
+    if (limiter != null) {
+      limiter.shutdown();
+    }
+  }
+
+  @Test
+  void runsAtMostMaxConcurrentCallsAndServesTheQueueInOrder() {
+    limiter = new AiLimiter(2, 10, 10_000, 10, 20);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<Integer> startOrder = new CopyOnWriteArrayList<>();
+    List<CompletableFuture<Integer>> upstream = new CopyOnWriteArrayList<>();
+    List<CompletableFuture<Integer>> calls = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      int id = i;
+      calls.add(
+          limiter.withPermit(
+              () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                startOrder.add(id);
+                CompletableFuture<Integer> call = new CompletableFuture<>();
+                upstream.add(call);
+                return call.whenComplete((value, ex) -> running.decrementAndGet());
+              }));
+    }
+
+    assertEquals(2, upstream.size());
+    assertEquals(4, limiter.metricsSnapshot().get("queueDepth"));
+    for (int i = 0; i < 6; i++) {
+      upstream.get(i).complete(i);
+    }
+
+    for (int i = 0; i < 6; i++) {
+      assertEquals(i, calls.get(i).join());
+    }
+    assertEquals(List.of(0, 1, 2, 3, 4, 5), startOrder);
+    assertEquals(2, maxRunning.get());
+    assertEquals(0, limiter.metricsSnapshot().get("active"));
+  }
+
+  @Test
+  void rejectsWith429WhenTheQueueIsFull() {
+    limiter = new AiLimiter(1, 1, 10_000, 10, 20);
+    CompletableFuture<String> holder = new CompletableFuture<>();
+    CompletableFuture<String> first = limiter.withPermit(() -> holder);
+    CompletableFuture<String> second = limiter.withPermit(() -> CompletableFuture.completedFuture("second"));
+
+    CompletableFuture<String> third = limiter.withPermit(() -> CompletableFuture.completedFuture("third"));
+
+    assertTooManyRequests(third);
+    assertFalse(second.isDone());
+    holder.complete("first");
+    assertEquals("first", first.join());
+    assertEquals("second", second.join());
+    assertEquals(1L, limiter.metricsSnapshot().get("queueFull"));
+  }
+
+  @Test
+  void queueTimeoutGivesUpTheQueueSlot() {
+    limiter = new AiLimiter(1, 1, 100, 10, 20);
+    CompletableFuture<String> holder = new CompletableFuture<>();
+    limiter.withPermit(() -> holder);
+    CompletableFuture<String> timedOut = limiter.withPermit(() -> CompletableFuture.completedFuture("late"));
+
+    assertTooManyRequests(timedOut);
+    assertEquals(0, limiter.metricsSnapshot().get("queueDepth"));
+    CompletableFuture<String> next = limiter.withPermit(() -> CompletableFuture.completedFuture("next"));
+    assertFalse(next.isDone(), "the freed slot should queue the next call, not reject it");
+    holder.complete("first");
+
+    assertEquals("next", next.orTimeout(5, TimeUnit.SECONDS).join());
+    assertEquals(1L, limiter.metricsSnapshot().get("queueTimeouts"));
+    assertEquals(0, limiter.metricsSnapshot().get("active"));
+  }
+
+  @Test
+  void cancelledWaiterLeavesTheQueueAndNeverRuns() {
+    limiter = new AiLimiter(1, 1, 10_000, 10, 20);
+    CompletableFuture<String> holder = new CompletableFuture<>();
+    limiter.withPermit(() -> holder);
+    AtomicInteger cancelledRuns = new AtomicInteger();
+    CompletableFuture<String> cancelled =
+        limiter.withPermit(
+            () -> {
+              cancelledRuns.incrementAndGet();
+              return CompletableFuture.completedFuture("cancelled");
+            });
+
+    assertTrue(cancelled.cancel(false));
+    assertEquals(0, limiter.metricsSnapshot().get("queueDepth"));
+    CompletableFuture<String> next = limiter.withPermit(() -> CompletableFuture.completedFuture("next"));
+    holder.complete("first");
+
+    assertEquals("next", next.orTimeout(5, TimeUnit.SECONDS).join());
+    assertEquals(0, cancelledRuns.get());
+    assertEquals(1L, limiter.metricsSnapshot().get("queueCancels"));
+    assertEquals(0, limiter.metricsSnapshot().get("active"));
+  }
+
+  @Test
+  void tokenBucketAllowsTheBurstAndRefills() throws InterruptedException {
+    // 6000 per minute refills one token every 10 ms.
+    limiter = new AiLimiter(1, 1, 10_000, 2, 6_000);
+    limiter.checkRate(7);
+    limiter.checkRate(7);
+
+    ApiException limited = assertThrows(ApiException.class, () -> limiter.checkRate(7));
+    assertEquals(ErrorCode.TOO_MANY_REQUESTS, limited.getCode());
+    limiter.checkRate(8);
+
+    Thread.sleep(50);
+    limiter.checkRate(7);
+    assertEquals(1L, limiter.metricsSnapshot().get("rateLimited"));
+  }
+
+  private static void assertTooManyRequests(CompletableFuture<?> call) {
+    CompletionException failure =
+        assertThrows(CompletionException.class, () -> call.orTimeout(5, TimeUnit.SECONDS).join());
+    ApiException cause = assertInstanceOf(ApiException.class, failure.getCause());
+    assertEquals(ErrorCode.TOO_MANY_REQUESTS, cause.getCode());
+  }
+}
@@ -0,0 +1,124 @@
+package com.example.lms.api.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Identical requests that overlap in time must share one upstream call. The stub holds the first
+// response until every caller has been submitted, so all of them arrive while it is in flight.
+class AiServiceCoalescingTest {
+  private static final int CALLERS = 32;
+  private static final String OUTPUT = "- one\n- two";
+
+  private final AtomicInteger hits = new AtomicInteger();
+  private final Map<String, Integer> logged = new ConcurrentHashMap<>();
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final ExecutorService stubThreads = Executors.newCachedThreadPool();
+  private HttpServer server;
+  private AiService service;
+
+  @BeforeEach
+  void start() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(stubThreads);
+    server.createContext(
+        "/v1/responses",
+        exchange -> {
+          hits.incrementAndGet();
+          try (InputStream in = exchange.getRequestBody()) {
+            in.readAllBytes();
+          }
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          }
+          byte[] body =
+              ("{\"output\":[{\"content\":[{\"type\":\"output_text\",\"text\":\"- one\\n- two\"}]}]}")
+                  .getBytes(StandardCharsets.UTF_8);
+          exchange.getResponseHeaders().add("Content-Type", "application/json");
+          exchange.sendResponseHeaders(200, body.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+          }
+        });
+    server.start();
+
+    AiRepository repository = new RecordingRepository();
+    service =
+        new AiService(
+            repository,
+            new AiResponseCache(repository, false, 10, 10, 1),
+            new AiLimiter(16, 200, 10_000, 100, 600),
+            new ObjectMapper(),
+            "http://localhost:" + server.getAddress().getPort() + "/v1/responses",
+            "test-key",
+            2,
+            2,
+            100,
+            30_000);
+  }
+
+  @AfterEach
+  void stop() {
+    release.countDown();
+    service.shutdown();
+    server.stop(0);
+    stubThreads.shutdownNow();
+  }
+
+  @Test
+  void concurrentIdenticalSummariesShareOneUpstreamCall() {
+    List<CompletableFuture<AiService.AiResult>> calls = new ArrayList<>();
+    for (int i = 0; i < CALLERS; i++) {
+      calls.add(service.generateSummary(i + 1, "The same lesson text"));
+    }
+    release.countDown();
+
+    Map<String, Integer> statuses = new TreeMap<>();
+    for (CompletableFuture<AiService.AiResult> call : calls) {
+      AiService.AiResult result = call.orTimeout(20, TimeUnit.SECONDS).join();
+      assertEquals(OUTPUT, result.output());
+      statuses.merge(result.status(), 1, Integer::sum);
+    }
+
+    assertEquals(1, hits.get());
+    assertEquals(Map.of("COALESCED", CALLERS - 1, "OK", 1), statuses);
+    service.shutdown();
+    assertEquals(Map.of("COALESCED", CALLERS - 1, "OK", 1), logged);
+  }
+
+  // Records AI_REQUESTS rows instead of writing them; there is no database in this test.
+  private class RecordingRepository extends AiRepository {
+    RecordingRepository() {
+      super(new JdbcTemplate());
+    }
+
+    @Override
+    public void insert(
+        Long userId, String modelName, String requestText, String responseText, long latencyMs, String status) {
+      logged.merge(status, 1, Integer::sum);
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package com.example.lms.api.enrollments;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.lms.api.enrollments.EnrollmentDtos.BulkApproveRequest;
+import com.example.lms.api.enrollments.EnrollmentDtos.PendingEnrollmentResponse;
+import com.example.lms.api.error.ApiException;
+import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.events.ReportDataChangedEvent;
+import com.example.lms.api.paging.PageResponse;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+// Runs the controller over the real repository SQL on H2 in Oracle mode, with a minimal schema.
+class EnrollmentControllerTest {
+  private static final Optional<String> ADMIN_ID = Optional.of("1");
+  private static final Optional<String> ADMIN = Optional.of("ADMIN");
+  private static final Instant SAME_INSTANT = Instant.parse("2026-03-01T09:00:00.123456Z");
+
+  private JdbcTemplate jdbcTemplate;
+  private EnrollmentController controller;
+  private final List<Object> events = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    DriverManagerDataSource dataSource =
+        new DriverManagerDataSource("jdbc:h2:mem:enrollments;MODE=Oracle;DB_CLOSE_DELAY=-1");
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("DROP ALL OBJECTS");
+    jdbcTemplate.execute(
+        "CREATE TABLE USERS (ID NUMBER PRIMARY KEY, EMAIL VARCHAR2(255) NOT NULL, NAME VARCHAR2(100))");
+    jdbcTemplate.execute("CREATE TABLE COURSES (ID NUMBER PRIMARY KEY, TITLE VARCHAR2(200) NOT NULL)");
+    jdbcTemplate.execute(
+        """
+        CREATE TABLE ENROLLMENTS (
+          ID NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+          USER_ID NUMBER NOT NULL,
+          COURSE_ID NUMBER NOT NULL,
+          STATUS VARCHAR2(30) NOT NULL,
+          ENROLLED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+        )
+        """);
+    for (long userId = 1; userId <= 20; userId++) {
+      jdbcTemplate.update(
+          "INSERT INTO USERS (ID, EMAIL, NAME) VALUES (?, ?, ?)", userId, "u" + userId + "@example.com", "U" + userId);
+    }
+    jdbcTemplate.update("INSERT INTO COURSES (ID, TITLE) VALUES (1, 'Java')");
+    jdbcTemplate.update("INSERT INTO COURSES (ID, TITLE) VALUES (2, 'SQL')");
+    EnrollmentRepository repository =
+        new EnrollmentRepository(jdbcTemplate, new EnrollmentAuthCache(1000, 60));
+    controller = new EnrollmentController(repository, events::add);
+  }
+
+  @Test
+  void pendingPagesThroughRowsSharingOneTimestampWithoutGapsOrRepeats() {
+    // Newest first; rows enrolled at the same instant come out by descending ID.
+    List<Long> expected = new ArrayList<>();
+    expected.add(enroll(1, 1, "PENDING", SAME_INSTANT.plusSeconds(60)));
+    List<Long> tied = new ArrayList<>();
+    for (long userId = 2; userId <= 8; userId++) {
+      tied.add(0, enroll(userId, 1, "PENDING", SAME_INSTANT));
+    }
+    expected.addAll(tied);
+    enroll(9, 1, "APPROVED", SAME_INSTANT);
+    expected.add(enroll(10, 1, "PENDING", SAME_INSTANT.minusSeconds(60)));
+
+    List<Long> seen = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      PageResponse<PendingEnrollmentResponse> page =
+          controller.listPending(null, cursor, 3, ADMIN_ID, ADMIN);
+      page.items().forEach(item -> seen.add(item.id()));
+      cursor = page.nextCursor();
+      pages++;
+    } while (cursor != null);
+
+    assertEquals(expected, seen);
+    assertEquals(3, pages);
+  }
+
+  @Test
+  void pendingFiltersByCourseAndKeepsTheCursorWithinIt() {
+    for (long userId = 1; userId <= 5; userId++) {
+      enroll(userId, userId % 2 == 0 ? 2 : 1, "PENDING", SAME_INSTANT);
+    }
+
+    PageResponse<PendingEnrollmentResponse> first = controller.listPending(2L, null, 1, ADMIN_ID, ADMIN);
+    PageResponse<PendingEnrollmentResponse> second =
+        controller.listPending(2L, first.nextCursor(), 1, ADMIN_ID, ADMIN);
+
+    assertEquals(1, first.items().size());
+    assertEquals(1, second.items().size());
+    assertTrue(first.items().get(0).id() > second.items().get(0).id());
+    assertTrue(second.items().stream().allMatch(item -> item.courseId() == 2));
+    assertNull(second.nextCursor());
+  }
+
+  @Test
+  void pendingRejectsLimitsOutsideTheAllowedRange() {
+    assertValidationError(() -> controller.listPending(null, null, 0, ADMIN_ID, ADMIN));
+    assertValidationError(() -> controller.listPending(null, null, 501, ADMIN_ID, ADMIN));
+  }
+
+  @Test
+  void bulkApproveRejectsIdsCombinedWithAFilter() {
+    long id = enroll(1, 1, "PENDING", SAME_INSTANT);
+
+    assertValidationError(() -> approve(new BulkApproveRequest(List.of(id), 1L, null)));
+    assertValidationError(() -> approve(new BulkApproveRequest(List.of(id), null, "2026-03-02")));
+    assertEquals("PENDING", status(id));
+  }
+
+  @Test
+  void bulkApproveRejectsAnEmptyIdList() {
+    assertValidationError(() -> approve(new BulkApproveRequest(List.of(), null, null)));
+  }
+
+  @Test
+  void bulkApproveRejectsMoreThan1000Ids() {
+    List<Long> ids = LongStream.rangeClosed(1, 1001).boxed().toList();
+
+    assertValidationError(() -> approve(new BulkApproveRequest(ids, null, null)));
+  }
+
+  @Test
+  void bulkApproveRejectsARequestWithNeitherIdsNorFilter() {
+    assertValidationError(() -> approve(new BulkApproveRequest(null, null, null)));
+  }
+
+  @Test
+  void bulkApproveByIdsCountsOnlyRowsThatWerePending() {
+    long pending = enroll(1, 1, "PENDING", SAME_INSTANT);
+    long approved = enroll(2, 2, "APPROVED", SAME_INSTANT);
+    List<Long> ids = new ArrayList<>(LongStream.rangeClosed(5_000, 5_997).boxed().toList());
+    ids.add(pending);
+    ids.add(approved);
+
+    assertEquals(1000, ids.size());
+    assertEquals(1, approve(new BulkApproveRequest(ids, null, null)).approved());
+    assertEquals("APPROVED", status(pending));
+    assertEquals(1, events.size());
+    assertTrue(events.get(0) instanceof ReportDataChangedEvent);
+  }
+
+  @Test
+  void bulkApproveByFilterApprovesOnlyMatchingPendingRows() {
+    long early = enroll(1, 1, "PENDING", SAME_INSTANT);
+    long late = enroll(2, 1, "PENDING", Instant.parse("2026-03-05T09:00:00Z"));
+    long otherCourse = enroll(3, 2, "PENDING", SAME_INSTANT);
+
+    assertEquals(1, approve(new BulkApproveRequest(null, 1L, "2026-03-02")).approved());
+    assertEquals("APPROVED", status(early));
+    assertEquals("PENDING", status(late));
+    assertEquals("PENDING", status(otherCourse));
+  }
+
+  private EnrollmentDtos.BulkApproveResponse approve(BulkApproveRequest request) {
+    return controller.approveBulk(request, ADMIN_ID, ADMIN);
+  }
+
+  private long enroll(long userId, long courseId, String status, Instant enrolledAt) {
+    jdbcTemplate.update(
+        "INSERT INTO ENROLLMENTS (USER_ID, COURSE_ID, STATUS, ENROLLED_AT) VALUES (?, ?, ?, ?)",
+        userId,
+        courseId,
+        status,
+        Timestamp.from(enrolledAt));
+    return jdbcTemplate.queryForObject("SELECT MAX(ID) FROM ENROLLMENTS", Long.class);
+  }
+
+  private String status(long id) {
+    return jdbcTemplate.queryForObject("SELECT STATUS FROM ENROLLMENTS WHERE ID = ?", String.class, id);
+  }
+
+  private static void assertValidationError(Runnable call) {
+    ApiException ex = assertThrows(ApiException.class, call::run);
+    assertEquals(ErrorCode.VALIDATION_ERROR, ex.getCode());
+  }
+}
@@ -0,0 +1,63 @@
+package com.example.lms.api.lessons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.example.lms.api.error.ApiException;
+import com.example.lms.api.error.ErrorCode;
+import com.example.lms.api.lessons.LessonDtos.LessonBulkItem;
+import com.example.lms.api.lessons.LessonDtos.LessonBulkRequest;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class CourseLessonControllerTest {
+  private final LessonBulkService bulkService = mock(LessonBulkService.class);
+  private final CourseLessonController controller = new CourseLessonController(bulkService);
+
+  @Test
+  void bulkRejectsAnOmittedOrderNo() {
+    assertRejected(List.of(item(null, "Setup", 0)));
+  }
+
+  @Test
+  void bulkRejectsANegativeOrderNo() {
+    assertRejected(List.of(item(10L, "Setup", -1)));
+  }
+
+  @Test
+  void bulkRejectsOrderNosRepeatedWithinTheRequest() {
+    assertRejected(List.of(item(10L, "Setup", 1), item(null, "Basics", 2), item(null, "Loops", 2)));
+  }
+
+  @Test
+  void bulkPassesDistinctPositiveOrderNosThrough() {
+    controller.bulkUpsert(
+        1L,
+        new LessonBulkRequest(List.of(item(10L, "Setup", 2), item(null, "Basics", 1))),
+        Optional.of("1"),
+        Optional.of("ADMIN"));
+
+    verify(bulkService).upsert(anyLong(), anyList());
+  }
+
+  private void assertRejected(List<LessonBulkItem> items) {
+    ApiException ex =
+        assertThrows(
+            ApiException.class,
+            () ->
+                controller.bulkUpsert(
+                    1L, new LessonBulkRequest(items), Optional.of("1"), Optional.of("ADMIN")));
+    assertEquals(ErrorCode.VALIDATION_ERROR, ex.getCode());
+    verify(bulkService, never()).upsert(anyLong(), anyList());
+  }
+
+  private static LessonBulkItem item(Long id, String title, int orderNo) {
+    return new LessonBulkItem(id, title, null, orderNo, null, null, null);
+  }
+}
@@ -0,0 +1,156 @@
+package com.example.lms.api.progress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.example.lms.api.enrollments.EnrollmentAuthCache;
+import com.example.lms.api.enrollments.EnrollmentRepository;
+import com.example.lms.api.progress.ProgressDtos.ProgressResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+// Delta reads on H2 in Oracle mode; CHANGE_VERSION is set by hand since there is no trigger.
+class ProgressControllerTest {
+  private static final long ENROLLMENT_ID = 100;
+  private static final Optional<String> LEARNER_ID = Optional.of("7");
+  private static final Optional<String> LEARNER = Optional.of("LEARNER");
+
+  private JdbcTemplate jdbcTemplate;
+  private ProgressWriteBuffer writeBuffer;
+  private ProgressController controller;
+
+  @BeforeEach
+  void setUp() {
+    DriverManagerDataSource dataSource =
+        new DriverManagerDataSource("jdbc:h2:mem:progress-delta;MODE=Oracle;DB_CLOSE_DELAY=-1");
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("DROP ALL OBJECTS");
+    jdbcTemplate.execute(
+        """
+        CREATE TABLE ENROLLMENTS (
+          ID NUMBER PRIMARY KEY,
+          USER_ID NUMBER NOT NULL,
+          COURSE_ID NUMBER NOT NULL,
+          STATUS VARCHAR2(30) NOT NULL
+        )
+        """);
+    jdbcTemplate.execute(
+        """
+        CREATE TABLE PROGRESS (
+          ID NUMBER PRIMARY KEY,
+          ENROLLMENT_ID NUMBER NOT NULL,
+          LESSON_ID NUMBER NOT NULL,
+          PROGRESS_PERCENT NUMBER(5,2) NOT NULL,
+          COMPLETED_AT TIMESTAMP,
+          LAST_POSITION_SEC NUMBER(10,2),
+          CHANGE_VERSION NUMBER(19) NOT NULL
+        )
+        """);
+    jdbcTemplate.update("INSERT INTO ENROLLMENTS VALUES (100, 7, 1, 'APPROVED')");
+    progress(500, 10, 20, 5);
+    progress(501, 11, 40, 7);
+    progress(502, 12, 60, 9);
+
+    ProgressRepository progressRepository = new ProgressRepository(jdbcTemplate);
+    writeBuffer = new ProgressWriteBuffer(progressRepository, event -> {}, true, 200, 5000, 60_000);
+    ProgressEventLog eventLog =
+        new ProgressEventLog(
+            new ProgressEventRepository(jdbcTemplate),
+            progressRepository,
+            new DataSourceTransactionManager(dataSource),
+            event -> {},
+            false,
+            5000,
+            2,
+            5000);
+    controller =
+        new ProgressController(
+            progressRepository,
+            new EnrollmentRepository(jdbcTemplate, new EnrollmentAuthCache(1000, 60)),
+            writeBuffer,
+            eventLog,
+            new ProgressQueries(progressRepository, writeBuffer, eventLog),
+            event -> {});
+  }
+
+  @Test
+  void deltaCarriesAnETagAndAnswers304WhenNothingChanged() {
+    ResponseEntity<List<ProgressResponse>> delta = list(6L, null);
+
+    assertEquals(List.of(11L, 12L), delta.getBody().stream().map(ProgressResponse::lessonId).toList());
+    assertEquals("9", delta.getHeaders().getFirst("X-Progress-Version"));
+    String etag = delta.getHeaders().getETag();
+    assertNotNull(etag);
+
+    assertNull(list(6L, etag));
+  }
+
+  @Test
+  void deltaWithBufferedWritesAddsTheBufferedLessonsWithoutAnETag() {
+    writeBuffer.offer(new ProgressWrite(ENROLLMENT_ID, 10, 80, false, 300.0));
+    writeBuffer.offer(new ProgressWrite(ENROLLMENT_ID, 13, 10, false, null));
+
+    ResponseEntity<List<ProgressResponse>> delta = list(8L, null);
+
+    Map<Long, ProgressResponse> byLesson =
+        delta.getBody().stream().collect(Collectors.toMap(ProgressResponse::lessonId, Function.identity()));
+    assertEquals(List.of(10L, 12L, 13L), byLesson.keySet().stream().sorted().toList());
+    ProgressResponse buffered = byLesson.get(10L);
+    assertEquals(500, buffered.id());
+    assertEquals(80.0, buffered.progressPercent());
+    assertEquals(300.0, buffered.lastPositionSec());
+    assertEquals(60.0, byLesson.get(12L).progressPercent());
+    assertEquals(0, byLesson.get(13L).id());
+    assertNull(delta.getHeaders().getETag());
+    assertEquals("no-store", delta.getHeaders().getCacheControl());
+    assertEquals("9", delta.getHeaders().getFirst("X-Progress-Version"));
+  }
+
+  @Test
+  void fullListWithBufferedWritesOverlaysEveryRow() {
+    writeBuffer.offer(new ProgressWrite(ENROLLMENT_ID, 11, 90, false, null));
+
+    ResponseEntity<List<ProgressResponse>> full = list(null, null);
+
+    assertEquals(List.of(10L, 11L, 12L), full.getBody().stream().map(ProgressResponse::lessonId).toList());
+    assertEquals(90.0, full.getBody().get(1).progressPercent());
+    assertNull(full.getHeaders().getETag());
+  }
+
+  private ResponseEntity<List<ProgressResponse>> list(Long sinceVersion, String ifNoneMatch) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/progress");
+    if (ifNoneMatch != null) {
+      request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+    }
+    return controller.list(
+        ENROLLMENT_ID,
+        sinceVersion,
+        LEARNER_ID,
+        LEARNER,
+        new ServletWebRequest(request, new MockHttpServletResponse()));
+  }
+
+  private void progress(long id, long lessonId, double percent, long changeVersion) {
+    jdbcTemplate.update(
+        "INSERT INTO PROGRESS (ID, ENROLLMENT_ID, LESSON_ID, PROGRESS_PERCENT, CHANGE_VERSION) VALUES (?, ?, ?, ?, ?)",
+        id,
+        ENROLLMENT_ID,
+        lessonId,
+        percent,
+        changeVersion);
+  }
+}
@@ -0,0 +1,93 @@
+package com.example.lms.api.progress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+// Runs the batch upsert on H2 in Oracle mode against a PROGRESS table with the V12 unique key.
+class ProgressRepositoryTest {
+  private DriverManagerDataSource dataSource;
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = new DriverManagerDataSource("jdbc:h2:mem:progress;MODE=Oracle;DB_CLOSE_DELAY=-1");
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("DROP ALL OBJECTS");
+    jdbcTemplate.execute(
+        """
+        CREATE TABLE PROGRESS (
+          ID NUMBER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+          ENROLLMENT_ID NUMBER NOT NULL,
+          LESSON_ID NUMBER NOT NULL,
+          PROGRESS_PERCENT NUMBER(5,2) NOT NULL,
+          COMPLETED_AT TIMESTAMP,
+          LAST_POSITION_SEC NUMBER(10,2),
+          CONSTRAINT UQ_PROGRESS_ENROLLMENT_LESSON UNIQUE (ENROLLMENT_ID, LESSON_ID)
+        )
+        """);
+  }
+
+  @Test
+  void upsertBatchInsertsAndUpdatesAndReturnsTheAffectedRows() {
+    ProgressRepository repository = new ProgressRepository(jdbcTemplate);
+    repository.upsertBatch(List.of(new ProgressWrite(1, 10, 20, false, 30.0)));
+
+    int affected =
+        repository.upsertBatch(
+            List.of(new ProgressWrite(1, 10, 100, true, null), new ProgressWrite(1, 11, 5, false, 12.0)));
+
+    assertEquals(2, affected);
+    Map<String, Object> updated = row(1, 10);
+    assertEquals(100, ((Number) updated.get("PROGRESS_PERCENT")).intValue());
+    assertNotNull(updated.get("COMPLETED_AT"));
+    assertEquals(30, ((Number) updated.get("LAST_POSITION_SEC")).intValue());
+    assertEquals(5, ((Number) row(1, 11).get("PROGRESS_PERCENT")).intValue());
+  }
+
+  @Test
+  void upsertBatchRedoesRowByRowWhenAConcurrentInsertWinsAKey() {
+    JdbcTemplate racing =
+        new JdbcTemplate(dataSource) {
+          @Override
+          public <T> int[][] batchUpdate(
+              String sql,
+              Collection<T> batchArgs,
+              int batchSize,
+              ParameterizedPreparedStatementSetter<T> setter) {
+            // Another writer inserts the second key after this batch has applied the first one.
+            super.batchUpdate(sql, List.copyOf(batchArgs).subList(0, 1), batchSize, setter);
+            jdbcTemplate.update(
+                "INSERT INTO PROGRESS (ENROLLMENT_ID, LESSON_ID, PROGRESS_PERCENT) VALUES (1, 11, 40)");
+            throw new DuplicateKeyException("ORA-00001: unique constraint violated");
+          }
+        };
+    ProgressRepository repository = new ProgressRepository(racing);
+
+    int affected =
+        repository.upsertBatch(
+            List.of(new ProgressWrite(1, 10, 50, false, null), new ProgressWrite(1, 11, 60, false, null)));
+
+    assertEquals(2, affected);
+    assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PROGRESS", Integer.class));
+    assertEquals(50, ((Number) row(1, 10).get("PROGRESS_PERCENT")).intValue());
+    Map<String, Object> raced = row(1, 11);
+    assertEquals(60, ((Number) raced.get("PROGRESS_PERCENT")).intValue());
+    assertNull(raced.get("COMPLETED_AT"));
+  }
+
+  private Map<String, Object> row(long enrollmentId, long lessonId) {
+    return jdbcTemplate.queryForMap(
+        "SELECT * FROM PROGRESS WHERE ENROLLMENT_ID = ? AND LESSON_ID = ?", enrollmentId, lessonId);
+  }
+}
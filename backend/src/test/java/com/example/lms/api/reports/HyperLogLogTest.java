@@ -0,0 +1,131 @@
+package com.example.lms.api.reports;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTest {
+  private static final int[] CARDINALITIES = {1_000, 10_000, 100_000};
+  private static final int TRIALS = 10;
+  private static final int DAYS = 30;
+
+  @Test
+  void emptySketchEstimatesZero() {
+    HyperLogLog sketch = new HyperLogLog();
+
+    assertEquals(0, sketch.estimate());
+    assertEquals(0, HyperLogLog.fromBytes(sketch.toBytes()).estimate());
+  }
+
+  @Test
+  void smallSketchRoundTripsInSparseForm() {
+    HyperLogLog sketch = sketchOf(1, 50);
+
+    byte[] bytes = sketch.toBytes();
+
+    assertTrue(bytes.length < 1 + HyperLogLog.REGISTERS, "expected sparse encoding, got " + bytes.length + " bytes");
+    HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+    assertEquals(sketch.estimate(), restored.estimate());
+    assertArrayEquals(bytes, restored.toBytes());
+  }
+
+  @Test
+  void largeSketchRoundTripsInDenseForm() {
+    HyperLogLog sketch = sketchOf(1, 20_000);
+
+    byte[] bytes = sketch.toBytes();
+
+    assertEquals(1 + HyperLogLog.REGISTERS, bytes.length);
+    HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+    assertEquals(sketch.estimate(), restored.estimate());
+    assertArrayEquals(bytes, restored.toBytes());
+  }
+
+  @Test
+  void addingTheSameIdAgainChangesNothing() {
+    HyperLogLog sketch = sketchOf(1, 1_000);
+    byte[] before = sketch.toBytes();
+
+    for (long id = 1; id <= 1_000; id++) {
+      sketch.add(id);
+    }
+
+    assertArrayEquals(before, sketch.toBytes());
+  }
+
+  @Test
+  void mergeMatchesASketchOfTheUnion() {
+    HyperLogLog left = sketchOf(1, 6_000);
+    HyperLogLog right = sketchOf(4_001, 10_000);
+
+    left.merge(right);
+
+    assertArrayEquals(sketchOf(1, 10_000).toBytes(), left.toBytes());
+  }
+
+  @Test
+  void mergeOfSparseAndDenseSketchesAfterRoundTrip() {
+    HyperLogLog sparse = HyperLogLog.fromBytes(sketchOf(1, 40).toBytes());
+    HyperLogLog dense = HyperLogLog.fromBytes(sketchOf(41, 30_000).toBytes());
+
+    sparse.merge(dense);
+
+    assertArrayEquals(sketchOf(1, 30_000).toBytes(), sparse.toBytes());
+  }
+
+  @Test
+  void mergeIsCommutative() {
+    HyperLogLog a = sketchOf(1, 3_000);
+    a.merge(sketchOf(2_000, 9_000));
+    HyperLogLog b = sketchOf(2_000, 9_000);
+    b.merge(sketchOf(1, 3_000));
+
+    assertArrayEquals(a.toBytes(), b.toBytes());
+  }
+
+  // Ids of known cardinality are split into per-day sketches and merged, as the approximate course
+  // period report does. Single trials get a 4 sigma bound; the RMS error over the trials should be
+  // close to RELATIVE_STANDARD_ERROR.
+  @Test
+  void mergedEstimatesStayWithinTheStandardErrorBounds() {
+    double rse = HyperLogLog.RELATIVE_STANDARD_ERROR;
+    Random random = new Random(42);
+    for (int cardinality : CARDINALITIES) {
+      double sumSquaredError = 0;
+      for (int trial = 0; trial < TRIALS; trial++) {
+        long firstId = 1 + random.nextInt(1_000_000_000);
+        HyperLogLog[] days = new HyperLogLog[DAYS];
+        for (int day = 0; day < DAYS; day++) {
+          days[day] = new HyperLogLog();
+        }
+        for (int i = 0; i < cardinality; i++) {
+          // Each learner shows up on two days.
+          days[i % DAYS].add(firstId + i);
+          days[(i + 1) % DAYS].add(firstId + i);
+        }
+        HyperLogLog merged = new HyperLogLog();
+        for (HyperLogLog day : days) {
+          merged.merge(HyperLogLog.fromBytes(day.toBytes()));
+        }
+
+        double error = Math.abs(merged.estimate() - cardinality) / (double) cardinality;
+        assertTrue(error <= 4 * rse, "cardinality " + cardinality + ": off by " + error);
+        sumSquaredError += error * error;
+      }
+      double rmsError = Math.sqrt(sumSquaredError / TRIALS);
+      assertTrue(
+          rmsError <= 1.5 * rse, "cardinality " + cardinality + ": RMS error " + rmsError + " exceeds 1.5 x " + rse);
+    }
+  }
+
+  static HyperLogLog sketchOf(long firstId, long lastId) {
+    HyperLogLog sketch = new HyperLogLog();
+    for (long id = firstId; id <= lastId; id++) {
+      sketch.add(id);
+    }
+    return sketch;
+  }
+}
@@ -0,0 +1,165 @@
+package com.example.lms.api.reports;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import com.example.lms.api.reports.ReportDtos.LearnerProgressRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.servlet.context.AnnotationConfigServletWebServerApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// Runs the real export handlers in an embedded Tomcat whose MVC async timeout is far shorter than
+// the export, to check that exports are not cut off by it.
+class ReportExportTimeoutTest {
+  private static final long MVC_TIMEOUT_MS = 300;
+  private static final int ROWS = 30;
+  private static final long ROW_DELAY_MS = 100;
+
+  private static AnnotationConfigServletWebServerApplicationContext context;
+  private static HttpClient client;
+  private static int port;
+
+  @BeforeAll
+  static void start() {
+    context = new AnnotationConfigServletWebServerApplicationContext(TestConfig.class);
+    port = context.getWebServer().getPort();
+    client = HttpClient.newHttpClient();
+  }
+
+  @AfterAll
+  static void stop() {
+    context.close();
+  }
+
+  @Test
+  void ndjsonExportOutlivesTheMvcTimeout() throws Exception {
+    HttpResponse<String> response = get("/api/reports/learner-progress.ndjson");
+
+    assertEquals(200, response.statusCode());
+    assertEquals(ROWS, response.body().lines().count());
+  }
+
+  @Test
+  void csvExportOutlivesTheMvcTimeout() throws Exception {
+    HttpResponse<String> response = get("/api/reports/learner-progress.csv");
+
+    assertEquals(200, response.statusCode());
+    assertEquals(ROWS + 1, response.body().lines().count());
+  }
+
+  @Test
+  void plainStreamingBodyIsCutOffByTheMvcTimeout() throws Exception {
+    long lines;
+    try {
+      lines = get("/test/slow").body().lines().count();
+    } catch (IOException ex) {
+      lines = -1;
+    }
+    assertTrue(lines < ROWS, "expected the control stream to be cut off, got " + lines + " lines");
+  }
+
+  private static HttpResponse<String> get(String path) throws Exception {
+    HttpRequest request =
+        HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .header("X-User-Id", "1")
+            .header("X-Role", "ADMIN")
+            .GET()
+            .build();
+    return client.send(request, HttpResponse.BodyHandlers.ofString());
+  }
+
+  private static void pause() {
+    try {
+      Thread.sleep(ROW_DELAY_MS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  @Configuration
+  @EnableWebMvc
+  static class TestConfig implements WebMvcConfigurer {
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+      configurer.setDefaultTimeout(MVC_TIMEOUT_MS);
+    }
+
+    @Bean
+    TomcatServletWebServerFactory webServerFactory() {
+      return new TomcatServletWebServerFactory(0);
+    }
+
+    @Bean
+    DispatcherServlet dispatcherServlet() {
+      return new DispatcherServlet();
+    }
+
+    @Bean
+    ReportExportExecutor reportExportExecutor() {
+      return new ReportExportExecutor(2, 4, 0);
+    }
+
+    @Bean
+    ReportController reportController(ReportExportExecutor exportExecutor) {
+      ReportService service = mock(ReportService.class);
+      doAnswer(
+              invocation -> {
+                Consumer<LearnerProgressRow> consumer = invocation.getArgument(1);
+                for (int i = 1; i <= ROWS; i++) {
+                  pause();
+                  consumer.accept(new LearnerProgressRow(i, "Learner " + i, 1, "Course", 50.0, 1, 2));
+                }
+                return null;
+              })
+          .when(service)
+          .streamLearnerProgress(any(), any());
+      return new ReportController(
+          service,
+          mock(ReportRollupService.class),
+          mock(ReportJobService.class),
+          exportExecutor,
+          new ObjectMapper());
+    }
+
+    @Bean
+    SlowController slowController() {
+      return new SlowController();
+    }
+  }
+
+  @RestController
+  static class SlowController {
+    @GetMapping("/test/slow")
+    StreamingResponseBody slow() {
+      return out -> {
+        for (int i = 0; i < ROWS; i++) {
+          pause();
+          out.write("line\n".getBytes());
+          out.flush();
+        }
+      };
+    }
+  }
+}
@@ -36,3 +36,76 @@ export async function apiRequest<T>(
 
   return (await response.text()) as T;
 }
+
+export type StreamResult = { status: string; latencyMs: number };
+
+// POSTs JSON and reads the server-sent events of the response: each "delta" event's text is passed
+// to onDelta; resolves on "done" and rejects on "error". EventSource cannot send a body or headers,
+// so the stream is parsed from fetch.
+export async function apiStream(
+  path: string,
+  body: unknown,
+  onDelta: (text: string) => void
+): Promise<StreamResult> {
+  const userId = getUserId();
+  const role = getRole();
+  const headers: Record<string, string> = {
+    "Content-Type": "application/json",
+    Accept: "text/event-stream",
+  };
+  if (userId) {
+    headers["X-User-Id"] = userId;
+  }
+  if (role) {
+    headers["X-Role"] = role;
+  }
+
+  const response = await fetch(path, { method: "POST", headers, body: JSON.stringify(body) });
+  if (!response.ok || !response.body) {
+    const contentType = response.headers.get("content-type") || "";
+    if (contentType.includes("application/json")) {
+      const error = (await response.json()) as ApiError;
+      throw new Error(`${error.code}: ${error.message}`);
+    }
+    throw new Error(`HTTP ${response.status}`);
+  }
+
+  const reader = response.body.getReader();
+  const decoder = new TextDecoder();
+  let buffer = "";
+  for (;;) {
+    const { value, done } = await reader.read();
+    if (done) {
+      throw new Error("Stream ended unexpectedly");
+    }
+    buffer += decoder.decode(value, { stream: true });
+    let boundary = buffer.indexOf("\n\n");
+    while (boundary >= 0) {
+      const block = buffer.slice(0, boundary);
+      buffer = buffer.slice(boundary + 2);
+      boundary = buffer.indexOf("\n\n");
+      let event = "message";
+      const data: string[] = [];
+      for (const line of block.split("\n")) {
+        if (line.startsWith("event:")) {
+          event = line.slice(6).trim();
+        } else if (line.startsWith("data:")) {
+          data.push(line.slice(5));
+        }
+      }
+      if (data.length === 0) {
+        continue;
+      }
+      const payload = JSON.parse(data.join("\n"));
+      if (event === "delta") {
+        onDelta(payload.text);
+      } else if (event === "done") {
+        await reader.cancel();
+        return payload as StreamResult;
+      } else if (event === "error") {
+        await reader.cancel();
+        throw new Error(`${payload.code}: ${payload.message}`);
+      }
+    }
+  }
+}
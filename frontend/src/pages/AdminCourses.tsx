@@ -9,16 +9,44 @@ type Course = {
   createdAt: string;
 };
 
+type CoursePage = {
+  items: Course[];
+  nextCursor: string | null;
+  total: number | null;
+};
+
+const PAGE_SIZE = 50;
+
 export default function AdminCourses() {
   const [courses, setCourses] = useState<Course[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [total, setTotal] = useState<number | null>(null);
+  const [search, setSearch] = useState("");
   const [title, setTitle] = useState("");
   const [description, setDescription] = useState("");
   const [error, setError] = useState<string | null>(null);
 
-  const loadCourses = () => {
-    apiRequest<Course[]>("/api/courses")
+  const loadCourses = (after: string | null = null) => {
+    const params = new URLSearchParams({
+      sort: "createdAt",
+      direction: "desc",
+      limit: String(PAGE_SIZE),
+    });
+    if (search.trim()) {
+      params.set("title", search.trim());
+    }
+    if (after) {
+      params.set("after", after);
+    } else {
+      params.set("includeTotal", "true");
+    }
+    apiRequest<CoursePage>(`/api/courses/page?${params.toString()}`)
       .then((data) => {
-        setCourses(data);
+        setCourses((prev) => (after ? [...prev, ...data.items] : data.items));
+        setNextCursor(data.nextCursor);
+        if (!after) {
+          setTotal(data.total);
+        }
         setError(null);
       })
       .catch((err) => setError(err.message));
@@ -28,6 +56,11 @@ export default function AdminCourses() {
     loadCourses();
   }, []);
 
+  const searchCourses = (event: FormEvent) => {
+    event.preventDefault();
+    loadCourses();
+  };
+
   const createCourse = async (event: FormEvent) => {
     event.preventDefault();
     try {
@@ -69,6 +102,16 @@ export default function AdminCourses() {
           </button>
         </form>
       </div>
+      <form onSubmit={searchCourses} className="form-grid">
+        <label>
+          Search
+          <input value={search} onChange={(e) => setSearch(e.target.value)} />
+        </label>
+        <button className="btn" type="submit">
+          검색
+        </button>
+      </form>
+      {total != null && <p className="muted">총 {total}개 과정</p>}
       <ul className="card-grid">
         {courses.map((course) => (
           <li key={course.id}>
@@ -76,6 +119,11 @@ export default function AdminCourses() {
           </li>
         ))}
       </ul>
+      {nextCursor && (
+        <button className="btn" type="button" onClick={() => loadCourses(nextCursor)}>
+          더 보기
+        </button>
+      )}
     </main>
   );
 }
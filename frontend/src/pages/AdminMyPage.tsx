@@ -12,34 +12,106 @@ type PendingEnrollment = {
   enrolledAt: string;
 };
 
+type PendingPage = {
+  items: PendingEnrollment[];
+  nextCursor: string | null;
+  total: number | null;
+};
+
+type PendingCourseCount = {
+  courseId: number;
+  courseTitle: string;
+  pendingCount: number;
+};
+
+const PAGE_SIZE = 50;
+
 export default function AdminMyPage() {
   const [rows, setRows] = useState<PendingEnrollment[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [counts, setCounts] = useState<PendingCourseCount[]>([]);
+  const [courseId, setCourseId] = useState<number | null>(null);
   const [error, setError] = useState<string | null>(null);
 
-  const loadPending = async () => {
+  const loadPending = async (after: string | null = null, course = courseId) => {
+    const params = new URLSearchParams({ limit: String(PAGE_SIZE) });
+    if (course !== null) {
+      params.set("courseId", String(course));
+    }
+    if (after) {
+      params.set("after", after);
+    }
     try {
-      const data = await apiRequest<PendingEnrollment[]>("/api/enroll/pending");
-      setRows(data);
+      const data = await apiRequest<PendingPage>(`/api/enroll/pending?${params.toString()}`);
+      setRows((prev) => (after ? [...prev, ...data.items] : data.items));
+      setNextCursor(data.nextCursor);
       setError(null);
     } catch (err) {
       setError((err as Error).message);
     }
   };
 
+  const loadCounts = async () => {
+    try {
+      setCounts(await apiRequest<PendingCourseCount[]>("/api/enroll/pending/counts"));
+    } catch (err) {
+      setError((err as Error).message);
+    }
+  };
+
   useEffect(() => {
     void loadPending();
+    void loadCounts();
   }, []);
 
+  const selectCourse = (course: number | null) => {
+    setCourseId(course);
+    void loadPending(null, course);
+  };
+
   const approve = async (enrollmentId: number) => {
     try {
       await apiRequest(`/api/enroll/${enrollmentId}/approve`, { method: "POST" });
       setRows((prev) => prev.filter((row) => row.id !== enrollmentId));
+      void loadCounts();
       setError(null);
     } catch (err) {
       setError((err as Error).message);
     }
   };
 
+  const approveShown = async () => {
+    if (rows.length === 0) {
+      return;
+    }
+    try {
+      await apiRequest("/api/enroll/approve:bulk", {
+        method: "POST",
+        body: JSON.stringify({ ids: rows.map((row) => row.id) }),
+      });
+      void loadPending();
+      void loadCounts();
+    } catch (err) {
+      setError((err as Error).message);
+    }
+  };
+
+  const approveCourse = async (course: PendingCourseCount) => {
+    if (!window.confirm(`Approve all ${course.pendingCount} pending enrollments for ${course.courseTitle}?`)) {
+      return;
+    }
+    try {
+      await apiRequest("/api/enroll/approve:bulk", {
+        method: "POST",
+        body: JSON.stringify({ courseId: course.courseId }),
+      });
+      void loadPending();
+      void loadCounts();
+    } catch (err) {
+      setError((err as Error).message);
+    }
+  };
+
   return (
     <main className="page">
       <div className="page-header">
@@ -47,42 +119,91 @@ export default function AdminMyPage() {
         <p className="muted">Approve pending enrollments.</p>
       </div>
       {error && <p className="error">{error}</p>}
-      <section className="card section">
-        {rows.length === 0 ? (
-          <p className="muted">No pending enrollments.</p>
-        ) : (
+      {counts.length > 0 && (
+        <section className="card section">
           <table className="table">
             <thead>
               <tr>
-                <th>User</th>
                 <th>Course</th>
-                <th>Requested</th>
+                <th>Pending</th>
                 <th>Action</th>
               </tr>
             </thead>
             <tbody>
-              {rows.map((row) => (
-                <tr key={row.id}>
-                  <td>
-                    {row.userName || `User ${row.userId}`} ({row.userEmail})
-                  </td>
+              {counts.map((count) => (
+                <tr key={count.courseId}>
                   <td>
-                    {row.courseId} - {row.courseTitle}
+                    <button className="btn btn-sm" type="button" onClick={() => selectCourse(count.courseId)}>
+                      {count.courseId} - {count.courseTitle}
+                    </button>
                   </td>
-                  <td>{row.enrolledAt}</td>
+                  <td>{count.pendingCount}</td>
                   <td>
                     <button
                       className="btn btn-primary btn-sm"
                       type="button"
-                      onClick={() => approve(row.id)}
+                      onClick={() => approveCourse(count)}
                     >
-                      Approve
+                      Approve all
                     </button>
                   </td>
                 </tr>
               ))}
             </tbody>
           </table>
+        </section>
+      )}
+      <section className="card section">
+        {courseId !== null && (
+          <button className="btn btn-sm" type="button" onClick={() => selectCourse(null)}>
+            Show all courses
+          </button>
+        )}
+        {rows.length === 0 ? (
+          <p className="muted">No pending enrollments.</p>
+        ) : (
+          <>
+            <button className="btn btn-primary btn-sm" type="button" onClick={approveShown}>
+              Approve {rows.length} shown
+            </button>
+            <table className="table">
+              <thead>
+                <tr>
+                  <th>User</th>
+                  <th>Course</th>
+                  <th>Requested</th>
+                  <th>Action</th>
+                </tr>
+              </thead>
+              <tbody>
+                {rows.map((row) => (
+                  <tr key={row.id}>
+                    <td>
+                      {row.userName || `User ${row.userId}`} ({row.userEmail})
+                    </td>
+                    <td>
+                      {row.courseId} - {row.courseTitle}
+                    </td>
+                    <td>{row.enrolledAt}</td>
+                    <td>
+                      <button
+                        className="btn btn-primary btn-sm"
+                        type="button"
+                        onClick={() => approve(row.id)}
+                      >
+                        Approve
+                      </button>
+                    </td>
+                  </tr>
+                ))}
+              </tbody>
+            </table>
+          </>
+        )}
+        {nextCursor && (
+          <button className="btn btn-sm" type="button" onClick={() => loadPending(nextCursor)}>
+            Load more
+          </button>
         )}
       </section>
     </main>
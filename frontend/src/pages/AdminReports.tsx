@@ -1,5 +1,5 @@
 import { FormEvent, useState } from "react";
-import { apiRequest } from "../api/client";
+import { apiRequest, apiStream } from "../api/client";
 
 type PeriodRow = {
   courseId: number;
@@ -87,11 +87,10 @@ export default function AdminReports() {
 
   const generateSummary = async () => {
     try {
-      const data = await apiRequest<{ output: string }>("/api/ai/summary", {
-        method: "POST",
-        body: JSON.stringify({ text: aiInput }),
-      });
-      setSummaryOutput(data.output);
+      setSummaryOutput("");
+      await apiStream("/api/ai/summary/stream", { text: aiInput }, (delta) =>
+        setSummaryOutput((prev) => prev + delta)
+      );
       setError(null);
     } catch (err) {
       setError((err as Error).message);
@@ -100,11 +99,10 @@ export default function AdminReports() {
 
   const generateQuiz = async () => {
     try {
-      const data = await apiRequest<{ output: string }>("/api/ai/quiz", {
-        method: "POST",
-        body: JSON.stringify({ text: aiInput }),
-      });
-      setQuizOutput(data.output);
+      setQuizOutput("");
+      await apiStream("/api/ai/quiz/stream", { text: aiInput }, (delta) =>
+        setQuizOutput((prev) => prev + delta)
+      );
       setError(null);
     } catch (err) {
       setError((err as Error).message);
@@ -1,5 +1,5 @@
 ﻿import { useEffect, useState } from "react";
-import { apiRequest } from "../api/client";
+import { apiRequest, apiStream } from "../api/client";
 import { getRole } from "../auth";
 
 type AiRequestLog = {
@@ -129,11 +129,10 @@ export default function AiSupportPage() {
       return;
     }
     try {
-      const data = await apiRequest<{ output: string }>("/api/ai/summary", {
-        method: "POST",
-        body: JSON.stringify({ text: aiInput }),
-      });
-      setSummaryOutput(data.output);
+      setSummaryOutput("");
+      await apiStream("/api/ai/summary/stream", { text: aiInput }, (delta) =>
+        setSummaryOutput((prev) => prev + delta)
+      );
       setError(null);
       loadRequests();
     } catch (err) {
@@ -153,12 +152,12 @@ export default function AiSupportPage() {
     setQuizData(null);
     resetQuizState();
     try {
-      const data = await apiRequest<{ output: string }>("/api/ai/quiz", {
-        method: "POST",
-        body: JSON.stringify({ text }),
+      // The quiz is JSON, so it can only be parsed once complete; the raw text streams meanwhile.
+      let output = "";
+      await apiStream("/api/ai/quiz/stream", { text }, (delta) => {
+        output += delta;
+        setQuizRaw(output);
       });
-      const output = data.output || "";
-      setQuizRaw(output);
       const parsed = parseQuizOutput(output);
       if (!parsed || parsed.length === 0) {
         setQuizError("퀴즈 파싱에 실패했습니다.");
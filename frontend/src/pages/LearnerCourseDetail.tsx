@@ -38,6 +38,13 @@ type Progress = {
   lastPositionSec?: number | null;
 };
 
+type CourseDetail = {
+  course: Course;
+  lessons: Lesson[];
+  enrollment: Enrollment | null;
+  progress: Progress[];
+};
+
 declare global {
   interface Window {
     YT?: any;
@@ -68,16 +75,16 @@ export default function LearnerCourseDetail() {
     if (!courseId) {
       return;
     }
-    apiRequest<Course>(`/api/courses/${courseId}`)
+    apiRequest<CourseDetail>(`/api/learn/courses/${courseId}`)
       .then((data) => {
-        setCourse(data);
+        setCourse(data.course);
+        setLessons(data.lessons);
+        setEnrollment(data.enrollment);
+        setProgressRows(data.progress);
         setError(null);
       })
       .catch((err) => setError(err.message));
-    apiRequest<Lesson[]>(`/api/lessons/public?courseId=${courseId}`)
-      .then((data) => setLessons(data))
-      .catch(() => {});
-  }, [courseId]);
+  }, [courseId, loggedIn]);
 
   const getVideoId = (url: string) => {
     try {
@@ -195,18 +202,6 @@ export default function LearnerCourseDetail() {
     return rows;
   };
 
-  useEffect(() => {
-    if (!courseId || !loggedIn) {
-      return;
-    }
-    apiRequest<Enrollment>(`/api/enroll?courseId=${courseId}`)
-      .then((data) => {
-        setEnrollment(data);
-        void fetchProgress(data.id);
-      })
-      .catch(() => {});
-  }, [courseId, loggedIn]);
-
   const recordProgress = async (
     progressValue: number,
     lessonId?: number | null,
@@ -245,9 +240,9 @@ export default function LearnerCourseDetail() {
         await fetchProgress(enrollment.id);
       }
       setProgressRows((prev) => {
-        const existing = prev.find((row) => row.id === data.id);
+        const existing = prev.find((row) => row.lessonId === data.lessonId);
         if (existing) {
-          return prev.map((row) => (row.id === data.id ? data : row));
+          return prev.map((row) => (row.lessonId === data.lessonId ? data : row));
         }
         return [...prev, data];
       });